@@ -0,0 +1,170 @@
+package com.datashare.backend.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Cache mémoire borné avec durée de vie (TTL) des entrées.
+ *
+ * - Taille maximale : l'entrée la moins récemment utilisée est évincée (LRU)
+ * - TTL : une entrée expirée est rechargée au prochain accès
+ * - Invalidation explicite par clé ou par condition sur la valeur
+ * - Compteurs hits / misses / évictions
+ *
+ * Le chargement d'une valeur absente se fait hors verrou : deux threads peuvent
+ * charger la même clé simultanément, la dernière valeur chargée est conservée.
+ *
+ * @param <K> type de la clé
+ * @param <V> type de la valeur
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // LinkedHashMap en ordre d'accès : l'entrée la plus ancienne est la moins utilisée
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public BoundedTtlCache(int maxSize, long ttl, TimeUnit unit) {
+        this(maxSize, ttl, unit, System::nanoTime);
+    }
+
+    /**
+     * @param clock source de temps en nanosecondes (remplaçable dans les tests)
+     */
+    public BoundedTtlCache(int maxSize, long ttl, TimeUnit unit, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedTtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retourne la valeur en cache, ou la charge si elle est absente ou expirée.
+     * Une valeur chargée null n'est pas mise en cache.
+     *
+     * @param key    clé recherchée
+     * @param loader fonction de chargement (ex : requête en base)
+     * @return la valeur, ou null si le chargement retourne null
+     */
+    public V get(K key, Function<K, V> loader) {
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && now - entry.expiresAt < 0) {
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Retourne la valeur en cache sans chargement, ou null si absente ou expirée.
+     */
+    public V getIfPresent(K key) {
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && now - entry.expiresAt < 0) {
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Ajoute ou remplace une entrée.
+     */
+    public void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, clock.getAsLong() + ttlNanos);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Supprime une entrée.
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Supprime toutes les entrées dont la valeur vérifie la condition
+     * (parcours complet, réservé aux invalidations ponctuelles).
+     */
+    public void invalidateIf(Predicate<V> condition) {
+        synchronized (entries) {
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (condition.test(iterator.next().value)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Vide le cache.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Valeur en cache et instant d'expiration (System.nanoTime)
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -27,6 +27,9 @@ public class CorsConfig {
         // Headers autorisés (Auth, Content-Type...)
         config.setAllowedHeaders(Arrays.asList("*"));
 
+        // Headers lisibles par le frontend (curseur de pagination du listing)
+        config.setExposedHeaders(Collections.singletonList("X-Next-Cursor"));
+
         // Méthodes HTTP autorisées
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
 
@@ -0,0 +1,47 @@
+package com.datashare.backend.config;
+
+// === Imports métier ===
+import com.datashare.backend.security.services.UserDetailsImpl;
+import com.datashare.backend.services.QuotaService;
+
+// === Validation & Servlet ===
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// === Imports Spring ===
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Contrôle du quota de stockage avant la lecture du corps d'un upload.
+ *
+ * La taille annoncée (Content-Length) est comparée à l'espace restant de
+ * l'utilisateur connecté : un upload trop gros est refusé (413) sans que son
+ * contenu ne soit reçu ni écrit en staging. Un corps sans Content-Length
+ * (transfert chunked) est accepté ici ; le quota est alors vérifié à
+ * l'enregistrement du fichier.
+ */
+@Component
+public class UploadQuotaInterceptor implements HandlerInterceptor {
+
+    private final QuotaService quotaService;
+
+    public UploadQuotaInterceptor(QuotaService quotaService) {
+        this.quotaService = quotaService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long contentLength = request.getContentLengthLong();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (contentLength <= 0 || authentication == null
+                || !(authentication.getPrincipal() instanceof UserDetailsImpl user)) {
+            return true;
+        }
+        // QuotaExceededException : réponse 413 (GlobalExceptionHandler)
+        quotaService.requireRoomFor(user.getId(), contentLength);
+        return true;
+    }
+}
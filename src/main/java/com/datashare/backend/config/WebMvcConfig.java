@@ -0,0 +1,26 @@
+package com.datashare.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration Spring MVC.
+ * Enregistre le contrôle du quota sur les endpoints d'upload.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final UploadQuotaInterceptor uploadQuotaInterceptor;
+
+    public WebMvcConfig(UploadQuotaInterceptor uploadQuotaInterceptor) {
+        this.uploadQuotaInterceptor = uploadQuotaInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Corps multipart non encore lu (résolution paresseuse) : refus avant réception
+        registry.addInterceptor(uploadQuotaInterceptor)
+                .addPathPatterns("/api/files/upload", "/api/files/upload/stream");
+    }
+}
@@ -4,41 +4,82 @@ package com.datashare.backend.controllers;
 import com.datashare.backend.model.AppUser;
 import com.datashare.backend.model.File;
 import com.datashare.backend.model.Share;
+import com.datashare.backend.payload.request.ChunkedUploadInitRequest;
+import com.datashare.backend.payload.request.ZipDownloadRequest;
 import com.datashare.backend.payload.response.FileResponse;
 import com.datashare.backend.payload.response.MessageResponse;
 import com.datashare.backend.repository.AppUserRepository;
+import com.datashare.backend.repository.FileCursor;
 import com.datashare.backend.repository.FileRepository;
+import com.datashare.backend.repository.FileSort;
 import com.datashare.backend.repository.ShareRepository;
+import com.datashare.backend.security.services.UserDetailsImpl;
+import com.datashare.backend.services.ChunkedUploadService;
+import com.datashare.backend.services.ChunkedUploadService.UploadSession;
+import com.datashare.backend.services.ExpirationScheduler;
 import com.datashare.backend.services.FileStorageService;
+import com.datashare.backend.services.FileStorageService.StagedUpload;
+import com.datashare.backend.services.QuotaService;
+import com.datashare.backend.services.QuotaService.QuotaExceededException;
+import com.datashare.backend.services.QuotaService.Usage;
+import com.datashare.backend.services.ShareLookupService;
+import com.datashare.backend.services.ShareLookupService.SharedFile;
+import com.datashare.backend.services.SignedLinkService;
+import com.datashare.backend.services.UploadInspector;
+import com.datashare.backend.services.UploadInspector.RejectedContentException;
+import com.datashare.backend.services.ZipDownloadWriter;
+import com.datashare.backend.services.ZipDownloadWriter.ZipItem;
+import com.datashare.backend.multipart.StreamingMultipartParser;
+import com.datashare.backend.multipart.StreamingMultipartParser.Part;
+import com.datashare.backend.storage.StoredObject;
+
+// === Validation & Servlet ===
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 
 // === Imports Spring ===
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
 // === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Controller responsable de la gestion des fichiers utilisateurs.
  *
- * - Upload de fichiers (avec vérification d'extension)
- * - Listing des fichiers de l'utilisateur connecté
+ * - Upload de fichiers (vérification de l'extension et des premiers octets)
+ * - Upload en flux (corps multipart lu au fil de l'eau, sans fichier temporaire)
+ * - Upload fragmenté avec reprise (init / chunk / complete)
+ * - Listing paginé (curseur) des fichiers de l'utilisateur connecté
+ * - Téléchargement groupé (archive ZIP générée à la volée)
  * - Suppression (physique et logique)
+ * - Quota de stockage par utilisateur (contrôlé à l'upload, consultable)
  */
 @RestController
 @RequestMapping("/api/files")
 public class FileController {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileController.class);
+
     /**
      * Service de stockage physique (disque dur).
      */
@@ -63,9 +104,64 @@ public class FileController {
     @Autowired
     ShareRepository shareRepository;
 
-    // Liste des extensions interdites pour des raisons de sécurité
-    private static final java.util.List<String> FORBIDDEN_EXTENSIONS = java.util.Arrays.asList(
-            "exe", "msi", "bat", "cmd", "ps1", "vbs", "js", "jar", "com", "scr", "dll", "sys");
+    /**
+     * Cache des tokens de partage (invalidé à la suppression).
+     */
+    @Autowired
+    ShareLookupService shareLookupService;
+
+    /**
+     * Liens de téléchargement signés (mode optionnel, révoqués à la suppression).
+     */
+    @Autowired
+    SignedLinkService signedLinkService;
+
+    /**
+     * Écriture des archives ZIP en streaming.
+     */
+    @Autowired
+    ZipDownloadWriter zipDownloadWriter;
+
+    /**
+     * Service gérant les sessions d'upload fragmenté.
+     */
+    @Autowired
+    ChunkedUploadService chunkedUploadService;
+
+    /**
+     * Suppression des fichiers à leur échéance.
+     */
+    @Autowired
+    ExpirationScheduler expirationScheduler;
+
+    /**
+     * Transaction d'enregistrement d'un upload (publication du fichier au commit)
+     * et de suppression d'un fichier (libération du contenu après le commit).
+     */
+    @Autowired
+    TransactionTemplate uploadTransaction;
+
+    /**
+     * Contrôle des uploads (extension, puis premiers octets du contenu).
+     */
+    @Autowired
+    UploadInspector uploadInspector;
+
+    /**
+     * Quota de stockage (compteur par utilisateur, tenu à jour à l'upload et à la suppression).
+     */
+    @Autowired
+    QuotaService quotaService;
+
+    // Taille maximale d'un fichier, commune aux deux modes d'upload
+    @Value("${spring.servlet.multipart.max-file-size:1GB}")
+    private DataSize maxFileSize;
+
+    // Taille de page maximale du listing des fichiers
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // En-tête portant le curseur de la page suivante
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     /**
      * Endpoint d'upload de fichier.
@@ -78,99 +174,353 @@ public class FileController {
     public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file,
             @RequestParam(value = "expirationTime", required = false) Integer expirationTime) {
 
-        // 1. Vérifie l'extension du fichier (Sécurité)
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename != null) {
-            String extension = "";
-            int i = originalFilename.lastIndexOf('.');
-            if (i > 0) {
-                extension = originalFilename.substring(i + 1).toLowerCase();
-            }
-            if (FORBIDDEN_EXTENSIONS.contains(extension)) {
-                return ResponseEntity.badRequest().body(new MessageResponse(
-                        "Extension non supportée : ." + extension));
-            }
+        // 1. Vérifie l'extension du fichier (Sécurité) ; le contenu est examiné à l'écriture
+        Optional<String> extension = uploadInspector.forbiddenExtension(file.getOriginalFilename());
+        if (extension.isPresent()) {
+            return ResponseEntity.badRequest().body(new MessageResponse(
+                    "Extension non supportée : ." + extension.get()));
         }
 
+        StagedUpload staged = null;
+        boolean published = false;
         try {
             // 2. Récupère l'utilisateur connecté via le contexte de sécurité
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            AppUser user = userRepository.findByEmail(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            // 3. Stocke physiquement le fichier
-            String fileName = fileStorageService.store(file);
-
-            // 4. Crée l'entrée en base de données
-            File fileEntity = new File();
-            fileEntity.setOriginalName(file.getOriginalFilename());
-            fileEntity.setStoragePath(fileName);
-            fileEntity.setSize(file.getSize());
-            fileEntity.setOwner(user);
-
-            // 5. Calcule la date d'expiration (Max 7 jours)
-            int days = (expirationTime != null) ? Math.min(expirationTime, 7) : 7;
-            if (days < 1)
-                days = 1; // Minimum 1 jour
-            fileEntity.setExpirationDate(LocalDateTime.now().plusDays(days));
-
-            fileRepository.save(fileEntity);
-
-            // 6. Crée automatiquement un lien de partage
-            Share share = new Share();
-            share.setFile(fileEntity);
-            share.setUniqueToken(UUID.randomUUID().toString());
-            shareRepository.save(share);
-
-            // 7. Retourne la réponse succès avec les IDs
-            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-                    "fileId", fileEntity.getId(),
-                    "shareToken", share.getUniqueToken(),
-                    "message", "Fichier téléversé avec succès"));
+            AppUser user = getCurrentUser();
 
+            // 3. Écrit le fichier dans la zone de staging
+            staged = fileStorageService.stage(file);
+
+            // 4. Crée les entrées en base de données (fichier + lien de partage) ; le
+            // fichier n'est déplacé sous son nom définitif qu'après le commit
+            ResponseEntity<?> response = publishAndRegister(user, file.getOriginalFilename(), staged,
+                    expirationTime);
+            published = true;
+            return response;
+
+        } catch (RejectedContentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(new MessageResponse(e.getMessage()));
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Upload of {} failed", file.getOriginalFilename(), e);
             return ResponseEntity.status(HttpStatus.EXPECTATION_FAILED).body(new MessageResponse(
                     "Impossible de téléverser le fichier : " + file.getOriginalFilename() + ". Erreur : "
                             + e.getMessage()));
+        } finally {
+            // Requête rejetée avant l'enregistrement de la publication : staging supprimé
+            if (staged != null && !published) {
+                fileStorageService.discard(staged);
+            }
+        }
+    }
+
+    /**
+     * Endpoint d'upload en flux (mêmes champs et même réponse que /upload).
+     *
+     * Le corps multipart est lu au fil de l'eau : l'extension est vérifiée sur
+     * l'en-tête de la partie "file" avant la lecture de son contenu, qui est
+     * écrit directement dans la zone de staging (aucun fichier temporaire de
+     * Tomcat, une seule écriture sur disque). Le champ expirationTime peut
+     * précéder ou suivre le fichier.
+     *
+     * @param request requête multipart/form-data (corps non encore lu)
+     * @return statut de l'opération et token de partage généré
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<?> uploadFileStream(HttpServletRequest request) {
+        Optional<String> boundary = StreamingMultipartParser.boundary(request.getContentType());
+        if (boundary.isEmpty()) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Requête multipart/form-data attendue"));
+        }
+
+        String originalName = null;
+        StagedUpload staged = null;
+        boolean published = false;
+        try {
+            // Utilisateur résolu avant la réception du contenu
+            AppUser user = getCurrentUser();
+            StreamingMultipartParser parser = new StreamingMultipartParser(request.getInputStream(),
+                    boundary.get(), maxFileSize.toBytes());
+            Integer expirationTime = null;
+            for (Part part = parser.nextPart(); part != null; part = parser.nextPart()) {
+                if ("file".equals(part.name()) && part.filename() != null && staged == null) {
+                    // 1. Vérifie l'extension du fichier (Sécurité), avant d'en lire le contenu
+                    Optional<String> extension = uploadInspector.forbiddenExtension(part.filename());
+                    if (extension.isPresent()) {
+                        return ResponseEntity.badRequest().body(new MessageResponse(
+                                "Extension non supportée : ." + extension.get()));
+                    }
+                    // 2. Écrit le contenu dans la zone de staging au fil de la réception
+                    // (refusé dès ses premiers octets s'il s'agit d'un exécutable)
+                    originalName = part.filename();
+                    staged = fileStorageService.stage(originalName, part.content());
+                } else if ("expirationTime".equals(part.name())) {
+                    String value = part.readString(16).trim();
+                    expirationTime = value.isEmpty() ? null : Integer.valueOf(value);
+                }
+            }
+            if (staged == null) {
+                return ResponseEntity.badRequest().body(new MessageResponse("Aucun fichier reçu"));
+            }
+
+            // 3. Crée les entrées en base ; le fichier est publié après le commit
+            ResponseEntity<?> response = publishAndRegister(user, originalName, staged, expirationTime);
+            published = true;
+            return response;
+
+        } catch (MaxUploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(new MessageResponse(
+                    "Fichier trop volumineux (maximum " + maxFileSize.toMegabytes() + " Mo)"));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Durée de validité invalide"));
+        } catch (RejectedContentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(new MessageResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Streamed upload of {} failed", originalName, e);
+            return ResponseEntity.status(HttpStatus.EXPECTATION_FAILED).body(new MessageResponse(
+                    "Impossible de téléverser le fichier : " + originalName + ". Erreur : " + e.getMessage()));
+        } finally {
+            // Requête rejetée avant l'enregistrement de la publication : staging supprimé
+            // (après un rollback, la synchronisation de publishOnCommit l'a déjà supprimé)
+            if (staged != null && !published) {
+                fileStorageService.discard(staged);
+            }
+        }
+    }
+
+    // Enregistre un upload préparé : quota réservé, fichier et partage créés en
+    // base, contenu déplacé sous son nom définitif après le commit (staging
+    // supprimé en cas de rollback, dépassement du quota compris)
+    private ResponseEntity<?> publishAndRegister(AppUser user, String originalName, StagedUpload staged,
+            Integer expirationTime) {
+        return uploadTransaction.execute(status -> {
+            fileStorageService.publishOnCommit(staged);
+            quotaService.reserve(user.getId(), staged.size());
+            return registerFile(user, originalName, staged.storagePath(), staged.size(), staged.sha256(),
+                    expirationTime);
+        });
+    }
+
+    /**
+     * Ouvre un upload fragmenté.
+     *
+     * @param request nom, taille totale et durée de validité du fichier
+     * @return identifiant de la session d'upload et offset de départ
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<?> initChunkedUpload(@Valid @RequestBody ChunkedUploadInitRequest request) {
+        Optional<String> extension = uploadInspector.forbiddenExtension(request.getFileName());
+        if (extension.isPresent()) {
+            return ResponseEntity.badRequest().body(new MessageResponse(
+                    "Extension non supportée : ." + extension.get()));
         }
+
+        Long userId = getCurrentPrincipal().getId();
+        try {
+            // Taille annoncée comparée à l'espace restant, avant l'envoi du premier chunk
+            quotaService.requireRoomFor(userId, request.getTotalSize());
+            UploadSession session = chunkedUploadService.init(userId, request.getFileName(),
+                    request.getTotalSize(), request.getExpirationTime());
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                    "uploadId", session.getUploadId(),
+                    "offset", 0L));
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(new MessageResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Retourne l'état d'un upload fragmenté (offset à partir duquel reprendre).
+     *
+     * @param uploadId identifiant de la session
+     * @return offset courant et taille totale
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getChunkedUpload(@PathVariable String uploadId) {
+        return chunkedUploadService.find(uploadId, getCurrentPrincipal().getId())
+                .<ResponseEntity<?>>map(session -> ResponseEntity.ok(Map.of(
+                        "uploadId", session.getUploadId(),
+                        "offset", chunkedUploadService.currentOffset(session),
+                        "totalSize", session.getTotalSize())))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Reçoit un chunk (corps brut de la requête) à l'offset indiqué.
+     * Les octets sont écrits au fil de l'eau dans le fichier de staging.
+     *
+     * @param uploadId identifiant de la session
+     * @param offset   position du premier octet du chunk
+     * @param request  requête HTTP dont le corps contient le chunk
+     * @return prochain offset attendu, ou 409 si l'offset ne correspond pas
+     */
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> uploadChunk(@PathVariable String uploadId, @RequestParam("offset") long offset,
+            HttpServletRequest request) {
+        return chunkedUploadService.find(uploadId, getCurrentPrincipal().getId())
+                .<ResponseEntity<?>>map(session -> {
+                    try {
+                        long next = chunkedUploadService.appendChunk(session, offset, request.getInputStream());
+                        return ResponseEntity.ok(Map.of("uploadId", uploadId, "offset", next));
+                    } catch (IllegalStateException e) {
+                        // Offset décalé : le client doit reprendre à l'offset retourné
+                        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                                "message", e.getMessage(),
+                                "offset", chunkedUploadService.currentOffset(session)));
+                    } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+                    } catch (IOException e) {
+                        return ResponseEntity.status(HttpStatus.EXPECTATION_FAILED).body(new MessageResponse(
+                                "Impossible de lire le chunk : " + e.getMessage()));
+                    }
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Termine un upload fragmenté : réserve le quota, crée le fichier et son
+     * lien de partage ; le fichier assemblé n'est publié qu'après le commit. En
+     * cas de dépassement, la session est conservée (reprise possible après
+     * suppression d'autres fichiers).
+     *
+     * @param uploadId identifiant de la session
+     * @return statut de l'opération et token de partage généré
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeChunkedUpload(@PathVariable String uploadId) {
+        return chunkedUploadService.find(uploadId, getCurrentPrincipal().getId())
+                .<ResponseEntity<?>>map(session -> {
+                    try {
+                        return uploadTransaction.execute(status -> {
+                            // Réservé avant la finalisation : un refus laisse les fragments en staging
+                            quotaService.reserve(session.getOwnerId(), session.getTotalSize());
+                            StagedUpload staged = chunkedUploadService.complete(session);
+                            // Fichier assemblé publié après le commit, supprimé en cas de rollback
+                            fileStorageService.publishOnCommit(staged);
+                            return registerFile(getCurrentUser(), session.getFileName(), staged.storagePath(),
+                                    staged.size(), staged.sha256(), session.getExpirationTime());
+                        });
+                    } catch (QuotaExceededException e) {
+                        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(
+                                new MessageResponse(e.getMessage()));
+                    } catch (RejectedContentException e) {
+                        // Contenu assemblé refusé : fragments supprimés, session close
+                        return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+                    } catch (IllegalStateException e) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                                "message", e.getMessage(),
+                                "offset", chunkedUploadService.currentOffset(session)));
+                    }
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
-     * Endpoint de listing des fichiers.
+     * Abandonne un upload fragmenté et libère l'espace de staging.
+     *
+     * @param uploadId identifiant de la session
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> abortChunkedUpload(@PathVariable String uploadId) {
+        return chunkedUploadService.find(uploadId, getCurrentPrincipal().getId())
+                .<ResponseEntity<?>>map(session -> {
+                    chunkedUploadService.abort(session);
+                    return ResponseEntity.noContent().build();
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint de listing des fichiers (pagination par curseur).
+     *
+     * La réponse contient au plus "limit" fichiers ; s'il en reste, l'en-tête
+     * X-Next-Cursor contient le curseur à renvoyer pour obtenir la page suivante.
      *
+     * @param sort      critère de tri (createdAt, name, size, expiration)
+     * @param direction sens du tri (asc, desc)
+     * @param cursor    curseur de la page précédente (optionnel)
+     * @param limit     taille de page (1 à 500, 100 par défaut)
      * @return liste des fichiers appartenant à l'utilisateur connecté
      */
     @GetMapping
-    public ResponseEntity<List<FileResponse>> getListFiles() {
-        // Récupère l'utilisateur courant
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        AppUser user = userRepository.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<?> getListFiles(
+            @RequestParam(value = "sort", defaultValue = "createdAt") String sort,
+            @RequestParam(value = "direction", defaultValue = "desc") String direction,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        // Récupère l'utilisateur courant (depuis le JWT, sans requête)
+        UserDetailsImpl userDetails = getCurrentPrincipal();
+
+        FileSort fileSort;
+        FileCursor after;
+        boolean ascending = "asc".equalsIgnoreCase(direction);
+        try {
+            fileSort = FileSort.fromParameter(sort);
+            after = (cursor != null) ? FileCursor.decode(cursor, fileSort, ascending) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Paramètres de pagination invalides"));
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Une ligne de plus que la page pour savoir s'il reste des fichiers
+        List<FileResponse> fileResponses = new ArrayList<>(
+                fileRepository.findFileResponsesPage(userDetails.getId(), fileSort, ascending, after, pageSize + 1));
+        logger.debug("getListFiles for user {}: {} file(s)", userDetails.getId(), fileResponses.size());
+
+        if (fileResponses.size() <= pageSize) {
+            return ResponseEntity.ok(fileResponses);
+        }
+        fileResponses.remove(pageSize);
+        String nextCursor = FileCursor.encode(fileSort, ascending, fileResponses.get(pageSize - 1));
+        return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, nextCursor).body(fileResponses);
+    }
 
-        // Récupère les fichiers en base
-        List<File> files = fileRepository.findByOwnerId(user.getId());
-        System.out.println("FileController: getListFiles called for user " + user.getEmail() + ". Found " + files.size()
-                + " files.");
+    /**
+     * Téléchargement groupé de fichiers de l'utilisateur connecté, en une seule
+     * archive ZIP construite à la volée (remplace un téléchargement par fichier).
+     *
+     * Les IDs inconnus, appartenant à un autre utilisateur ou dont le contenu
+     * physique est absent sont ignorés.
+     *
+     * @param request  IDs des fichiers à inclure
+     * @param response réponse HTTP recevant l'archive
+     * @return 404 si aucun fichier n'est accessible, null si l'archive est envoyée
+     */
+    @PostMapping("/zip")
+    public ResponseEntity<?> downloadZip(@Valid @RequestBody ZipDownloadRequest request,
+            HttpServletResponse response) {
+        Long userId = getCurrentPrincipal().getId();
 
-        // Transforme les entités JPA en DTOs (FileResponse)
-        List<FileResponse> fileResponses = files.stream().map(dbFile -> {
-            Share share = shareRepository.findByFileId(dbFile.getId()).orElse(null);
-            String token = (share != null) ? share.getUniqueToken() : null;
-            Integer downloadCount = (share != null) ? share.getDownloadCount() : 0;
+        // Une seule requête pour tous les fichiers ; ordre de la demande conservé
+        Map<Long, File> files = new HashMap<>();
+        fileRepository.findAllById(request.getFileIds()).forEach(file -> files.put(file.getId(), file));
 
-            return new FileResponse(
-                    dbFile.getId(),
-                    dbFile.getOriginalName(),
-                    dbFile.getSize(),
-                    dbFile.getCreatedAt(),
-                    dbFile.getExpirationDate(),
-                    token,
-                    downloadCount);
-        }).collect(Collectors.toList());
+        List<ZipItem> items = new ArrayList<>();
+        for (Long id : new java.util.LinkedHashSet<>(request.getFileIds())) {
+            File file = files.get(id);
+            if (file == null || !file.getOwner().getId().equals(userId)) {
+                continue;
+            }
+            Optional<StoredObject> stored = fileStorageService.find(file.getStoragePath());
+            if (stored.isPresent()) {
+                items.add(new ZipItem(file.getOriginalName(), stored.get()::open,
+                        FileStorageService.isGzipped(file.getStoragePath())));
+            }
+        }
+        if (items.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
 
-        return ResponseEntity.ok(fileResponses);
+        try {
+            zipDownloadWriter.write(items, "datashare.zip", response);
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not send zip archive", e);
+        }
     }
 
     /**
@@ -190,22 +540,109 @@ public class FileController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteFile(@PathVariable Long id) {
         // Vérification de sécurité : l'utilisateur est-il propriétaire ?
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        AppUser user = userRepository.findByEmail(userDetails.getUsername()).orElseThrow();
+        Long userId = getCurrentPrincipal().getId();
 
         return fileRepository.findById(id).map(file -> {
-            if (!file.getOwner().getId().equals(user.getId())) {
+            if (!file.getOwner().getId().equals(userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
-            // Suppression du fichier physique
-            fileStorageService.delete(file.getStoragePath());
+            // IDs des partages, pour révoquer les liens signés encore valides
+            List<Long> shareIds = file.getShares().stream().map(Share::getId).toList();
+            long size = file.getSize() != null ? file.getSize() : 0;
+
+            // Suppression des métadonnées et de la taille du quota dans une même
+            // transaction ; une suppression concurrente du même fichier ne trouve
+            // plus la ligne et ne libère rien une seconde fois
+            boolean deleted = Boolean.TRUE.equals(uploadTransaction.execute(status -> {
+                shareRepository.deleteByFileId(id);
+                if (fileRepository.deleteByIdAndOwnerId(id, userId) != 1) {
+                    return false;
+                }
+                quotaService.release(userId, size);
+                return true;
+            }));
+            if (!deleted) {
+                return ResponseEntity.notFound().build();
+            }
+
+            // Libération du fichier physique après le commit (décrément des références si dédupliqué)
+            fileStorageService.release(file.getStoragePath());
 
-            // Suppression des métadonnées en base
-            fileRepository.delete(file);
+            // Le lien de partage ne doit plus être servi depuis le cache
+            shareLookupService.invalidateFiles(List.of(file.getId()));
+            signedLinkService.revoke(shareIds, file.getExpirationDate());
 
             return ResponseEntity.ok(Map.of("message", "Fichier supprimé avec succès"));
         }).orElseGet(() -> ResponseEntity.notFound().build());
     }
+
+    /**
+     * Endpoint de consultation du quota de stockage de l'utilisateur connecté.
+     *
+     * @return espace occupé, quota (0 : sans limite) et espace restant, en octets
+     */
+    @GetMapping("/quota")
+    public ResponseEntity<?> getQuota() {
+        Usage usage = quotaService.usage(getCurrentPrincipal().getId());
+        Map<String, Object> body = new HashMap<>();
+        body.put("usedBytes", usage.usedBytes());
+        body.put("limitBytes", usage.limitBytes());
+        if (usage.limitBytes() > 0) {
+            body.put("remainingBytes", usage.remainingBytes());
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    // Récupère le principal de l'utilisateur connecté (construit depuis le JWT)
+    private UserDetailsImpl getCurrentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (UserDetailsImpl) authentication.getPrincipal();
+    }
+
+    // Référence JPA vers l'utilisateur connecté (aucune requête, seul l'ID est utilisé)
+    private AppUser getCurrentUser() {
+        return userRepository.getReferenceById(getCurrentPrincipal().getId());
+    }
+
+    /**
+     * Crée l'entrée du fichier stocké et son lien de partage automatique.
+     * L'empreinte SHA-256 (null si inconnue) est servie au téléchargement.
+     */
+    private ResponseEntity<?> registerFile(AppUser user, String originalName, String storagePath, long size,
+            String sha256, Integer expirationTime) {
+        File fileEntity = new File();
+        fileEntity.setOriginalName(originalName);
+        fileEntity.setStoragePath(storagePath);
+        fileEntity.setStorageNode(fileStorageService.nodeOf(storagePath));
+        fileEntity.setSize(size);
+        fileEntity.setSha256(sha256);
+        fileEntity.setOwner(user);
+
+        // Calcule la date d'expiration (Max 7 jours)
+        int days = (expirationTime != null) ? Math.min(expirationTime, 7) : 7;
+        if (days < 1)
+            days = 1; // Minimum 1 jour
+        fileEntity.setExpirationDate(LocalDateTime.now().plusDays(days));
+
+        fileRepository.save(fileEntity);
+        expirationScheduler.schedule(fileEntity.getId(), fileEntity.getExpirationDate());
+
+        // Crée automatiquement un lien de partage
+        Share share = new Share();
+        share.setFile(fileEntity);
+        share.setUniqueToken(UUID.randomUUID().toString());
+        shareRepository.save(share);
+
+        // Retourne la réponse succès avec les IDs
+        Map<String, Object> body = new HashMap<>();
+        body.put("fileId", fileEntity.getId());
+        body.put("shareToken", share.getUniqueToken());
+        if (signedLinkService.isEnabled()) {
+            // Lien vérifiable sans accès à la base (/api/download/s/{signedToken})
+            body.put("signedToken", signedLinkService.sign(SharedFile.from(share)));
+        }
+        body.put("message", "Fichier téléversé avec succès");
+        return ResponseEntity.status(HttpStatus.CREATED).body(body);
+    }
 }
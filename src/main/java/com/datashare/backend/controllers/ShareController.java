@@ -1,38 +1,66 @@
 package com.datashare.backend.controllers;
 
 // === Imports métier ===
-import com.datashare.backend.model.File;
-import com.datashare.backend.repository.ShareRepository;
+import com.datashare.backend.services.DownloadCounterService;
+import com.datashare.backend.services.FileDownloadWriter;
 import com.datashare.backend.services.FileStorageService;
+import com.datashare.backend.services.ShareLookupService;
+import com.datashare.backend.services.ShareLookupService.SharedFile;
+import com.datashare.backend.services.SignedLinkService;
+import com.datashare.backend.services.ZipDownloadWriter;
+import com.datashare.backend.services.ZipDownloadWriter.ZipItem;
+import com.datashare.backend.storage.StorageCluster;
+import com.datashare.backend.storage.StoredObject;
+
+// === Imports Servlet API ===
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 // === Imports Spring ===
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 // === Utilitaires ===
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller responsable de l'accès publique aux fichiers partagés.
  *
  * - Enpoints d'accès Anonyme (pas de vérification JWT)
- * - Récupération des métadonnées via Token
- * - Téléchargement physique du fichier
+ * - Récupération des métadonnées via Token (ou lien signé, sans base de données)
+ * - Téléchargement physique du fichier (plages HTTP et GET conditionnel)
+ * - Téléchargement groupé de plusieurs partages (archive ZIP à la volée)
+ * - En cluster : redirection (307) vers le nœud qui détient le fichier
  */
 @RestController
 @RequestMapping("/api")
 public class ShareController {
 
     /**
-     * Repository pour vérifier la validité des tokens de partage.
+     * Résolution des tokens de partage (avec cache, y compris tokens inconnus).
+     */
+    @Autowired
+    ShareLookupService shareLookupService;
+
+    /**
+     * Vérification des liens signés (mode optionnel).
      */
     @Autowired
-    ShareRepository shareRepository;
+    SignedLinkService signedLinkService;
 
     /**
      * Service pour accéder au système de fichiers (stockage).
@@ -40,6 +68,33 @@ public class ShareController {
     @Autowired
     FileStorageService fileStorageService;
 
+    /**
+     * Écriture zéro-copie du fichier dans la réponse (sendfile, sinon copie par blocs).
+     */
+    @Autowired
+    FileDownloadWriter fileDownloadWriter;
+
+    /**
+     * Routage des téléchargements entre les nœuds du cluster.
+     */
+    @Autowired
+    StorageCluster storageCluster;
+
+    /**
+     * Compteurs de téléchargements (écriture différée en base).
+     */
+    @Autowired
+    DownloadCounterService downloadCounterService;
+
+    /**
+     * Écriture des archives ZIP en streaming.
+     */
+    @Autowired
+    ZipDownloadWriter zipDownloadWriter;
+
+    // Nombre maximal de partages dans une archive
+    private static final int MAX_ZIP_ENTRIES = 500;
+
     /**
      * Endpoint pour récupérer les infos d'un partage (taille, nom, expiration).
      * Accessible sans authentification.
@@ -49,24 +104,21 @@ public class ShareController {
      */
     @GetMapping("/share/{token}")
     public ResponseEntity<?> getShareMetadata(@PathVariable String token) {
-        return shareRepository.findByUniqueToken(token)
-                .map(share -> {
-                    File file = share.getFile();
-
-                    // Vérification de la date d'expiration
-                    if (file.getExpirationDate() != null && file.getExpirationDate().isBefore(LocalDateTime.now())) {
-                        return ResponseEntity.status(410).body(Map.of("message", "Link expired"));
-                    }
-
-                    // Construction de la réponse JSON simplifiée
-                    java.util.Map<String, Object> response = new java.util.HashMap<>();
-                    response.put("fileName", file.getOriginalName());
-                    response.put("size", file.getSize());
-                    response.put("expiration",
-                            file.getExpirationDate() != null ? file.getExpirationDate().toString() : null);
-
-                    return ResponseEntity.ok(response);
-                })
+        return shareLookupService.find(token)
+                .map(this::metadata)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Métadonnées d'un partage via lien signé (aucune requête en base).
+     *
+     * @param signedToken lien signé généré à l'upload
+     * @return métadonnées du fichier ou erreur 410 (Expiré) / 404 (Invalide, révoqué ou mode désactivé)
+     */
+    @GetMapping("/share/s/{signedToken}")
+    public ResponseEntity<?> getSignedShareMetadata(@PathVariable String signedToken) {
+        return signedLinkService.verify(signedToken)
+                .map(this::metadata)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -74,36 +126,314 @@ public class ShareController {
      * Endpoint de téléchargement du fichier.
      * Accessible sans authentification.
      *
-     * @param token le token unique de partage
-     * @return flux binaire du fichier (Resource)
+     * - ETag / Last-Modified dérivés des métadonnées du fichier stocké (ETag =
+     *   empreinte SHA-256 du contenu quand elle est connue)
+     * - Repr-Digest / Digest : empreinte SHA-256, vérifiable par le client
+     * - If-None-Match / If-Modified-Since : 304 sans corps
+     * - Range (simple ou multiple) : 206, conditionné par If-Range
+     *
+     * Le contenu est écrit directement dans la réponse par FileDownloadWriter ;
+     * la méthode retourne alors null (réponse déjà traitée).
+     *
+     * @param token    le token unique de partage
+     * @param request  requête HTTP
+     * @param response réponse HTTP recevant le flux binaire du fichier
+     * @return erreur 410 (Expiré) / 404 (Introuvable) / 416 (Plage invalide),
+     *         null si la réponse est envoyée
      */
     @GetMapping("/download/{token}")
-    public ResponseEntity<?> downloadFile(@PathVariable String token) {
-        return shareRepository.findByUniqueToken(token)
-                .map(share -> {
-                    File file = share.getFile();
-
-                    // Vérification de l'expiration avant téléchargement
-                    if (file.getExpirationDate() != null && file.getExpirationDate().isBefore(LocalDateTime.now())) {
-                        return ResponseEntity.status(410).body(Map.of("message", "Link expired"));
-                    }
-
-                    // Incrémente le compteur de téléchargement
-                    share.setDownloadCount(share.getDownloadCount() + 1);
-                    shareRepository.save(share);
-
-                    // Charge le fichier physique
-                    Resource resource = fileStorageService.loadFileAsResource(file.getStoragePath());
-
-                    String contentType = "application/octet-stream";
-
-                    // Retourne le fichier en attachment (force le téléchargement navigateur)
-                    return ResponseEntity.ok()
-                            .contentType(MediaType.parseMediaType(contentType))
-                            .header(HttpHeaders.CONTENT_DISPOSITION,
-                                    "attachment; filename=\"" + file.getOriginalName() + "\"")
-                            .body(resource);
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> downloadFile(@PathVariable String token, HttpServletRequest request,
+            HttpServletResponse response) {
+        return serve(shareLookupService.find(token), request, response);
+    }
+
+    /**
+     * Téléchargement via lien signé : la signature, l'expiration et la révocation
+     * sont vérifiées en mémoire, seul le stockage est sollicité. Le compteur du
+     * partage d'origine est incrémenté comme pour un token classique.
+     *
+     * @param signedToken lien signé généré à l'upload
+     * @param request     requête HTTP
+     * @param response    réponse HTTP recevant le flux binaire du fichier
+     * @return erreur 410 (Expiré) / 404 (Invalide, révoqué ou mode désactivé) /
+     *         416 (Plage invalide), null si la réponse est envoyée
+     */
+    @GetMapping("/download/s/{signedToken}")
+    public ResponseEntity<?> downloadSignedFile(@PathVariable String signedToken, HttpServletRequest request,
+            HttpServletResponse response) {
+        return serve(signedLinkService.verify(signedToken), request, response);
+    }
+
+    /**
+     * Téléchargement groupé de plusieurs partages en une archive ZIP construite à
+     * la volée. Accessible sans authentification.
+     *
+     * Les tokens inconnus ou expirés sont ignorés ; chaque fichier inclus compte
+     * comme un téléchargement de son partage.
+     *
+     * @param tokens   tokens de partage (au plus 500)
+     * @param response réponse HTTP recevant l'archive
+     * @return 400 (Trop de tokens) / 404 (Aucun partage valide), null si
+     *         l'archive est envoyée
+     */
+    @GetMapping("/download/zip")
+    public ResponseEntity<?> downloadZip(@RequestParam("tokens") List<String> tokens, HttpServletResponse response) {
+        if (tokens.size() > MAX_ZIP_ENTRIES) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Too many files"));
+        }
+
+        List<ZipItem> items = new ArrayList<>();
+        List<Long> shareIds = new ArrayList<>();
+        for (String token : new java.util.LinkedHashSet<>(tokens)) {
+            Optional<SharedFile> found = shareLookupService.find(token);
+            if (found.isEmpty() || found.get().isExpired()) {
+                continue;
+            }
+            Optional<StoredObject> stored = fileStorageService.find(found.get().getStoragePath());
+            if (stored.isPresent()) {
+                items.add(new ZipItem(found.get().getOriginalName(), stored.get()::open,
+                        FileStorageService.isGzipped(found.get().getStoragePath())));
+                shareIds.add(found.get().getShareId());
+            }
+        }
+        if (items.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        shareIds.forEach(downloadCounterService::recordDownload);
+        try {
+            zipDownloadWriter.write(items, "datashare.zip", response);
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not send zip archive", e);
+        }
+    }
+
+    // Construction de la réponse JSON simplifiée des métadonnées
+    private ResponseEntity<?> metadata(SharedFile file) {
+        // Vérification de la date d'expiration
+        if (file.isExpired()) {
+            return ResponseEntity.status(410).body(Map.of("message", "Link expired"));
+        }
+
+        java.util.Map<String, Object> response = new java.util.HashMap<>();
+        response.put("fileName", file.getOriginalName());
+        response.put("size", file.getSize());
+        response.put("expiration",
+                file.getExpirationDate() != null ? file.getExpirationDate().toString() : null);
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Envoie le contenu d'un fichier partagé résolu (token ou lien signé).
+     */
+    private ResponseEntity<?> serve(Optional<SharedFile> found, HttpServletRequest request,
+            HttpServletResponse response) {
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        SharedFile file = found.get();
+
+        // Vérification de l'expiration avant téléchargement
+        if (file.isExpired()) {
+            return ResponseEntity.status(410).body(Map.of("message", "Link expired"));
+        }
+
+        // Contenu détenu par un autre nœud : le client y est redirigé (même URL),
+        // ce nœud l'envoie alors en zéro-copie et compte le téléchargement
+        Optional<String> owner = storageCluster.redirectTarget(file.getStorageNode());
+        if (owner.isPresent()) {
+            String query = request.getQueryString();
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                    .header(HttpHeaders.LOCATION,
+                            owner.get() + request.getRequestURI() + (query != null ? "?" + query : ""))
+                    .build();
+        }
+
+        try {
+            // Résout le contenu stocké
+            StoredObject stored = fileStorageService.load(file.getStoragePath());
+
+            // Contenu compressé au repos : envoyé tel quel si le client accepte gzip,
+            // décompressé à la volée sinon (sans plages)
+            boolean gzipped = FileStorageService.isGzipped(file.getStoragePath());
+            boolean sendGzip = gzipped && acceptsGzip(request);
+            boolean decompress = gzipped && !sendGzip;
+            long length = decompress && file.getSize() != null ? file.getSize() : stored.getSize();
+            if (gzipped) {
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+
+            // Le contenu stocké est immuable : les validateurs découlent des métadonnées
+            // ou de l'empreinte du contenu (un ETag distinct par encodage)
+            long lastModified = file.getCreatedAt() != null
+                    ? file.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : stored.getLastModified();
+            String etag = file.getSha256() != null
+                    ? "\"" + file.getSha256() + (sendGzip ? "-gzip" : "") + "\""
+                    : "\"" + file.getFileId() + "-" + length + "-" + lastModified + (sendGzip ? "-gzip" : "")
+                            + "\"";
+
+            // If-None-Match / If-Modified-Since : positionne ETag, Last-Modified et 304
+            if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+                return null;
+            }
+
+            List<HttpRange> requested = decompress ? List.of() : requestedRanges(request, etag, lastModified);
+            List<HttpRange> ranges = satisfiableRanges(requested, length);
+            if (!requested.isEmpty() && ranges.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+            // Plages couvrant au total le fichier entier (ou plus, en se chevauchant) :
+            // réponse complète, un même octet n'est jamais envoyé plusieurs fois
+            if (requestedLength(requested, length) >= length) {
+                ranges = List.of();
+            }
+
+            // Ne compte que les téléchargements complets ou démarrant au premier octet
+            // (les reprises et segments parallèles ne sont pas comptés)
+            if (ranges.isEmpty() || ranges.get(0).getRangeStart(length) == 0) {
+                downloadCounterService.recordDownload(file.getShareId());
+            }
+
+            // Retourne le fichier en attachment (force le téléchargement navigateur)
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, decompress ? "none" : "bytes");
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+            if (file.getSha256() != null && !sendGzip) {
+                // Empreinte du contenu d'origine (pas de la version gzip) : RFC 9530 et ancien en-tête RFC 3230
+                String digest = Base64.getEncoder().encodeToString(HexFormat.of().parseHex(file.getSha256()));
+                response.setHeader("Repr-Digest", "sha-256=:" + digest + ":");
+                response.setHeader("Digest", "sha-256=" + digest);
+            }
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + file.getOriginalName() + "\"");
+            if (sendGzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+
+            if (decompress) {
+                fileDownloadWriter.writeDecompressed(stored, file.getSize(), response);
+            } else if (ranges.isEmpty()) {
+                fileDownloadWriter.write(stored, 0, length, request, response);
+            } else {
+                fileDownloadWriter.writeRanges(stored, length, ranges, request, response);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not send file " + file.getStoragePath(), e);
+        }
+    }
+
+    /**
+     * Vrai si le client accepte l'encodage gzip (Accept-Encoding, q > 0).
+     */
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = parts.length > 1 && parts[1].trim().matches("q\\s*=\\s*0(\\.0*)?");
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retourne les plages demandées, ou une liste vide si la réponse doit être
+     * complète (pas d'en-tête Range, syntaxe invalide ou If-Range non satisfait).
+     */
+    private List<HttpRange> requestedRanges(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !isIfRangeSatisfied(request, etag, lastModified)) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // Range mal formé : ignoré (RFC 9110), réponse complète
+            return List.of();
+        }
+    }
+
+    /**
+     * Plages satisfiables (commençant avant la fin du fichier), triées et
+     * fusionnées quand elles se chevauchent ou se touchent.
+     */
+    private List<HttpRange> satisfiableRanges(List<HttpRange> ranges, long length) {
+        List<long[]> regions = new ArrayList<>();
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            // Plage non satisfiable (au-delà de la fin, ou suffixe vide) : ignorée
+            if (start < length && start <= end) {
+                regions.add(new long[] { start, end });
+            }
+        }
+        regions.sort(Comparator.comparingLong(region -> region[0]));
+
+        List<HttpRange> merged = new ArrayList<>();
+        long[] current = null;
+        for (long[] region : regions) {
+            if (current != null && region[0] <= current[1] + 1) {
+                current[1] = Math.max(current[1], region[1]);
+                continue;
+            }
+            if (current != null) {
+                merged.add(HttpRange.createByteRange(current[0], current[1]));
+            }
+            current = region;
+        }
+        if (current != null) {
+            merged.add(HttpRange.createByteRange(current[0], current[1]));
+        }
+        return merged;
+    }
+
+    /**
+     * Nombre d'octets demandés, plages satisfiables additionnées sans fusion
+     * (au plus 100 plages, cf. HttpRange.parseRanges).
+     */
+    private long requestedLength(List<HttpRange> ranges, long length) {
+        long total = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            if (start < length && start <= end) {
+                total += end - start + 1;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * If-Range : la plage n'est servie que si le validateur (ETag fort ou date)
+     * correspond encore à la représentation courante.
+     */
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == (lastModified / 1000) * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
 }
@@ -0,0 +1,129 @@
+package com.datashare.backend.controllers;
+
+// === Imports métier ===
+import com.datashare.backend.services.FileDownloadWriter;
+import com.datashare.backend.storage.FilesystemStorageBackend;
+import com.datashare.backend.storage.ObjectStat;
+import com.datashare.backend.storage.RemoteStorageBackend;
+import com.datashare.backend.storage.StorageCluster;
+import com.datashare.backend.storage.StoredObject;
+
+// === Imports Servlet API ===
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// === Utilitaires ===
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * API interne de stockage entre les nœuds du cluster (RemoteStorageBackend).
+ *
+ * - Accès au stockage local de ce nœud uniquement (jamais relayé)
+ * - Protégée par le secret partagé du cluster (en-tête X-Cluster-Token, 403 s'il
+ *   est absent ou erroné), hors authentification JWT ; à ne pas exposer publiquement
+ * - Lecture en zéro-copie via FileDownloadWriter
+ */
+@RestController
+@RequestMapping(RemoteStorageBackend.API_PATH)
+@ConditionalOnProperty(name = "datashare.app.cluster.enabled", havingValue = "true")
+public class StorageNodeController {
+
+    /**
+     * Topologie et secret du cluster.
+     */
+    @Autowired
+    StorageCluster storageCluster;
+
+    /**
+     * Stockage local de ce nœud.
+     */
+    @Autowired
+    FilesystemStorageBackend localStorage;
+
+    /**
+     * Écriture zéro-copie des contenus lus.
+     */
+    @Autowired
+    FileDownloadWriter fileDownloadWriter;
+
+    /**
+     * Écrit un contenu sous la clé (corps de la requête en streaming).
+     */
+    @PutMapping
+    public ResponseEntity<?> put(@RequestParam String key,
+            @RequestHeader(value = StorageCluster.TOKEN_HEADER, required = false) String token,
+            HttpServletRequest request) throws IOException {
+        if (!storageCluster.isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        localStorage.put(key, request.getInputStream(), request.getContentLengthLong());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Métadonnées d'un contenu (taille et date de modification en en-têtes).
+     */
+    @RequestMapping(method = RequestMethod.HEAD)
+    public ResponseEntity<?> stat(@RequestParam String key,
+            @RequestHeader(value = StorageCluster.TOKEN_HEADER, required = false) String token) throws IOException {
+        if (!storageCluster.isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Optional<ObjectStat> stat = localStorage.stat(key);
+        if (stat.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header(RemoteStorageBackend.SIZE_HEADER, String.valueOf(stat.get().size()))
+                .header(RemoteStorageBackend.LAST_MODIFIED_HEADER, String.valueOf(stat.get().lastModified()))
+                .build();
+    }
+
+    /**
+     * Lit une plage d'un contenu (length = -1 : jusqu'à la fin).
+     * Le contenu est écrit directement dans la réponse ; la méthode retourne
+     * alors null.
+     */
+    @GetMapping
+    public ResponseEntity<?> get(@RequestParam String key, @RequestParam(defaultValue = "0") long start,
+            @RequestParam(defaultValue = "-1") long length,
+            @RequestHeader(value = StorageCluster.TOKEN_HEADER, required = false) String token,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!storageCluster.isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Optional<StoredObject> stored = localStorage.find(key);
+        if (stored.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        long size = stored.get().getSize();
+        if (start < 0 || start > size) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+        }
+        long count = length < 0 ? size - start : Math.min(length, size - start);
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        fileDownloadWriter.write(stored.get(), start, count, request, response);
+        return null;
+    }
+
+    /**
+     * Supprime un contenu (404 s'il n'existait pas).
+     */
+    @DeleteMapping
+    public ResponseEntity<?> delete(@RequestParam String key,
+            @RequestHeader(value = StorageCluster.TOKEN_HEADER, required = false) String token) throws IOException {
+        if (!storageCluster.isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return localStorage.delete(key) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
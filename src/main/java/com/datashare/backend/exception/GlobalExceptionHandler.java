@@ -1,5 +1,7 @@
 package com.datashare.backend.exception;
 
+import com.datashare.backend.payload.response.MessageResponse;
+import com.datashare.backend.services.QuotaService.QuotaExceededException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -43,4 +45,13 @@ public class GlobalExceptionHandler {
         response.put("errors", errors);
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Gère les dépassements de quota de stockage (contrôle avant réception
+     * du corps de l'upload).
+     */
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<MessageResponse> handleQuotaExceeded(QuotaExceededException ex) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(new MessageResponse(ex.getMessage()));
+    }
 }
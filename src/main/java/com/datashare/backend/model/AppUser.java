@@ -1,5 +1,6 @@
 package com.datashare.backend.model;
 
+import com.datashare.backend.security.services.AppUserCacheListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -11,6 +12,8 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "app_user")
+// Invalidation du cache des utilisateurs (modification / suppression)
+@EntityListeners(AppUserCacheListener.class)
 public class AppUser {
 
     @Id
@@ -10,7 +10,15 @@ import java.time.LocalDateTime;
  * et gère la relation avec le propriétaire et les partages.
  */
 @Entity
-@Table(name = "file")
+@Table(name = "file", indexes = {
+        // Index du listing paginé : (propriétaire, critère de tri, id)
+        @Index(name = "idx_file_owner_created", columnList = "owner_id, created_at, id"),
+        @Index(name = "idx_file_owner_name", columnList = "owner_id, original_name, id"),
+        @Index(name = "idx_file_owner_size", columnList = "owner_id, size, id"),
+        @Index(name = "idx_file_owner_expiration", columnList = "owner_id, expiration_date, id"),
+        // Sélection des lots de fichiers expirés (nettoyage)
+        @Index(name = "idx_file_expiration", columnList = "expiration_date")
+})
 public class File {
 
     @Id
@@ -21,12 +29,23 @@ public class File {
     private String originalName;
 
     // Chemin relatif/interne sur le disque
-    @Column(name = "storage_path", unique = true)
+    // (partagé entre plusieurs fichiers de même contenu en mode dédupliqué)
+    @Column(name = "storage_path")
     private String storagePath;
 
     @Column(name = "size")
     private Long size;
 
+    // Nœud du cluster qui détient le contenu (null : instance unique ou fichier
+    // antérieur au cluster)
+    @Column(name = "storage_node")
+    private String storageNode;
+
+    // Empreinte SHA-256 (hexadécimal) du contenu d'origine, calculée à l'upload
+    // (null : fichier antérieur ou upload fragmenté)
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -83,6 +102,22 @@ public class File {
         this.size = size;
     }
 
+    public String getStorageNode() {
+        return storageNode;
+    }
+
+    public void setStorageNode(String storageNode) {
+        this.storageNode = storageNode;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,41 @@
+package com.datashare.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entité JPA représentant un partage révoqué avant son expiration.
+ *
+ * Les liens signés sont vérifiés sans accès à la base : la liste des partages
+ * révoqués est chargée en mémoire par SignedLinkService. Une ligne devient
+ * inutile (et est purgée) une fois la date d'expiration du lien dépassée.
+ */
+@Entity
+@Table(name = "revoked_share")
+public class RevokedShare {
+
+    // ID du partage révoqué (la ligne share elle-même peut avoir été supprimée)
+    @Id
+    @Column(name = "share_id")
+    private Long shareId;
+
+    // Expiration du lien signé : au-delà, la révocation n'a plus d'effet
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public Long getShareId() {
+        return shareId;
+    }
+
+    public void setShareId(Long shareId) {
+        this.shareId = shareId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,54 @@
+package com.datashare.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entité JPA représentant un bail (lease) de tâche planifiée.
+ *
+ * Avec plusieurs instances, une tâche (ou une partition de tâche) n'est
+ * exécutée que par l'instance qui détient le bail ; un bail expiré (instance
+ * arrêtée en cours de tâche) peut être repris par une autre instance.
+ * Géré par SchedulerLeaseService.
+ */
+@Entity
+@Table(name = "scheduler_lease")
+public class SchedulerLease {
+
+    // Nom de la tâche ou de la partition (ex : "file-cleanup-0")
+    @Id
+    @Column(name = "name")
+    private String name;
+
+    // Instance détentrice (identifiant de nœud + identifiant de processus)
+    @Column(name = "owner", nullable = false)
+    private String owner;
+
+    // Fin de validité du bail (horloge de la base)
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -8,7 +8,10 @@ import jakarta.persistence.*;
  * Permet l'accès externe à un fichier via un identifiant unique (UUID).
  */
 @Entity
-@Table(name = "share")
+@Table(name = "share", indexes = {
+        // Jointure File/Share du listing des fichiers
+        @Index(name = "idx_share_file", columnList = "file_id")
+})
 public class Share {
 
     @Id
@@ -0,0 +1,70 @@
+package com.datashare.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entité JPA représentant un contenu stocké en mode dédupliqué.
+ *
+ * Le contenu est identifié par son empreinte SHA-256 et partagé par tous les
+ * fichiers de même contenu. Le compteur de références indique combien de
+ * fichiers pointent encore vers ce contenu.
+ */
+@Entity
+@Table(name = "stored_blob")
+public class StoredBlob {
+
+    // Empreinte SHA-256 (hexadécimal) du contenu
+    @Id
+    @Column(name = "digest", length = 64)
+    private String digest;
+
+    @Column(name = "size")
+    private Long size;
+
+    // Nombre de fichiers référençant ce contenu
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 0;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public void setDigest(String digest) {
+        this.digest = digest;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public Integer getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(Integer refCount) {
+        this.refCount = refCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,41 @@
+package com.datashare.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entité JPA représentant l'espace de stockage occupé par un utilisateur.
+ *
+ * Le compteur est tenu à jour de façon incrémentale (upload, suppression,
+ * nettoyage des fichiers expirés) par QuotaService, sans recalcul de la somme
+ * des tailles de ses fichiers. Il est séparé de AppUser : un enregistrement de
+ * l'utilisateur par JPA ne peut pas écraser le compteur.
+ */
+@Entity
+@Table(name = "user_quota")
+public class UserQuota {
+
+    // ID de l'utilisateur (AppUser)
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Taille cumulée des fichiers de l'utilisateur (octets)
+    @Column(name = "used_bytes", nullable = false)
+    private Long usedBytes = 0L;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public void setUsedBytes(Long usedBytes) {
+        this.usedBytes = usedBytes;
+    }
+}
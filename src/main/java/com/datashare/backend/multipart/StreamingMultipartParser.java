@@ -0,0 +1,317 @@
+package com.datashare.backend.multipart;
+
+// === Imports Spring ===
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+// === Imports I/O ===
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// === Utilitaires ===
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Lecture en flux d'un corps multipart/form-data (RFC 7578).
+ *
+ * - Les parties sont lues l'une après l'autre, dans l'ordre du corps : les
+ *   en-têtes d'une partie sont disponibles avant le premier octet de son contenu
+ * - Le contenu est exposé comme un flux borné par le délimiteur, sans fichier
+ *   temporaire ni copie complète en mémoire (tampon de taille fixe)
+ * - Une partie non lue est ignorée au passage à la suivante
+ *
+ * Les tailles d'une partie et de ses lignes d'en-tête sont plafonnées ; un dépassement
+ * lève MaxUploadSizeExceededException, un corps mal formé une IOException.
+ */
+public class StreamingMultipartParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Taille maximale d'une ligne d'en-tête
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte DASH = '-';
+
+    private final InputStream in;
+
+    // "\r\n--" + boundary : le premier délimiteur est précédé d'un CRLF virtuel
+    private final byte[] delimiter;
+
+    private final long maxPartSize;
+
+    private final byte[] buffer;
+
+    private int head;
+
+    private int tail;
+
+    // Les positions de head à scanned ne peuvent pas débuter un délimiteur (déjà recherché)
+    private int scanned;
+
+    private boolean eof;
+
+    private PartInputStream current;
+
+    private boolean finished;
+
+    /**
+     * @param in          corps de la requête
+     * @param boundary    délimiteur déclaré dans le Content-Type
+     * @param maxPartSize taille maximale du contenu d'une partie (octets)
+     */
+    public StreamingMultipartParser(InputStream in, String boundary, long maxPartSize) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.maxPartSize = maxPartSize;
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        this.buffer[0] = CR;
+        this.buffer[1] = LF;
+        this.tail = 2;
+        // Préambule éventuel : lu comme une partie sans en-têtes, ignoré
+        this.current = new PartInputStream(Long.MAX_VALUE);
+    }
+
+    /**
+     * Extrait le délimiteur d'un Content-Type multipart/form-data.
+     *
+     * @param contentType en-tête Content-Type de la requête
+     * @return le délimiteur, vide si la requête n'est pas multipart
+     */
+    public static Optional<String> boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            return Optional.empty();
+        }
+        String boundary = parameter(contentType, "boundary");
+        // RFC 2046 : 1 à 70 caractères
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            return Optional.empty();
+        }
+        return Optional.of(boundary);
+    }
+
+    /**
+     * Passe à la partie suivante (le contenu de la précédente est ignoré s'il
+     * n'a pas été lu entièrement).
+     *
+     * @return la partie suivante, null à la fin du corps
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        current.skipRemaining();
+        current = null;
+
+        // Délimiteur de fin ("--") ou début d'une partie (CRLF)
+        ensure(2);
+        if (tail - head < 2) {
+            throw new IOException("Malformed multipart body: truncated delimiter");
+        }
+        if (buffer[head] == DASH && buffer[head + 1] == DASH) {
+            finished = true;
+            return null;
+        }
+        if (buffer[head] != CR || buffer[head + 1] != LF) {
+            throw new IOException("Malformed multipart body: invalid delimiter");
+        }
+        head += 2;
+
+        String name = null;
+        String filename = null;
+        String contentType = null;
+        for (String header = readHeaderLine(); !header.isEmpty(); header = readHeaderLine()) {
+            int colon = header.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String headerName = header.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = header.substring(colon + 1).trim();
+            if (headerName.equals("content-disposition")) {
+                name = parameter(value, "name");
+                filename = parameter(value, "filename");
+            } else if (headerName.equals("content-type")) {
+                contentType = value;
+            }
+        }
+        current = new PartInputStream(maxPartSize);
+        return new Part(name, filename, contentType, current);
+    }
+
+    // Ligne d'en-tête (UTF-8, sans CRLF) ; chaîne vide à la fin des en-têtes
+    private String readHeaderLine() throws IOException {
+        while (true) {
+            for (int i = head; i + 1 < tail; i++) {
+                if (buffer[i] == CR && buffer[i + 1] == LF) {
+                    String line = new String(buffer, head, i - head, StandardCharsets.UTF_8);
+                    head = i + 2;
+                    return line;
+                }
+            }
+            if (tail - head > MAX_HEADER_SIZE) {
+                throw new MaxUploadSizeExceededException(MAX_HEADER_SIZE);
+            }
+            int available = tail - head;
+            ensure(available + 1);
+            if (tail - head == available) {
+                throw new IOException("Malformed multipart body: truncated headers");
+            }
+        }
+    }
+
+    // Complète le tampon jusqu'à au moins "count" octets disponibles (ou fin du flux)
+    private void ensure(int count) throws IOException {
+        if (tail - head >= count) {
+            return;
+        }
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            scanned = Math.max(0, scanned - head);
+            head = 0;
+        }
+        while (!eof && tail < count) {
+            int read = in.read(buffer, tail, buffer.length - tail);
+            if (read < 0) {
+                eof = true;
+            } else {
+                tail += read;
+            }
+        }
+    }
+
+    // Position du délimiteur dans le tampon, -1 s'il n'y est pas (chaque octet
+    // n'est examiné qu'une fois, quelle que soit la taille des lectures)
+    private int indexOfDelimiter() {
+        int last = tail - delimiter.length;
+        outer:
+        for (int i = Math.max(head, scanned); i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            scanned = i;
+            return i;
+        }
+        scanned = Math.max(scanned, last + 1);
+        return -1;
+    }
+
+    // Valeur d'un paramètre d'en-tête (name="value" ou name=value), null s'il est absent.
+    // Les ";" d'une valeur entre guillemets (nom de fichier) ne séparent pas les paramètres.
+    private static String parameter(String header, String name) {
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i <= header.length(); i++) {
+            if (i < header.length()) {
+                char c = header.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                }
+                if (quoted || c != ';') {
+                    continue;
+                }
+            }
+            String parameter = header.substring(start, i);
+            start = i + 1;
+            int equals = parameter.indexOf('=');
+            if (equals < 0 || !parameter.substring(0, equals).trim().equalsIgnoreCase(name)) {
+                continue;
+            }
+            String value = parameter.substring(equals + 1).trim();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            return value;
+        }
+        return null;
+    }
+
+    /**
+     * Partie du corps : en-têtes et contenu en flux.
+     *
+     * @param name        nom du champ du formulaire
+     * @param filename    nom du fichier envoyé (null pour un champ simple)
+     * @param contentType type déclaré du contenu (null si absent)
+     * @param content     contenu, lu jusqu'au délimiteur suivant
+     */
+    public record Part(String name, String filename, String contentType, InputStream content) {
+
+        /**
+         * Lit le contenu d'un champ simple.
+         *
+         * @param maxLength taille maximale acceptée (octets)
+         */
+        public String readString(int maxLength) throws IOException {
+            byte[] value = content.readNBytes(maxLength + 1);
+            if (value.length > maxLength) {
+                throw new MaxUploadSizeExceededException(maxLength);
+            }
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Contenu d'une partie : jusqu'au délimiteur, en retenant dans le tampon
+    // les derniers octets qui pourraient en être le début
+    private final class PartInputStream extends InputStream {
+
+        private final long maxSize;
+
+        private long size;
+
+        private boolean done;
+
+        private PartInputStream(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (!done) {
+                ensure(delimiter.length);
+                int found = indexOfDelimiter();
+                int available = found >= 0 ? found - head : tail - head - (delimiter.length - 1);
+                if (found == head) {
+                    head += delimiter.length;
+                    done = true;
+                    break;
+                }
+                if (available > 0) {
+                    int count = Math.min(len, available);
+                    System.arraycopy(buffer, head, b, off, count);
+                    head += count;
+                    size += count;
+                    if (size > maxSize) {
+                        throw new MaxUploadSizeExceededException(maxSize);
+                    }
+                    return count;
+                }
+                if (eof) {
+                    throw new IOException("Malformed multipart body: missing closing delimiter");
+                }
+                // Tampon trop peu rempli pour exclure un délimiteur : lecture de la suite
+                ensure(tail - head + 1);
+            }
+            return -1;
+        }
+
+        private void skipRemaining() throws IOException {
+            byte[] skipped = new byte[BUFFER_SIZE];
+            while (read(skipped, 0, skipped.length) >= 0) {
+                // Contenu ignoré
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.datashare.backend.payload.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO pour l'ouverture d'un upload fragmenté (chunks).
+ * Annonce le nom, la taille totale et la durée de validité du fichier.
+ */
+public class ChunkedUploadInitRequest {
+
+    @NotBlank
+    @Size(max = 255)
+    private String fileName;
+
+    // Taille totale annoncée (limitée à 1 Go comme l'upload classique)
+    @NotNull
+    @Positive
+    @Max(1073741824L)
+    private Long totalSize;
+
+    private Integer expirationTime;
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(Long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public Integer getExpirationTime() {
+        return expirationTime;
+    }
+
+    public void setExpirationTime(Integer expirationTime) {
+        this.expirationTime = expirationTime;
+    }
+}
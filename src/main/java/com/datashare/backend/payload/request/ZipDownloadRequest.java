@@ -0,0 +1,25 @@
+package com.datashare.backend.payload.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO pour le téléchargement groupé (archive ZIP) de fichiers de l'utilisateur.
+ */
+public class ZipDownloadRequest {
+
+    // IDs des fichiers à inclure (limités pour borner la durée de la réponse)
+    @NotEmpty
+    @Size(max = 500)
+    private List<Long> fileIds;
+
+    public List<Long> getFileIds() {
+        return fileIds;
+    }
+
+    public void setFileIds(List<Long> fileIds) {
+        this.fileIds = fileIds;
+    }
+}
@@ -0,0 +1,66 @@
+package com.datashare.backend.repository;
+
+import com.datashare.backend.payload.response.FileResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Curseur de pagination du listing des fichiers (keyset).
+ *
+ * Contient la valeur de tri et l'identifiant de la dernière ligne renvoyée ;
+ * la page suivante commence strictement après ce couple. Le curseur est opaque
+ * pour le client (Base64 URL) et lié au tri qui l'a produit.
+ */
+public class FileCursor {
+
+    private final Object value;
+    private final Long id;
+
+    private FileCursor(Object value, Long id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    // Valeur de tri de la dernière ligne (null si sa colonne est NULL)
+    public Object getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Construit le curseur pointant après la dernière ligne d'une page.
+     */
+    public static String encode(FileSort sort, boolean ascending, FileResponse last) {
+        // La valeur est placée en dernier : elle peut contenir le séparateur (nom de fichier).
+        // Une valeur NULL est omise avec son séparateur (distincte d'un nom vide)
+        String value = sort.valueOf(last);
+        String raw = sort.getParameter() + ":" + (ascending ? "asc" : "desc") + ":" + last.getId()
+                + (value != null ? ":" + value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un curseur reçu du client.
+     *
+     * @throws IllegalArgumentException si le curseur est invalide ou a été produit
+     *                                  par un autre tri
+     */
+    public static FileCursor decode(String cursor, FileSort sort, boolean ascending) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 4);
+            if (parts.length < 3 || !parts[0].equals(sort.getParameter())
+                    || !parts[1].equals(ascending ? "asc" : "desc")) {
+                throw new IllegalArgumentException("Cursor does not match requested sort");
+            }
+            Object value = parts.length == 4 ? sort.parseValue(parts[3]) : null;
+            return new FileCursor(value, Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -2,23 +2,31 @@ package com.datashare.backend.repository;
 
 import com.datashare.backend.model.File;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository pour les Fichiers.
- * Permet de récupérer les fichiers par propriétaire, chemin ou date
- * d'expiration.
+ * Permet de récupérer les fichiers par propriétaire ou chemin.
+ * Le nettoyage des fichiers expirés procède par lots SQL (FileCleanupService).
+ * Le listing paginé (jointure File/Share projetée dans le DTO, une seule requête
+ * par page) est défini dans FileRepositoryCustom.
  */
-public interface FileRepository extends JpaRepository<File, Long> {
+public interface FileRepository extends JpaRepository<File, Long>, FileRepositoryCustom {
 
     // Retrouve un fichier via son chemin de stockage unique
     Optional<File> findByStoragePath(String storagePath);
 
+    // Vrai si au moins un fichier référence ce chemin (contenus dédupliqués partagés)
+    boolean existsByStoragePath(String storagePath);
+
     // Liste tous les fichiers d'un utilisateur spécifique (ID)
     List<File> findByOwnerId(Long ownerId);
 
-    // Trouve les fichiers expirés (date d'expiration < date donnée) pour le
-    // nettoyage
-    List<File> findByExpirationDateBefore(java.time.LocalDateTime date);
+    // Supprime un fichier s'il appartient à l'utilisateur (0 s'il est déjà supprimé)
+    @Modifying
+    @Query("DELETE FROM File f WHERE f.id = :id AND f.owner.id = :ownerId")
+    int deleteByIdAndOwnerId(Long id, Long ownerId);
 }
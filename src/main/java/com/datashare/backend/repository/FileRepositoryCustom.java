@@ -0,0 +1,24 @@
+package com.datashare.backend.repository;
+
+import com.datashare.backend.payload.response.FileResponse;
+
+import java.util.List;
+
+/**
+ * Requêtes personnalisées du FileRepository (JPQL construit dynamiquement).
+ */
+public interface FileRepositoryCustom {
+
+    /**
+     * Page du listing des fichiers d'un utilisateur, avec leur lien de partage.
+     *
+     * @param ownerId   ID du propriétaire
+     * @param sort      critère de tri
+     * @param ascending sens du tri
+     * @param after     curseur de la page précédente (null pour la première page)
+     * @param limit     nombre maximum de lignes
+     * @return les fichiers triés par (critère, id)
+     */
+    List<FileResponse> findFileResponsesPage(Long ownerId, FileSort sort, boolean ascending, FileCursor after,
+            int limit);
+}
@@ -0,0 +1,69 @@
+package com.datashare.backend.repository;
+
+import com.datashare.backend.payload.response.FileResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+/**
+ * Implémentation de la pagination par curseur (keyset) du listing des fichiers.
+ *
+ * La condition "(colonne, id) > (valeur, id)" suit l'ordre de l'index
+ * (owner_id, colonne, id) : PostgreSQL lit directement la page suivante dans
+ * l'index au lieu de parcourir puis d'écarter les lignes précédentes (OFFSET).
+ *
+ * Les valeurs NULL sont classées après toutes les autres (en tête en ordre
+ * décroissant), comme dans l'index. La comparaison de tuples ne les retient
+ * jamais : elles sont parcourues par une condition séparée plutôt que par un
+ * coalesce, qui empêcherait l'utilisation de l'index.
+ */
+public class FileRepositoryCustomImpl implements FileRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<FileResponse> findFileResponsesPage(Long ownerId, FileSort sort, boolean ascending,
+            FileCursor after, int limit) {
+        // La propriété provient de l'énumération FileSort (aucune saisie client dans le JPQL)
+        String column = sort.getProperty();
+        String direction = ascending ? "asc" : "desc";
+
+        StringBuilder jpql = new StringBuilder("select new com.datashare.backend.payload.response.FileResponse(")
+                .append("f.id, f.originalName, f.size, f.createdAt, f.expirationDate, s.uniqueToken, ")
+                .append("coalesce(s.downloadCount, 0)) ")
+                .append("from File f left join f.shares s where f.owner.id = :ownerId");
+        String next = ascending ? ">" : "<";
+        if (after != null && after.getValue() != null) {
+            // Valeurs suivantes, puis les NULL en fin de parcours croissant
+            jpql.append(" and ((").append(column).append(", f.id) ").append(next).append(" (:value, :id)");
+            if (ascending) {
+                jpql.append(" or ").append(column).append(" is null");
+            }
+            jpql.append(')');
+        } else if (after != null) {
+            // Curseur sur une ligne NULL : NULL suivants, puis toutes les valeurs en parcours décroissant
+            jpql.append(" and ((").append(column).append(" is null and f.id ").append(next).append(" :id)");
+            if (!ascending) {
+                jpql.append(" or ").append(column).append(" is not null");
+            }
+            jpql.append(')');
+        }
+        jpql.append(" order by ").append(column).append(' ').append(direction)
+                .append(ascending ? " nulls last" : " nulls first")
+                .append(", f.id ").append(direction);
+
+        TypedQuery<FileResponse> query = entityManager.createQuery(jpql.toString(), FileResponse.class)
+                .setParameter("ownerId", ownerId)
+                .setMaxResults(limit);
+        if (after != null) {
+            if (after.getValue() != null) {
+                query.setParameter("value", after.getValue());
+            }
+            query.setParameter("id", after.getId());
+        }
+        return query.getResultList();
+    }
+}
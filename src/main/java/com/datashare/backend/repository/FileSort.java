@@ -0,0 +1,79 @@
+package com.datashare.backend.repository;
+
+import com.datashare.backend.payload.response.FileResponse;
+
+import java.time.LocalDateTime;
+
+/**
+ * Critères de tri autorisés pour le listing paginé des fichiers.
+ *
+ * Chaque critère est associé à une colonne indexée (owner_id, colonne, id) :
+ * la pagination par curseur (keyset) reste ainsi en temps constant quelle que
+ * soit la page demandée.
+ */
+public enum FileSort {
+
+    CREATED_AT("createdAt", "f.createdAt"),
+    NAME("name", "f.originalName"),
+    SIZE("size", "f.size"),
+    EXPIRATION("expiration", "f.expirationDate");
+
+    // Valeur du paramètre de requête (?sort=...)
+    private final String parameter;
+
+    // Propriété JPQL correspondante
+    private final String property;
+
+    FileSort(String parameter, String property) {
+        this.parameter = parameter;
+        this.property = property;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Résout un critère depuis le paramètre de requête.
+     *
+     * @throws IllegalArgumentException si le critère n'est pas supporté
+     */
+    public static FileSort fromParameter(String parameter) {
+        for (FileSort sort : values()) {
+            if (sort.parameter.equals(parameter)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort: " + parameter);
+    }
+
+    /**
+     * Valeur de tri d'une ligne, sous forme texte (stockée dans le curseur).
+     *
+     * @return null si la colonne de la ligne est NULL
+     */
+    String valueOf(FileResponse file) {
+        Object value = switch (this) {
+            case CREATED_AT -> file.getUploadDate();
+            case NAME -> file.getOriginalName();
+            case SIZE -> file.getSize();
+            case EXPIRATION -> file.getExpirationDate();
+        };
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Reconvertit la valeur texte du curseur dans le type de la colonne.
+     */
+    Object parseValue(String value) {
+        return switch (this) {
+            case CREATED_AT, EXPIRATION -> LocalDateTime.parse(value);
+            case NAME -> value;
+            case SIZE -> Long.valueOf(value);
+        };
+    }
+}
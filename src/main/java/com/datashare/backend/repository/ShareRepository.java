@@ -2,6 +2,8 @@ package com.datashare.backend.repository;
 
 import com.datashare.backend.model.Share;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import java.util.Optional;
 
 /**
@@ -18,4 +20,9 @@ public interface ShareRepository extends JpaRepository<Share, Long> {
 
     // Retrouve le partage associé à un fichier donné
     Optional<Share> findByFileId(Long fileId);
+
+    // Supprime les partages d'un fichier (avant la suppression du fichier)
+    @Modifying
+    @Query("DELETE FROM Share s WHERE s.file.id = :fileId")
+    int deleteByFileId(Long fileId);
 }
@@ -0,0 +1,140 @@
+package com.datashare.backend.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Roue temporelle hiérarchique (timing wheel) d'échéances.
+ *
+ * - Niveaux de 64 cases : le niveau 0 couvre 64 ticks, le niveau 1 64² ticks...
+ * - Insertion en O(1) : l'élément est rangé au niveau correspondant à son délai
+ * - Avancement : la case courante du niveau 0 est vidée ; à chaque tour
+ *   complet, la case suivante du niveau supérieur est redescendue (cascade)
+ * - Une échéance au-delà du dernier niveau est reclassée à chaque cascade
+ *   jusqu'à entrer dans l'horizon
+ *
+ * Les échéances sont arrondies au tick supérieur : un élément n'est jamais
+ * rendu avant son échéance, au plus un tick après.
+ *
+ * @param <T> type des éléments planifiés
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final int levels;
+
+    // [niveau][case] : éléments en attente
+    private final List<ArrayDeque<Entry<T>>> slots;
+
+    // Dernier tick traité
+    private long currentTick;
+
+    private int size;
+
+    /**
+     * @param tickMillis  durée d'un tick en millisecondes
+     * @param levels      nombre de niveaux (horizon de 64^levels ticks)
+     * @param startMillis instant de départ (aucun élément antérieur n'est rangé)
+     */
+    public HierarchicalTimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis < 1 || levels < 1 || levels > 10) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.slots = new ArrayList<>(levels * SLOTS);
+        for (int i = 0; i < levels * SLOTS; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Planifie un élément.
+     *
+     * @param item           élément à rendre à l'échéance
+     * @param deadlineMillis échéance (epoch millis)
+     * @return false si l'échéance est déjà atteinte (l'élément n'est pas rangé)
+     */
+    public synchronized boolean schedule(T item, long deadlineMillis) {
+        // Arrondi au tick supérieur : jamais rendu avant l'échéance
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+        place(new Entry<>(item, deadlineTick));
+        size++;
+        return true;
+    }
+
+    /**
+     * Avance la roue jusqu'à l'instant donné.
+     *
+     * @param nowMillis instant courant (epoch millis)
+     * @return éléments dont l'échéance est atteinte, dans l'ordre des ticks
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> due = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Début d'un tour du niveau 0 : redescend la case suivante des niveaux supérieurs
+            long tick = currentTick;
+            for (int level = 1; level < levels && (tick & SLOT_MASK) == 0; level++) {
+                tick >>>= SLOT_BITS;
+                cascade(level, (int) (tick & SLOT_MASK), due);
+            }
+            cascade(0, (int) (currentTick & SLOT_MASK), due);
+        }
+        size -= due.size();
+        return due;
+    }
+
+    /**
+     * @return nombre d'éléments en attente
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    // Vide une case : éléments échus rendus, les autres reclassés plus bas
+    private void cascade(int level, int index, List<T> due) {
+        ArrayDeque<Entry<T>> slot = slot(level, index);
+        int count = slot.size();
+        for (int i = 0; i < count; i++) {
+            Entry<T> entry = slot.poll();
+            if (entry.deadlineTick <= currentTick) {
+                due.add(entry.item);
+            } else {
+                place(entry);
+            }
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.deadlineTick - currentTick;
+        for (int level = 0; level < levels; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                int index = (int) ((entry.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                slot(level, index).add(entry);
+                return;
+            }
+        }
+        // Au-delà de l'horizon : case la plus lointaine du dernier niveau, reclassée à sa cascade
+        int top = levels - 1;
+        int index = (int) (((currentTick >>> (SLOT_BITS * top)) - 1) & SLOT_MASK);
+        slot(top, index).add(entry);
+    }
+
+    private ArrayDeque<Entry<T>> slot(int level, int index) {
+        return slots.get(level * SLOTS + index);
+    }
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+}
@@ -76,13 +76,14 @@ public class SecurityConfig {
     /**
      * Chaîne de sécurité spécifique pour les accés PUBLICS (Téléchargement de
      * fichiers partagés).
-     * Aucune authentification requise.
+     * Aucune authentification requise (l'API interne de stockage entre nœuds
+     * vérifie elle-même le secret du cluster).
      */
     @Bean
     @org.springframework.core.annotation.Order(1)
     public SecurityFilterChain publicFilterChain(HttpSecurity http) throws Exception {
         http
-                .securityMatcher("/api/share/**", "/api/download/**")
+                .securityMatcher("/api/share/**", "/api/download/**", "/internal/storage")
                 .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(Customizer.withDefaults())
@@ -1,18 +1,26 @@
 package com.datashare.backend.security.jwt;
 
 // === Imports Application ===
+import com.datashare.backend.security.services.UserDetailsImpl;
 import com.datashare.backend.security.services.UserDetailsServiceImpl;
 
+// === Imports JWT ===
+import io.jsonwebtoken.Claims;
+
 // === Imports Servlet API ===
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+
 // === Imports Spring Security ===
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -30,7 +38,12 @@ import java.io.IOException;
  * 1. Intercepter la requête HTTP
  * 2. Extraire le token JWT du header "Authorization"
  * 3. Valider le token via JwtUtils
- * 4. Charger l'utilisateur associé et mettre à jour le SecurityContext
+ * 4. Vérifier le compte via le cache des utilisateurs (requête en base
+ *    seulement sur un miss) et mettre à jour le SecurityContext
+ *
+ * Avec verifyUserInDatabase à false, le principal est construit depuis les
+ * seuls claims : un compte supprimé ou modifié reste alors accepté jusqu'à
+ * l'expiration de son token (datashare.app.jwtExpirationMs).
  */
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -39,9 +52,15 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private final UserDetailsServiceImpl userDetailsService;
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
-    public AuthTokenFilter(JwtUtils jwtUtils, UserDetailsServiceImpl userDetailsService) {
+    // Vérifie l'existence du compte à chaque requête (via le cache des utilisateurs,
+    // évincé à la suppression du compte) au lieu de se fier aux seuls claims du token
+    private final boolean verifyUserInDatabase;
+
+    public AuthTokenFilter(JwtUtils jwtUtils, UserDetailsServiceImpl userDetailsService,
+            @Value("${datashare.app.auth.verifyUserInDatabase:true}") boolean verifyUserInDatabase) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.verifyUserInDatabase = verifyUserInDatabase;
     }
 
     /**
@@ -54,14 +73,13 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             // Lecture du token depuis la requête
             String jwt = parseJwt(request);
 
-            // Validation du token
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-
-                // Extraction du username (email)
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            // Validation du token et lecture des claims (un seul parsing)
+            Claims claims = (jwt != null) ? jwtUtils.parseJwtClaims(jwt) : null;
+            if (claims != null) {
 
-                // Chargement des détails utilisateur (rôles, pwd...)
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // Compte vérifié via UserDetailsServiceImpl et son cache, ou principal
+                // construit depuis les seuls claims (email + ID) si la vérification est désactivée
+                UserDetails userDetails = principalFromClaims(claims);
 
                 // Création de l'objet Authentication
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -82,6 +100,24 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Construit le principal à partir des claims du token.
+     * Les tokens émis avant l'ajout du claim "id" sont toujours vérifiés.
+     */
+    private UserDetails principalFromClaims(Claims claims) {
+        Number userId = claims.get(JwtUtils.USER_ID_CLAIM, Number.class);
+        if (userId != null && !verifyUserInDatabase) {
+            return new UserDetailsImpl(userId.longValue(), claims.getSubject(), null);
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        if (userId != null && userDetails instanceof UserDetailsImpl user
+                && !user.getId().equals(userId.longValue())) {
+            // Compte supprimé puis recréé avec le même email : l'ancien token est refusé
+            throw new UsernameNotFoundException("User id mismatch for token subject: " + claims.getSubject());
+        }
+        return userDetails;
+    }
+
     /**
      * Extrait le token JWT du header "Authorization".
      * Format attendu: "Bearer <token>"
@@ -5,21 +5,26 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 
 // === Imports Spring & Utils ===
+import com.datashare.backend.security.services.UserDetailsImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import jakarta.annotation.PostConstruct;
 import java.security.Key;
 import java.util.Date;
 
 /**
  * Composant utilitaire pour la gestion des JSON Web Tokens (JWT).
  *
- * - Génération de tokens signés (HMAC SHA)
+ * - Génération de tokens signés (HMAC SHA), portant l'email et l'ID utilisateur
  * - Extraction du username depuis un token
  * - Validation de l'intégrité et de l'expiration du token
+ *
+ * La clé et le parser sont construits une seule fois (init) : la validation
+ * d'une requête ne fait qu'un seul parsing du token (parseJwtClaims).
  */
 @Component
 public class JwtUtils {
@@ -33,6 +38,22 @@ public class JwtUtils {
     @Value("${datashare.app.jwtExpirationMs:86400000}")
     private int jwtExpirationMs;
 
+    // Claim portant l'ID de l'utilisateur (principal construit sans base)
+    public static final String USER_ID_CLAIM = "id";
+
+    // Clé HMAC et parser construits une seule fois au démarrage (thread-safe)
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    /**
+     * Construit la clé de signature et le parser à partir du secret.
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     /**
      * Génère un nouveau token JWT pour un utilisateur authentifié.
      *
@@ -43,50 +64,57 @@ public class JwtUtils {
     public String generateJwtToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
 
-        return Jwts.builder()
-                .setSubject((userPrincipal.getUsername())) // Sujet = Email
+        JwtBuilder builder = Jwts.builder()
+                .setSubject((userPrincipal.getUsername())); // Sujet = Email
+        if (userPrincipal instanceof UserDetailsImpl userDetailsImpl) {
+            builder.claim(USER_ID_CLAIM, userDetailsImpl.getId()); // ID utilisateur
+        }
+        return builder
                 .setIssuedAt(new Date()) // Date de création
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs)) // Date d'expiration
-                .signWith(key(), SignatureAlgorithm.HS256) // Signature HMAC
+                .signWith(signingKey, SignatureAlgorithm.HS256) // Signature HMAC
                 .compact();
     }
 
     /**
-     * Retourne la clé cryptographique pour signer/vérifier les tokens.
+     * Valide un token JWT et retourne ses claims en un seul parsing.
+     * Vérifie la signature, l'expiration et le format.
+     *
+     * @param authToken la chaîne JWT à vérifier
+     * @return les claims du token, ou null s'il est invalide (avec log de l'erreur)
      */
-    private Key key() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    public Claims parseJwtClaims(String authToken) {
+        try {
+            return jwtParser.parseClaimsJws(authToken).getBody();
+        } catch (MalformedJwtException e) {
+            logger.error("Invalid JWT token: {}", e.getMessage());
+        } catch (ExpiredJwtException e) {
+            logger.error("JWT token is expired: {}", e.getMessage());
+        } catch (UnsupportedJwtException e) {
+            logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (io.jsonwebtoken.security.SecurityException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("JWT claims string is empty: {}", e.getMessage());
+        }
+
+        return null;
     }
 
     /**
      * Extrait le nom d'utilisateur (email) contenu dans le token.
      */
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return jwtParser.parseClaimsJws(token).getBody().getSubject();
     }
 
     /**
      * Valide un token JWT.
-     * Vérifie la signature, l'expiration et le format.
      *
      * @param authToken la chaîne JWT à vérifier
      * @return true si valide, false sinon (avec log de l'erreur)
      */
     public boolean validateJwtToken(String authToken) {
-        try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
-        }
-
-        return false;
+        return parseJwtClaims(authToken) != null;
     }
 }
@@ -0,0 +1,47 @@
+package com.datashare.backend.security.services;
+
+// === Imports Métier ===
+import com.datashare.backend.model.AppUser;
+
+// === Imports JPA & Spring ===
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Listener JPA de l'entité AppUser : évince l'utilisateur du cache dès qu'il est
+ * modifié (mot de passe, email) ou supprimé.
+ *
+ * L'éviction a lieu au flush, avant le commit : un chargement concurrent peut
+ * encore lire l'ancienne ligne et la remettre en cache. L'utilisateur est donc
+ * évincé une seconde fois après le commit.
+ *
+ * Instancié par Hibernate via le conteneur Spring (injection du cache).
+ * Les mises à jour en masse (JPQL/SQL) ne déclenchent pas ce listener.
+ */
+@Component
+public class AppUserCacheListener {
+
+    private final UserDetailsCache userDetailsCache;
+
+    public AppUserCacheListener(UserDetailsCache userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(AppUser user) {
+        Long userId = user.getId();
+        userDetailsCache.evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userDetailsCache.evict(userId);
+                }
+            });
+        }
+    }
+}
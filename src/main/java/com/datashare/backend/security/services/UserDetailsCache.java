@@ -0,0 +1,68 @@
+package com.datashare.backend.security.services;
+
+// === Imports Application ===
+import com.datashare.backend.cache.BoundedTtlCache;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// === Imports Utils ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache des utilisateurs chargés par UserDetailsServiceImpl (clé : email).
+ *
+ * - Taille bornée et TTL configurables
+ * - Invalidation à la modification (mot de passe...) ou à la suppression d'un
+ *   compte, via AppUserCacheListener
+ * - Statistiques hits / misses journalisées toutes les heures
+ */
+@Component
+public class UserDetailsCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsCache.class);
+
+    private final BoundedTtlCache<String, UserDetailsImpl> cache;
+
+    public UserDetailsCache(
+            @Value("${datashare.app.auth.userCache.maxSize:10000}") int maxSize,
+            @Value("${datashare.app.auth.userCache.ttlSeconds:300}") long ttlSeconds) {
+        this.cache = new BoundedTtlCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Retourne l'utilisateur en cache ou le charge via le loader.
+     */
+    public UserDetailsImpl get(String email, Function<String, UserDetailsImpl> loader) {
+        return cache.get(email, loader);
+    }
+
+    /**
+     * Évince un utilisateur (par ID : couvre aussi un changement d'email).
+     */
+    public void evict(Long userId) {
+        cache.invalidateIf(user -> user.getId().equals(userId));
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * Journalise les statistiques du cache.
+     */
+    @Scheduled(fixedRate = 3600000)
+    public void logStats() {
+        logger.info("User details cache: size={}, hits={}, misses={}, evictions={}",
+                cache.size(), cache.getHits(), cache.getMisses(), cache.getEvictions());
+    }
+}
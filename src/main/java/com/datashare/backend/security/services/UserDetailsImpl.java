@@ -0,0 +1,61 @@
+package com.datashare.backend.security.services;
+
+// === Imports Métier ===
+import com.datashare.backend.model.AppUser;
+
+// === Imports Spring Security ===
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Principal Spring Security portant l'identifiant de l'utilisateur.
+ *
+ * Construit soit depuis la base (connexion), soit directement depuis les claims
+ * du JWT (requêtes authentifiées) : les contrôleurs utilisent l'ID sans
+ * recharger l'utilisateur. Le mot de passe n'est renseigné que lors de la
+ * connexion.
+ */
+public class UserDetailsImpl implements UserDetails {
+
+    private final Long id;
+
+    private final String email;
+
+    private final String password;
+
+    public UserDetailsImpl(Long id, String email, String password) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+    }
+
+    /**
+     * Construit le principal depuis l'entité (avec le hash du mot de passe).
+     */
+    public static UserDetailsImpl build(AppUser user) {
+        return new UserDetailsImpl(user.getId(), user.getEmail(), user.getPasswordHash());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    // Pas de rôles/autorités spécifiques pour le moment
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+}
@@ -1,7 +1,6 @@
 package com.datashare.backend.security.services;
 
 // === Imports Métier ===
-import com.datashare.backend.model.AppUser;
 import com.datashare.backend.repository.AppUserRepository;
 
 // === Imports Spring Security ===
@@ -9,16 +8,16 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.Collections;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service implémentant l'interface standard UserDetailsService de Spring
  * Security.
  *
  * Permet de charger les données d'un utilisateur depuis la base de données
- * lors du processus d'authentification.
+ * lors du processus d'authentification (via un cache borné, voir
+ * UserDetailsCache).
  */
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -26,8 +25,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     // Repository pour l'accès aux données persistence
     private final AppUserRepository userRepository;
 
-    public UserDetailsServiceImpl(AppUserRepository userRepository) {
+    // Cache borné (TTL) évitant une requête par appel
+    private final UserDetailsCache userDetailsCache;
+
+    // Transaction en lecture seule, ouverte uniquement quand l'utilisateur n'est pas en cache
+    private final TransactionTemplate loadTransaction;
+
+    public UserDetailsServiceImpl(AppUserRepository userRepository, UserDetailsCache userDetailsCache,
+            PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setReadOnly(true);
     }
 
     /**
@@ -38,18 +47,14 @@ public class UserDetailsServiceImpl implements UserDetailsService {
      * @throws UsernameNotFoundException si l'utilisateur n'existe pas
      */
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        // Recherche en base
-        AppUser user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + email));
-
-        // Conversion en UserDetails
-        // Note: Nous n'utilisons pas de rôles/autorités spécifiques pour le moment
-        // (Collections.emptyList())
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPasswordHash(),
-                Collections.emptyList());
+        // Recherche dans le cache, puis en base (conversion en UserDetails portant l'ID) ;
+        // un hit n'ouvre aucune transaction
+        UserDetailsImpl userDetails = userDetailsCache.get(email, key -> loadTransaction.execute(
+                status -> userRepository.findByEmail(key).map(UserDetailsImpl::build).orElse(null)));
+        if (userDetails == null) {
+            throw new UsernameNotFoundException("User Not Found with email: " + email);
+        }
+        return userDetails;
     }
 }
@@ -0,0 +1,82 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.List;
+
+/**
+ * Service de comptage des références des contenus dédupliqués (table
+ * stored_blob).
+ *
+ * - retain : +1 référence (création de la ligne au premier upload)
+ * - release : -1 référence, suppression physique à zéro
+ *
+ * Les mises à jour sont atomiques côté PostgreSQL (UPSERT / UPDATE ...
+ * RETURNING) : aucun compteur n'est lu puis réécrit par l'application.
+ */
+@Service
+public class BlobReferenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobReferenceService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate releaseTransaction;
+
+    public BlobReferenceService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Transaction dédiée : la suppression physique est faite sous le verrou de la
+        // ligne, indépendamment de la transaction de l'appelant
+        this.releaseTransaction = new TransactionTemplate(transactionManager);
+        this.releaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Ajoute une référence vers un contenu.
+     *
+     * @param digest empreinte SHA-256 du contenu
+     * @param size   taille du contenu
+     * @return le nombre de références après incrément (1 = nouveau contenu)
+     */
+    public int retain(String digest, long size) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO stored_blob (digest, size, ref_count, created_at) VALUES (?, ?, 1, now()) "
+                        + "ON CONFLICT (digest) DO UPDATE SET ref_count = stored_blob.ref_count + 1 "
+                        + "RETURNING ref_count",
+                Integer.class, digest, size);
+    }
+
+    /**
+     * Retire une référence vers un contenu. Quand plus aucun fichier ne le
+     * référence, la ligne est supprimée et le contenu physique effacé avant la
+     * fin de la transaction : un upload concurrent du même contenu attend le
+     * verrou puis recrée la ligne et replace le fichier.
+     *
+     * @param digest         empreinte SHA-256 du contenu
+     * @param physicalDelete suppression du contenu sur disque
+     */
+    public void release(String digest, Runnable physicalDelete) {
+        releaseTransaction.executeWithoutResult(status -> {
+            List<Integer> remaining = jdbcTemplate.queryForList(
+                    "UPDATE stored_blob SET ref_count = ref_count - 1 WHERE digest = ? RETURNING ref_count",
+                    Integer.class, digest);
+            if (remaining.isEmpty()) {
+                // Contenu non suivi : on ne supprime rien par précaution
+                logger.warn("Release of untracked blob {} ignored", digest);
+                return;
+            }
+            if (remaining.get(0) <= 0) {
+                jdbcTemplate.update("DELETE FROM stored_blob WHERE digest = ?", digest);
+                physicalDelete.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,273 @@
+package com.datashare.backend.services;
+
+// === Imports métier ===
+import com.datashare.backend.services.FileStorageService.StagedUpload;
+import com.datashare.backend.services.UploadInspector.RejectedContentException;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service gérant les sessions d'upload fragmenté (reprise après coupure).
+ *
+ * - Init : réserve un identifiant et un fichier de staging
+ * - Chunk : ajoute les octets reçus à l'offset indiqué
+ * - Complete : prépare la publication du fichier assemblé (déplacé vers le
+ *   stockage définitif après le commit de son enregistrement)
+ *
+ * Les sessions sont gardées en mémoire, l'offset courant est la taille du
+ * fichier de staging (source de vérité après un redémarrage du client).
+ * L'empreinte SHA-256 est calculée au fil des chunks reçus dans l'ordre ; après
+ * un chunk renvoyé ou interrompu, elle est recalculée une fois à la finalisation.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    /**
+     * Durée d'inactivité après laquelle une session est abandonnée.
+     */
+    static final Duration SESSION_TTL = Duration.ofHours(24);
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Ouvre une nouvelle session d'upload.
+     *
+     * @param ownerId        ID du propriétaire
+     * @param fileName       nom d'origine du fichier
+     * @param totalSize      taille totale annoncée
+     * @param expirationTime durée de validité optionnelle en jours
+     * @return la session créée
+     */
+    public UploadSession init(Long ownerId, String fileName, long totalSize, Integer expirationTime) {
+        if (totalSize <= 0) {
+            throw new IllegalArgumentException("Failed to store empty file.");
+        }
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), ownerId, fileName, totalSize,
+                expirationTime);
+        sessions.put(session.getUploadId(), session);
+        return session;
+    }
+
+    /**
+     * Retrouve une session appartenant à l'utilisateur donné.
+     */
+    public Optional<UploadSession> find(String uploadId, Long ownerId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null || !session.getOwnerId().equals(ownerId)) {
+            return Optional.empty();
+        }
+        return Optional.of(session);
+    }
+
+    /**
+     * Retourne le nombre d'octets déjà reçus (prochain offset attendu).
+     */
+    public long currentOffset(UploadSession session) {
+        return fileStorageService.stagedSize(session.getUploadId());
+    }
+
+    /**
+     * Ajoute un chunk à la session.
+     *
+     * @param session session cible
+     * @param offset  position du premier octet du chunk
+     * @param in      flux du chunk
+     * @return le prochain offset attendu
+     */
+    public long appendChunk(UploadSession session, long offset, InputStream in) {
+        // Un seul chunk écrit à la fois par session
+        synchronized (session) {
+            session.touch();
+            // Empreinte prolongée sur une copie, conservée seulement si le chunk est écrit
+            MessageDigest digest = session.digestFrom(offset);
+            long received = fileStorageService.appendChunk(session.getUploadId(), offset, session.getTotalSize(),
+                    in, digest);
+            session.digested(digest, received);
+            return received;
+        }
+    }
+
+    /**
+     * Termine la session : vérifie que tous les octets sont reçus et prépare la
+     * publication du fichier assemblé, à passer à publishOnCommit().
+     *
+     * @return l'upload préparé
+     * @throws RejectedContentException si le contenu assemblé est refusé
+     */
+    public StagedUpload complete(UploadSession session) {
+        synchronized (session) {
+            long received = currentOffset(session);
+            if (received != session.getTotalSize()) {
+                throw new IllegalStateException(
+                        "Upload incomplete: " + received + "/" + session.getTotalSize() + " bytes received");
+            }
+            StagedUpload staged;
+            try {
+                staged = fileStorageService.stageChunked(session.getUploadId(), session.getFileName(),
+                        session.sha256());
+            } catch (RejectedContentException e) {
+                // Contenu refusé et supprimé : la session ne peut pas être reprise
+                sessions.remove(session.getUploadId());
+                throw e;
+            }
+            sessions.remove(session.getUploadId());
+            return staged;
+        }
+    }
+
+    /**
+     * Abandonne la session et supprime les octets déjà reçus.
+     */
+    public void abort(UploadSession session) {
+        synchronized (session) {
+            sessions.remove(session.getUploadId());
+            fileStorageService.discardStaging(session.getUploadId());
+        }
+    }
+
+    /**
+     * Exécuté toutes les heures.
+     * Supprime les sessions inactives et les fichiers de staging orphelins
+     * (sessions perdues lors d'un redémarrage).
+     */
+    @Scheduled(fixedRate = 3600000)
+    public void purgeStaleSessions() {
+        Instant limit = Instant.now().minus(SESSION_TTL);
+
+        sessions.values().removeIf(session -> {
+            if (session.getLastActivity().isBefore(limit)) {
+                fileStorageService.discardStaging(session.getUploadId());
+                return true;
+            }
+            return false;
+        });
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(fileStorageService.getStagingLocation())) {
+            for (Path staged : stream) {
+                if (Files.getLastModifiedTime(staged).toInstant().isBefore(limit)) {
+                    Files.deleteIfExists(staged);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error purging staging area", e);
+        }
+    }
+
+    /**
+     * Session d'upload fragmenté en cours.
+     */
+    public static class UploadSession {
+        private final String uploadId;
+        private final Long ownerId;
+        private final String fileName;
+        private final long totalSize;
+        private final Integer expirationTime;
+        private volatile Instant lastActivity = Instant.now();
+
+        // Empreinte SHA-256 des octets reçus dans l'ordre (null : abandonnée après
+        // un chunk renvoyé ou interrompu, recalculée à la finalisation)
+        private MessageDigest digest;
+        private long digestedBytes;
+
+        UploadSession(String uploadId, Long ownerId, String fileName, long totalSize, Integer expirationTime) {
+            this.uploadId = uploadId;
+            this.ownerId = ownerId;
+            this.fileName = fileName;
+            this.totalSize = totalSize;
+            this.expirationTime = expirationTime;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        void touch() {
+            this.lastActivity = Instant.now();
+        }
+
+        // Copie de l'empreinte à prolonger par un chunk commençant à offset ; null
+        // (empreinte abandonnée) si le chunk ne suit pas les octets déjà comptés
+        MessageDigest digestFrom(long offset) {
+            if (digest != null && offset == digestedBytes) {
+                try {
+                    return (MessageDigest) digest.clone();
+                } catch (CloneNotSupportedException e) {
+                    logger.warn("SHA-256 digest cannot be cloned, upload {} digested on completion", uploadId);
+                }
+            }
+            digest = null;
+            return null;
+        }
+
+        // Chunk écrit : l'empreinte prolongée couvre les octets reçus
+        void digested(MessageDigest updated, long receivedBytes) {
+            if (updated != null) {
+                digest = updated;
+                digestedBytes = receivedBytes;
+            }
+        }
+
+        // Empreinte (hexadécimal) du contenu complet, null si elle doit être recalculée
+        String sha256() {
+            if (digest == null || digestedBytes != totalSize) {
+                return null;
+            }
+            try {
+                return HexFormat.of().formatHex(((MessageDigest) digest.clone()).digest());
+            } catch (CloneNotSupportedException e) {
+                return null;
+            }
+        }
+
+        public String getUploadId() {
+            return uploadId;
+        }
+
+        public Long getOwnerId() {
+            return ownerId;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getTotalSize() {
+            return totalSize;
+        }
+
+        public Integer getExpirationTime() {
+            return expirationTime;
+        }
+
+        public Instant getLastActivity() {
+            return lastActivity;
+        }
+    }
+}
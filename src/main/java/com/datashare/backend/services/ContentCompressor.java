@@ -0,0 +1,154 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.stereotype.Component;
+
+// === Imports I/O ===
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression des contenus au repos (gzip, niveau rapide).
+ *
+ * - Détecte les formats déjà compressés par leurs octets magiques (l'extension
+ *   et le Content-Type fournis par le client ne sont pas fiables)
+ * - Compresse les autres contenus (texte, CSV, JSON, logs...) et ne conserve la
+ *   version compressée que si le gain est suffisant
+ *
+ * Le format gzip est servi tel quel aux clients qui l'acceptent
+ * (Content-Encoding: gzip) et décompressé à la volée pour les autres.
+ */
+@Component
+public class ContentCompressor {
+
+    // Nombre d'octets lus pour reconnaître le format
+    static final int HEADER_SIZE = 16;
+
+    // La version compressée doit faire au plus 90 % de l'original
+    private static final double MAX_RATIO = 0.9;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Ouverture d'un flux source (relu si la compression est abandonnée).
+     */
+    @FunctionalInterface
+    public interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Indique si un contenu vaut la peine d'être compressé, d'après ses premiers
+     * octets.
+     *
+     * @param header premiers octets du contenu
+     * @param length nombre d'octets valides dans header
+     * @return false pour les formats déjà compressés (archives, images, audio,
+     *         vidéo, PDF, documents Office)
+     */
+    public boolean isCompressible(byte[] header, int length) {
+        if (length < 4) {
+            return length > 0;
+        }
+        return !(startsWith(header, length, 0x1F, 0x8B) // gzip
+                || startsWith(header, length, 'P', 'K', 0x03, 0x04) // zip, docx, xlsx, odt, jar...
+                || startsWith(header, length, 'B', 'Z', 'h') // bzip2
+                || startsWith(header, length, 0xFD, '7', 'z', 'X', 'Z', 0x00) // xz
+                || startsWith(header, length, 0x28, 0xB5, 0x2F, 0xFD) // zstd
+                || startsWith(header, length, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C) // 7z
+                || startsWith(header, length, 'R', 'a', 'r', '!') // rar
+                || startsWith(header, length, 0xFF, 0xD8, 0xFF) // jpeg
+                || startsWith(header, length, 0x89, 'P', 'N', 'G') // png
+                || startsWith(header, length, 'G', 'I', 'F', '8') // gif
+                || startsWith(header, length, 'R', 'I', 'F', 'F') // webp, avi, wav
+                || startsWith(header, length, '%', 'P', 'D', 'F') // pdf (flux internes compressés)
+                || startsWith(header, length, 'I', 'D', '3') // mp3
+                || startsWith(header, length, 'O', 'g', 'g', 'S') // ogg
+                || startsWith(header, length, 'f', 'L', 'a', 'C') // flac
+                || startsWith(header, length, 0x1A, 0x45, 0xDF, 0xA3) // mkv, webm
+                || (length >= 8 && header[4] == 'f' && header[5] == 't' && header[6] == 'y'
+                        && header[7] == 'p')); // mp4, mov, heic, m4a
+    }
+
+    /**
+     * Compresse le contenu vers la cible si le format s'y prête et si le gain est
+     * suffisant.
+     *
+     * @param source  contenu d'origine
+     * @param rawSize taille d'origine
+     * @param target  fichier compressé à créer
+     * @return true si la cible a été créée, false si le contenu doit être stocké
+     *         tel quel (aucun fichier laissé à l'emplacement cible)
+     */
+    public boolean compress(ContentSource source, long rawSize, Path target) throws IOException {
+        try (InputStream in = source.open()) {
+            byte[] header = new byte[HEADER_SIZE];
+            int length = in.readNBytes(header, 0, HEADER_SIZE);
+            if (!isCompressible(header, length)) {
+                return false;
+            }
+            try (OutputStream out = gzip(Files.newOutputStream(target))) {
+                out.write(header, 0, length);
+                in.transferTo(out);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        if (Files.size(target) > rawSize * MAX_RATIO) {
+            Files.delete(target);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compresse le contenu vers la cible sans condition de format ni de gain
+     * (contenu devant être stocké sous un nom .gz déjà choisi).
+     *
+     * @param source contenu d'origine
+     * @param target fichier compressé à créer
+     */
+    public void compressAlways(ContentSource source, Path target) throws IOException {
+        try (InputStream in = source.open(); OutputStream out = gzip(Files.newOutputStream(target))) {
+            in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Flux décompressé d'un contenu stocké en gzip.
+     */
+    public static InputStream decompress(InputStream compressed) throws IOException {
+        return new GZIPInputStream(compressed, BUFFER_SIZE);
+    }
+
+    // Flux gzip au niveau de compression le plus rapide
+    private OutputStream gzip(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        };
+    }
+
+    private boolean startsWith(byte[] header, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PreDestroy;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs de téléchargements en écriture différée (write-behind).
+ *
+ * - Chaque téléchargement incrémente un LongAdder en mémoire (par partage),
+ *   sans écriture en base ni verrou partagé entre threads
+ * - Les deltas accumulés sont écrits périodiquement en un seul batch
+ *   "download_count = download_count + ?" (aucune lecture/réécriture, aucun
+ *   incrément perdu), ainsi qu'à l'arrêt de l'application
+ *
+ * Le compteur affiché dans le tableau de bord peut donc avoir quelques secondes
+ * de retard. Un arrêt brutal (kill -9) perd les incréments non encore écrits.
+ */
+@Service
+public class DownloadCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadCounterService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Incréments en attente, par ID de partage
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public DownloadCounterService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Comptabilise un téléchargement.
+     *
+     * @param shareId ID du partage téléchargé
+     */
+    public void recordDownload(Long shareId) {
+        add(shareId, 1);
+    }
+
+    /**
+     * Écrit les deltas accumulés en base (un seul batch UPDATE).
+     * Exécuté toutes les quelques secondes et à l'arrêt de l'application.
+     */
+    @Scheduled(fixedDelayString = "${datashare.app.downloadCounter.flushIntervalMs:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            long delta = counter.pending.sumThenReset();
+            if (delta == 0) {
+                // Partage inactif depuis le dernier flush : retiré de la table.
+                // Un incrément concurrent est soit collecté ici, soit repris par add()
+                counter.retired = true;
+                counters.remove(entry.getKey(), counter);
+                delta = counter.pending.sumThenReset();
+            }
+            if (delta > 0) {
+                batch.add(new Object[] { delta, entry.getKey() });
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE share SET download_count = COALESCE(download_count, 0) + ? WHERE id = ?", batch);
+        } catch (RuntimeException e) {
+            // Base indisponible : les deltas sont réintégrés pour le prochain flush
+            logger.error("Could not flush download counters: {}", e.getMessage());
+            for (Object[] row : batch) {
+                add((Long) row[1], (Long) row[0]);
+            }
+        }
+    }
+
+    /**
+     * Nombre de téléchargements en attente d'écriture pour un partage.
+     */
+    public long pending(Long shareId) {
+        Counter counter = counters.get(shareId);
+        return counter != null ? counter.pending.sum() : 0L;
+    }
+
+    private void add(Long shareId, long amount) {
+        while (amount > 0) {
+            Counter counter = counters.computeIfAbsent(shareId, id -> new Counter());
+            counter.pending.add(amount);
+            if (!counter.retired) {
+                return;
+            }
+            // Compteur retiré par un flush concurrent : reprend ce qu'il n'a pas collecté
+            amount = counter.pending.sumThenReset();
+        }
+    }
+
+    // Accumulateur d'un partage ; "retired" une fois retiré de la table
+    private static class Counter {
+        private final LongAdder pending = new LongAdder();
+        private volatile boolean retired;
+    }
+}
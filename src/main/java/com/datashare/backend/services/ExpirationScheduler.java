@@ -0,0 +1,172 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// === Imports métier ===
+import com.datashare.backend.scheduling.HierarchicalTimingWheel;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Suppression des fichiers à leur échéance exacte.
+ *
+ * Les expirations à venir sont rangées dans une roue temporelle hiérarchique
+ * en mémoire (HierarchicalTimingWheel) :
+ * - Chargée depuis la DB au démarrage puis complétée périodiquement, sur un
+ *   horizon borné (datashare.app.expiration.horizonHours)
+ * - Alimentée à chaque upload (FileController) si l'échéance est dans l'horizon
+ * - Avancée à chaque tick : les fichiers échus sont supprimés par petits lots
+ *   (FileCleanupService), au lieu d'un pic de suppressions toutes les heures
+ *
+ * La roue n'est pas persistée : le passage périodique de FileCleanupService
+ * reste le filet de sécurité (redémarrage, fichiers hors horizon). Avec
+ * plusieurs instances, chacune suit toutes les échéances ; les suppressions
+ * concurrentes d'un même fichier sont écartées par FOR UPDATE SKIP LOCKED.
+ */
+@Service
+public class ExpirationScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpirationScheduler.class);
+
+    // 4 niveaux de 64 cases : horizon de 64^4 ticks (194 jours avec un tick d'une seconde)
+    private static final int WHEEL_LEVELS = 4;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final FileCleanupService cleanupService;
+
+    private final boolean enabled;
+
+    private final long horizonMillis;
+
+    private final HierarchicalTimingWheel<Long> wheel;
+
+    // Fichiers échus en attente de suppression (lots bornés par tick)
+    private final Queue<Long> dueFiles = new ConcurrentLinkedQueue<>();
+
+    // Borne haute des échéances chargées : au-delà, la roue est complétée par loadUpcoming()
+    private volatile long loadedUntil;
+
+    @Value("${datashare.app.expiration.batchSize:100}")
+    private int batchSize;
+
+    public ExpirationScheduler(JdbcTemplate jdbcTemplate, FileCleanupService cleanupService,
+            @Value("${datashare.app.expiration.enabled:true}") boolean enabled,
+            @Value("${datashare.app.expiration.tickMs:1000}") long tickMillis,
+            @Value("${datashare.app.expiration.horizonHours:192}") long horizonHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cleanupService = cleanupService;
+        this.enabled = enabled;
+        this.horizonMillis = horizonHours * 3_600_000L;
+        long now = System.currentTimeMillis();
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_LEVELS, now);
+        this.loadedUntil = now;
+    }
+
+    /**
+     * Planifie la suppression d'un fichier qui vient d'être enregistré.
+     * Une échéance au-delà de l'horizon chargé sera reprise par loadUpcoming().
+     *
+     * @param fileId         ID du fichier
+     * @param expirationDate date d'expiration
+     */
+    public void schedule(Long fileId, LocalDateTime expirationDate) {
+        if (!enabled || fileId == null || expirationDate == null) {
+            return;
+        }
+        long deadline = toMillis(expirationDate);
+        if (deadline <= loadedUntil) {
+            wheel.schedule(fileId, deadline);
+        }
+    }
+
+    /**
+     * Charge depuis la DB les échéances de la tranche suivante de l'horizon.
+     * Exécuté au démarrage (reconstruction de la roue) puis toutes les heures.
+     *
+     * @return nombre d'échéances ajoutées à la roue
+     */
+    @Scheduled(fixedDelayString = "${datashare.app.expiration.refillMs:3600000}")
+    public int loadUpcoming() {
+        if (!enabled) {
+            return 0;
+        }
+        long from = loadedUntil;
+        long until = System.currentTimeMillis() + horizonMillis;
+        if (until <= from) {
+            return 0;
+        }
+        // Borne avancée avant la lecture : un upload concurrent est planifié par
+        // schedule() s'il n'est pas vu par la requête (au pire deux fois, sans effet)
+        loadedUntil = until;
+        int[] loaded = {0};
+        jdbcTemplate.query("SELECT id, expiration_date FROM file WHERE expiration_date > ? AND expiration_date <= ?",
+                rs -> {
+                    if (wheel.schedule(rs.getLong(1), toMillis(rs.getTimestamp(2).toLocalDateTime()))) {
+                        loaded[0]++;
+                    }
+                },
+                toLocalDateTime(from), toLocalDateTime(until));
+        logger.info("Expiration wheel: {} upcoming expiration(s) loaded, {} pending", loaded[0], wheel.size());
+        return loaded[0];
+    }
+
+    /**
+     * Avance la roue et supprime un lot de fichiers échus.
+     * Les fichiers au-delà du lot restent en file pour les ticks suivants.
+     *
+     * @return nombre de fichiers supprimés
+     */
+    @Scheduled(fixedDelayString = "${datashare.app.expiration.tickMs:1000}")
+    public int tick() {
+        if (!enabled) {
+            return 0;
+        }
+        dueFiles.addAll(wheel.advance(System.currentTimeMillis()));
+        List<Long> batch = new ArrayList<>(batchSize);
+        Long fileId;
+        while (batch.size() < batchSize && (fileId = dueFiles.poll()) != null) {
+            batch.add(fileId);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            int deleted = cleanupService.deleteExpiredFiles(batch);
+            logger.debug("Expiration wheel: {} of {} due file(s) deleted", deleted, batch.size());
+            return deleted;
+        } catch (RuntimeException e) {
+            // Lot abandonné : repris par le passage périodique de FileCleanupService
+            logger.error("Expiration wheel: could not delete {} due file(s): {}", batch.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * @return nombre d'échéances en attente (roue et file des fichiers échus)
+     */
+    public int pendingCount() {
+        return wheel.size() + dueFiles.size();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -1,51 +1,234 @@
 package com.datashare.backend.services;
 
-import com.datashare.backend.model.File;
-import com.datashare.backend.repository.FileRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.annotation.PreDestroy;
 
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service de tâche planifiée (CRON job) pour le nettoyage automatique.
  * Supprime les fichiers dont la date d'expiration est dépassée.
+ *
+ * Avec plusieurs instances, les fichiers expirés sont répartis en partitions
+ * (id modulo datashare.app.cleanup.partitions) ; chaque partition n'est
+ * traitée que par l'instance qui détient son bail en base (scheduler_lease).
+ * Avec une seule partition (défaut), une seule instance nettoie à la fois.
+ *
+ * Traitement par lots de taille bornée, chacun dans sa propre transaction :
+ * 1. Sélection des IDs expirés (FOR UPDATE SKIP LOCKED : plusieurs instances
+ *    peuvent nettoyer en parallèle sans se bloquer)
+ * 2. DELETE ensembliste des partages puis des fichiers du lot, décrément des
+ *    quotas des propriétaires, commit
+ * 3. Libération des contenus physiques en parallèle (pool de threads borné)
+ *
+ * Les fichiers sont normalement supprimés dès leur échéance par
+ * ExpirationScheduler ; ce passage périodique rattrape ceux qu'il n'a pas
+ * traités (instance arrêtée, échéance au-delà de son horizon).
+ *
+ * Les contenus ne sont libérés qu'après le commit : une base jamais en avance
+ * sur le disque. Un arrêt entre les deux laisse des contenus orphelins sans
+ * fichier en base.
  */
 @Service
 public class FileCleanupService {
 
-    @Autowired
-    private FileRepository fileRepository;
+    private static final Logger logger = LoggerFactory.getLogger(FileCleanupService.class);
 
-    @Autowired
-    private FileStorageService fileStorageService;
+    // Préfixe des baux de partition ("file-cleanup-0", "file-cleanup-1"...)
+    static final String LEASE_PREFIX = "file-cleanup-";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate batchTransaction;
+
+    private final FileStorageService fileStorageService;
+
+    private final ShareLookupService shareLookupService;
+
+    private final SchedulerLeaseService leaseService;
+
+    private final QuotaService quotaService;
+
+    private final ExecutorService deleteExecutor;
+
+    @Value("${datashare.app.cleanup.batchSize:1000}")
+    private int batchSize;
+
+    // Nombre de partitions réparties entre les instances
+    @Value("${datashare.app.cleanup.partitions:1}")
+    private int partitions;
+
+    // Durée des baux, prolongés à chaque lot
+    @Value("${datashare.app.cleanup.leaseSeconds:300}")
+    private long leaseSeconds;
+
+    public FileCleanupService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            FileStorageService fileStorageService, ShareLookupService shareLookupService,
+            SchedulerLeaseService leaseService, QuotaService quotaService,
+            @Value("${datashare.app.cleanup.deleteThreads:4}") int deleteThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.fileStorageService = fileStorageService;
+        this.shareLookupService = shareLookupService;
+        this.leaseService = leaseService;
+        this.quotaService = quotaService;
+        this.deleteExecutor = Executors.newFixedThreadPool(deleteThreads);
+    }
 
     /**
-     * Exécuté toutes les heures (3600000 ms).
-     * Vérifie et supprime les fichiers expirés de la DB et du disque.
+     * Exécuté toutes les heures (3600000 ms par défaut).
+     * Traite chaque partition dont le bail est libre : les fichiers expirés sont
+     * supprimés de la DB et du disque, lot par lot, jusqu'à épuisement. Les
+     * partitions détenues par d'autres instances sont ignorées sans attente.
+     *
+     * @return nombre de fichiers supprimés par cette instance
      */
-    @Scheduled(fixedRate = 3600000)
-    @Transactional
-    public void deleteExpiredFiles() {
+    @Scheduled(fixedRateString = "${datashare.app.cleanup.intervalMs:3600000}")
+    public int deleteExpiredFiles() {
         LocalDateTime now = LocalDateTime.now();
-        // Recherche des fichiers expirés
-        List<File> expiredFiles = fileRepository.findByExpirationDateBefore(now);
-
-        for (File file : expiredFiles) {
+        Duration leaseTtl = Duration.ofSeconds(leaseSeconds);
+        int total = 0;
+        // Départ aléatoire : des instances démarrées ensemble visent des partitions différentes
+        int first = ThreadLocalRandom.current().nextInt(partitions);
+        for (int i = 0; i < partitions; i++) {
+            int partition = (first + i) % partitions;
+            String lease = LEASE_PREFIX + partition;
+            if (!leaseService.tryAcquire(lease, leaseTtl)) {
+                continue;
+            }
             try {
-                // 1. Suppression physique du fichier
-                fileStorageService.delete(file.getStoragePath());
+                int deleted;
+                do {
+                    deleted = deleteBatch(now, partition);
+                    total += deleted;
+                } while (deleted == batchSize && leaseService.renew(lease, leaseTtl));
+            } finally {
+                leaseService.release(lease);
+            }
+        }
+        if (total > 0) {
+            logger.info("Expired files cleanup: {} file(s) deleted", total);
+        }
+        return total;
+    }
 
-                // 2. Suppression de l'entrée en base de données
-                fileRepository.delete(file);
+    /**
+     * Supprime, parmi les fichiers donnés, ceux dont l'expiration est dépassée.
+     * Appelé par ExpirationScheduler à l'échéance exacte des fichiers : les
+     * fichiers déjà supprimés, non expirés ou verrouillés par une autre instance
+     * sont ignorés.
+     *
+     * @param fileIds IDs des fichiers arrivés à échéance
+     * @return nombre de fichiers supprimés
+     */
+    public int deleteExpiredFiles(Collection<Long> fileIds) {
+        if (fileIds.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(fileIds.size() + 1);
+        args.add(LocalDateTime.now());
+        args.addAll(fileIds);
+        return deleteFiles("expiration_date < ? AND id IN ("
+                + String.join(",", Collections.nCopies(fileIds.size(), "?")) + ")", args.toArray()).size();
+    }
+
+    /**
+     * Supprime un lot de fichiers expirés d'une partition.
+     *
+     * @return nombre de fichiers du lot (inférieur à batchSize pour le dernier)
+     */
+    private int deleteBatch(LocalDateTime now, int partition) {
+        List<Long> ids = deleteFiles("expiration_date < ? AND id % ? = ? ORDER BY id LIMIT ?",
+                now, partitions, partition, batchSize);
+        if (!ids.isEmpty()) {
+            logger.info("Expired files cleanup: partition {}, batch of {} file(s) deleted up to id {}",
+                    partition, ids.size(), ids.get(ids.size() - 1));
+        }
+        return ids.size();
+    }
+
+    /**
+     * Supprime les fichiers sélectionnés par la condition puis libère leurs contenus.
+     *
+     * @param condition clause WHERE (et ORDER BY / LIMIT éventuels) de la sélection
+     * @return IDs des fichiers supprimés
+     */
+    private List<Long> deleteFiles(String condition, Object... args) {
+        List<Long> ids = new ArrayList<>();
+        List<String> storagePaths = new ArrayList<>();
+        // Taille libérée par propriétaire, retirée de son quota
+        Map<Long, Long> freedBytes = new HashMap<>();
 
-                System.out.println("Deleted expired file: " + file.getOriginalName() + " (ID: " + file.getId() + ")");
-            } catch (Exception e) {
-                System.err.println("Error deleting expired file ID " + file.getId() + ": " + e.getMessage());
+        // 1-2. Suppression ensembliste en base, une transaction courte par lot
+        batchTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.query(
+                    "SELECT id, storage_path, owner_id, size FROM file WHERE " + condition + " FOR UPDATE SKIP LOCKED",
+                    rs -> {
+                        ids.add(rs.getLong(1));
+                        storagePaths.add(rs.getString(2));
+                        freedBytes.merge(rs.getLong(3), rs.getLong(4), Long::sum);
+                    },
+                    args);
+            if (ids.isEmpty()) {
+                return;
             }
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            jdbcTemplate.update("DELETE FROM share WHERE file_id IN (" + placeholders + ")", ids.toArray());
+            jdbcTemplate.update("DELETE FROM file WHERE id IN (" + placeholders + ")", ids.toArray());
+            quotaService.release(freedBytes);
+        });
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        // Retire les partages supprimés du cache des tokens
+        shareLookupService.invalidateFiles(ids);
+
+        // 3. Libération des contenus (décrément des références si dédupliqués)
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<Void>> releases = new ArrayList<>(storagePaths.size());
+        for (String storagePath : storagePaths) {
+            releases.add(CompletableFuture.runAsync(() -> {
+                try {
+                    fileStorageService.release(storagePath);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    logger.error("Could not release expired file {}: {}", storagePath, e.getMessage());
+                }
+            }, deleteExecutor));
         }
+        CompletableFuture.allOf(releases.toArray(new CompletableFuture[0])).join();
+
+        if (failures.get() > 0) {
+            logger.warn("Expired files cleanup: {} of {} content(s) could not be released",
+                    failures.get(), storagePaths.size());
+        }
+        return ids;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deleteExecutor.shutdown();
     }
 }
@@ -1,119 +1,803 @@
 package com.datashare.backend.services;
 
+// === Imports métier ===
+import com.datashare.backend.repository.FileRepository;
+import com.datashare.backend.storage.FilesystemStorageBackend;
+import com.datashare.backend.storage.StorageBackend;
+import com.datashare.backend.storage.StorageCluster;
+import com.datashare.backend.storage.StoredObject;
+
 // === Imports Spring ===
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 // === Imports I/O ===
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Service gérant les opérations bas niveau sur le système de fichiers.
+ * Service gérant le stockage des fichiers.
  *
- * - Initialise le dossier d'upload
- * - Stocke les fichiers avec un nom unique (UUID)
- * - Charge les fichiers sous forme de Resource
- * - Supprime les fichiers physiques
+ * - Délègue le stockage des contenus à un StorageBackend (système de fichiers
+ *   local, stockage objet compatible S3, ou nœuds d'un cluster)
+ * - Initialise le dossier local (zone de staging)
+ * - Stocke les fichiers avec un nom unique (UUID), ou par empreinte SHA-256 en
+ *   mode dédupliqué (un seul exemplaire par contenu, compteur de références)
+ * - Répartit les fichiers dans des sous-dossiers (ab/cd/UUID_nom) pour éviter
+ *   les répertoires de plusieurs millions d'entrées
+ * - Calcule l'empreinte SHA-256 de chaque upload pendant la copie (intégrité)
+ * - Compresse optionnellement les contenus compressibles au repos (gzip)
+ * - Écrit les uploads dans la zone de staging, puis les publie (déplacement
+ *   atomique) seulement après le commit de la transaction qui les enregistre
+ * - Gère la zone de staging des uploads fragmentés (chunks)
+ * - Résout les contenus à télécharger
+ * - Libère les contenus stockés (suppression ou décrément de références)
  */
 @Service
 public class FileStorageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+
     /**
      * Chemin du dossier de stockage (injecté depuis application.properties).
      */
     @Value("${datashare.app.uploadDir}")
     private String uploadDir;
 
+    /**
+     * Sous-dossier contenant les fichiers en cours d'upload (non visibles).
+     */
+    public static final String STAGING_DIR = ".staging";
+
+    /**
+     * Sous-dossier des contenus dédupliqués (blobs/ab/abcdef...).
+     */
+    public static final String BLOB_DIR = "blobs";
+
+    /**
+     * Suffixe des contenus stockés compressés (UUID.gz ou blobs/ab/abcdef....gz).
+     */
+    public static final String GZIP_SUFFIX = ".gz";
+
+    /**
+     * Suffixe des contenus en zone de staging.
+     */
+    static final String STAGED_SUFFIX = ".part";
+
+    /**
+     * Suffixe du fichier accompagnant un upload préparé (chemin définitif et
+     * empreinte), relu au redémarrage pour reprendre sa publication.
+     */
+    static final String TARGET_SUFFIX = ".target";
+
+    /**
+     * Âge à partir duquel un upload préparé sans ligne en base est abandonné.
+     */
+    static final Duration RECOVERY_GRACE = Duration.ofHours(1);
+
+    /**
+     * Politique de durabilité des uploads (datashare.app.storage.durability).
+     */
+    public enum Durability {
+        /** Aucun fsync : les données sont écrites quand le système le décide. */
+        NONE,
+        /** fsync du fichier publié et de son dossier en arrière-plan. */
+        ASYNC,
+        /** fsync du staging avant le commit, puis du dossier après publication. */
+        SYNC
+    }
+
+    /**
+     * Active le stockage adressé par contenu (déduplication).
+     */
+    @Value("${datashare.app.storage.dedup:false}")
+    private boolean dedupEnabled;
+
+    /**
+     * Nombre de niveaux de sous-dossiers des nouveaux fichiers (2 caractères
+     * hexadécimaux du UUID par niveau, 0 = dossier unique).
+     */
+    @Value("${datashare.app.storage.shardDepth:0}")
+    private int shardDepth;
+
+    /**
+     * Active la compression au repos des contenus compressibles.
+     */
+    @Value("${datashare.app.storage.compression:false}")
+    private boolean compressionEnabled;
+
+    /**
+     * Moment où les uploads sont forcés sur disque (fsync).
+     */
+    @Value("${datashare.app.storage.durability:ASYNC}")
+    private Durability durability = Durability.ASYNC;
+
+    /**
+     * Détection des formats et compression gzip.
+     */
+    @Autowired
+    private ContentCompressor contentCompressor;
+
+    /**
+     * Stockage des contenus (datashare.app.storage.backend).
+     */
+    @Autowired
+    private StorageBackend storageBackend;
+
+    /**
+     * Placement des contenus entre les nœuds du cluster.
+     */
+    @Autowired
+    private StorageCluster storageCluster;
+
+    /**
+     * Compteur de références des contenus dédupliqués.
+     */
+    @Autowired
+    private BlobReferenceService blobReferenceService;
+
+    /**
+     * Fichiers en base (reprise des uploads préparés au redémarrage).
+     */
+    @Autowired
+    private FileRepository fileRepository;
+
+    /**
+     * Contrôle des premiers octets des contenus reçus (exécutables refusés).
+     */
+    @Autowired
+    private UploadInspector uploadInspector;
+
+    // fsync différés (politique ASYNC)
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-fsync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private Path rootLocation;
 
+    private Path stagingLocation;
+
     /**
      * Initialisation du service au démarrage de l'application.
-     * Crée le dossier d'upload s'il n'existe pas.
+     * Crée le dossier d'upload (et la zone de staging) s'il n'existe pas.
      */
     @PostConstruct
     public void init() {
         try {
             this.rootLocation = Paths.get(uploadDir);
             Files.createDirectories(this.rootLocation);
+            this.stagingLocation = this.rootLocation.resolve(STAGING_DIR);
+            Files.createDirectories(this.stagingLocation);
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize storage location", e);
         }
     }
 
     /**
-     * Stocke un fichier reçu.
+     * Stocke un fichier reçu : préparation en staging puis publication (après
+     * le commit si une transaction est en cours, sinon immédiatement).
      *
      * @param file le fichier Multipart reçu du contrôleur
      * @return le nom de fichier unique généré
      */
     public String store(MultipartFile file) {
+        StagedUpload staged = stage(file);
+        publishOnCommit(staged);
+        return staged.storagePath();
+    }
+
+    /**
+     * Écrit un fichier reçu dans la zone de staging et détermine son chemin de
+     * stockage définitif (compression et empreinte calculées ici). Le fichier
+     * n'est visible sous ce chemin qu'après publishOnCommit().
+     *
+     * @param file le fichier Multipart reçu du contrôleur
+     * @return l'upload préparé
+     */
+    public StagedUpload stage(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new RuntimeException("Failed to store empty file.");
+        }
+        try (InputStream in = file.getInputStream()) {
+            return stage(file.getOriginalFilename(), in);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file.", e);
+        }
+    }
+
+    /**
+     * Écrit un contenu reçu en flux (upload multipart lu au fil de l'eau) dans
+     * la zone de staging : seule écriture sur disque avant la publication.
+     *
+     * @param originalFilename nom d'origine du fichier
+     * @param in               contenu, lu jusqu'à la fin (non fermé)
+     * @return l'upload préparé
+     */
+    public StagedUpload stage(String originalFilename, InputStream in) {
+        String id = UUID.randomUUID().toString();
+        Path content = this.stagingLocation.resolve(id + STAGED_SUFFIX);
         try {
-            if (file.isEmpty()) {
+            // Nom définitif vérifié avant toute écriture (contenu dédupliqué : nommé par son empreinte)
+            String storagePath = null;
+            if (!dedupEnabled) {
+                storagePath = shardedPath(generateFilename(originalFilename));
+                checkStoragePath(storagePath);
+            }
+
+            // Premiers octets examinés avant toute écriture ; empreinte SHA-256
+            // calculée pendant la copie (aucune relecture du contenu)
+            MessageDigest messageDigest = sha256();
+            long size = Files.copy(new DigestInputStream(uploadInspector.inspect(in), messageDigest), content);
+            if (size == 0) {
                 throw new RuntimeException("Failed to store empty file.");
             }
-            // Génère un nom unique pour éviter les collisions (UUID + nom d'origine)
-            String filename = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
 
-            // Résout le chemin absolu de destination
-            Path destinationFile = this.rootLocation.resolve(Paths.get(filename))
-                    .normalize().toAbsolutePath();
+            String digest = HexFormat.of().formatHex(messageDigest.digest());
+            if (dedupEnabled) {
+                storagePath = blobPath(content, digest, size);
+            } else if (compressionEnabled && compressInPlace(content, size)) {
+                // Nom sans le nom d'origine : le suffixe identifie sans ambiguïté un contenu compressé
+                storagePath = shardedPath(id + GZIP_SUFFIX);
+            }
 
-            // Vérification de sécurité : empêche l'écriture en dehors du dossier prévu
-            // (Path Traversal)
-            if (!destinationFile.getParent().equals(this.rootLocation.toAbsolutePath())) {
-                throw new RuntimeException("Cannot store file outside current directory.");
+            return prepared(id, storagePath, content, digest, size);
+        } catch (IOException e) {
+            discardStaged(id);
+            throw new RuntimeException("Failed to store file.", e);
+        } catch (RuntimeException e) {
+            discardStaged(id);
+            throw e;
+        }
+    }
+
+    /**
+     * Abandonne un upload préparé qui ne sera pas publié (requête rejetée
+     * après la réception du fichier).
+     *
+     * @param staged l'upload préparé
+     */
+    public void discard(StagedUpload staged) {
+        discardStaged(staged.id());
+    }
+
+    /**
+     * Publie un upload préparé à la fin de la transaction en cours : déplacement
+     * atomique vers son chemin définitif après le commit, suppression du staging
+     * après un rollback. Hors transaction, la publication est immédiate.
+     * En mode dédupliqué, la référence au contenu est ajoutée dans la transaction.
+     *
+     * @param staged upload préparé par stage()
+     */
+    public void publishOnCommit(StagedUpload staged) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                if (staged.isDeduplicated()) {
+                    blobReferenceService.retain(staged.sha256(), staged.size());
+                }
+                publish(staged);
+            } catch (RuntimeException e) {
+                discardStaged(staged.id());
+                throw e;
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    discardStaged(staged.id());
+                    return;
+                }
+                try {
+                    publish(staged);
+                } catch (RuntimeException e) {
+                    // Staging conservé : publication reprise au prochain démarrage
+                    logger.error("Could not publish {}: {}", staged.storagePath(), e.getMessage());
+                }
             }
+        });
+        if (staged.isDeduplicated()) {
+            blobReferenceService.retain(staged.sha256(), staged.size());
+        }
+    }
 
-            // Copie le flux du fichier vers la destination
-            try (var inputStream = file.getInputStream()) {
-                Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Reprise des uploads préparés après un arrêt : un upload dont la ligne est
+     * en base (commit effectué) est publié, un upload sans ligne (rollback ou
+     * arrêt avant le commit) est supprimé après RECOVERY_GRACE.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverStagedUploads() {
+        try (DirectoryStream<Path> targets = Files.newDirectoryStream(this.stagingLocation, "*" + TARGET_SUFFIX)) {
+            for (Path target : targets) {
+                try {
+                    recoverStagedUpload(target);
+                } catch (IOException | RuntimeException e) {
+                    logger.error("Could not recover staged upload {}: {}", target.getFileName(), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Could not list staged uploads: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ajoute un fragment (chunk) au fichier de staging d'un upload fragmenté.
+     *
+     * L'offset doit correspondre à la taille déjà reçue : un offset inférieur
+     * (chunk renvoyé après coupure) réécrit la fin du fichier, un offset supérieur
+     * est refusé. Les octets sont écrits directement dans le fichier de staging,
+     * sans mise en mémoire du chunk complet.
+     *
+     * @param uploadId  identifiant de la session d'upload
+     * @param offset    position du premier octet du chunk
+     * @param maxLength taille totale annoncée du fichier (borne supérieure)
+     * @param in        flux du chunk
+     * @param digest    empreinte mise à jour avec les octets du chunk (optionnelle,
+     *                  inutilisable si l'appel échoue)
+     * @return la nouvelle taille reçue (prochain offset attendu)
+     */
+    public long appendChunk(String uploadId, long offset, long maxLength, InputStream in, MessageDigest digest) {
+        Path staging = resolveStaging(uploadId);
+        // Premier chunk : refus au plus tôt ; l'en-tête pouvant être réparti sur
+        // plusieurs chunks, le contenu assemblé est examiné à nouveau par stageChunked
+        InputStream chunk = offset == 0 ? uploadInspector.inspect(in) : in;
+        try (FileChannel channel = FileChannel.open(staging, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                ReadableByteChannel source = Channels.newChannel(
+                        digest != null ? new DigestInputStream(chunk, digest) : chunk)) {
+            long current = channel.size();
+            if (offset > current) {
+                throw new IllegalStateException("Offset " + offset + " does not match received size " + current);
+            }
+            channel.truncate(offset);
+
+            // Lit au plus un octet de plus que le reste attendu pour détecter un dépassement
+            long position = offset;
+            long remaining = maxLength - offset + 1;
+            long transferred;
+            while (remaining > 0 && (transferred = channel.transferFrom(source, position, remaining)) > 0) {
+                position += transferred;
+                remaining -= transferred;
+            }
+            if (position > maxLength) {
+                channel.truncate(offset);
+                throw new IllegalArgumentException("Chunk exceeds declared file size.");
+            }
+            return position;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store chunk.", e);
+        }
+    }
+
+    /**
+     * Retourne la taille déjà reçue pour un upload fragmenté.
+     */
+    public long stagedSize(String uploadId) {
+        try {
+            Path staging = resolveStaging(uploadId);
+            return Files.exists(staging) ? Files.size(staging) : 0L;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read staged file: " + uploadId, e);
+        }
+    }
+
+    /**
+     * Prépare la publication d'un upload fragmenté complet : le fichier de
+     * staging assemblé devient un upload préparé, publié par publishOnCommit()
+     * comme les uploads reçus en une fois (rien n'est déplacé avant le commit).
+     * Les premiers octets du fichier assemblé sont examinés avant toute
+     * publication ; un contenu refusé est supprimé.
+     *
+     * @param uploadId         identifiant de la session d'upload
+     * @param originalFilename nom d'origine du fichier
+     * @param sha256           empreinte calculée à la réception des chunks (null si
+     *                         inconnue : relecture du fichier assemblé)
+     * @return l'upload préparé
+     * @throws UploadInspector.RejectedContentException si le contenu est refusé
+     */
+    public StagedUpload stageChunked(String uploadId, String originalFilename, String sha256) {
+        Path content = resolveStaging(uploadId);
+        try {
+            inspectStaging(uploadId, content);
+            long size = Files.size(content);
+            // Empreinte du contenu d'origine, avant une éventuelle compression
+            String digest = sha256 != null ? sha256 : digest(content);
+            if (dedupEnabled) {
+                return prepared(uploadId, blobPath(content, digest, size), content, digest, size);
+            }
+            String storagePath = shardedPath(generateFilename(originalFilename));
+            checkStoragePath(storagePath);
+            if (compressionEnabled && compressInPlace(content, size)) {
+                storagePath = shardedPath(uploadId + GZIP_SUFFIX);
             }
-            return filename;
+            return prepared(uploadId, storagePath, content, digest, size);
         } catch (IOException e) {
             throw new RuntimeException("Failed to store file.", e);
         }
     }
 
+    // Contrôle du contenu assemblé ; fragments supprimés s'il est refusé
+    private void inspectStaging(String uploadId, Path content) throws IOException {
+        try {
+            uploadInspector.inspect(content);
+        } catch (UploadInspector.RejectedContentException e) {
+            discardStaging(uploadId);
+            throw e;
+        }
+    }
+
+    /**
+     * Supprime le fichier de staging d'un upload abandonné.
+     */
+    public void discardStaging(String uploadId) {
+        try {
+            Files.deleteIfExists(resolveStaging(uploadId));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not delete staged file: " + uploadId, e);
+        }
+    }
+
+    // Supprime un upload préparé (contenu et chemin définitif)
+    private void discardStaged(String id) {
+        try {
+            Files.deleteIfExists(this.stagingLocation.resolve(id + STAGED_SUFFIX));
+            Files.deleteIfExists(this.stagingLocation.resolve(id + TARGET_SUFFIX));
+        } catch (IOException e) {
+            logger.warn("Could not delete staged upload {}: {}", id, e.getMessage());
+        }
+    }
+
     /**
-     * Supprime un fichier physique.
+     * Retourne le dossier de staging (purge des uploads abandonnés).
+     */
+    public Path getStagingLocation() {
+        return stagingLocation;
+    }
+
+    /**
+     * Libère un fichier stocké.
+     * Un contenu dédupliqué n'est effacé du disque que lorsque plus aucun fichier
+     * ne le référence ; un fichier classique est supprimé directement.
      *
-     * @param filename nom du fichier stocké
+     * @param storagePath chemin de stockage du fichier
+     */
+    public void release(String storagePath) {
+        if (storagePath.startsWith(BLOB_DIR + "/")) {
+            String digest = storagePath.substring(storagePath.lastIndexOf('/') + 1);
+            if (digest.endsWith(GZIP_SUFFIX)) {
+                digest = digest.substring(0, digest.length() - GZIP_SUFFIX.length());
+            }
+            blobReferenceService.release(digest, () -> delete(storagePath));
+            return;
+        }
+        delete(storagePath);
+    }
+
+    /**
+     * Supprime un contenu stocké.
+     *
+     * @param filename chemin de stockage du fichier
      */
     public void delete(String filename) {
         try {
-            Path file = rootLocation.resolve(filename);
-            Files.deleteIfExists(file);
+            storageBackend.delete(resolveKey(filename));
         } catch (IOException e) {
             throw new RuntimeException("Could not delete file: " + filename, e);
         }
     }
 
     /**
-     * Charge un fichier en tant que Resource (pour le téléchargement).
+     * Chemin de stockage d'un fichier dans la répartition en sous-dossiers
+     * (ex : "0b7e4c9a-..._rapport.csv" -> "0b/7e/0b7e4c9a-..._rapport.csv").
+     *
+     * @param filename nom du fichier (commençant par un UUID)
+     * @return le chemin de stockage, inchangé si la répartition est désactivée
+     */
+    public String shardedPath(String filename) {
+        StringBuilder path = new StringBuilder();
+        for (int level = 0; level < shardDepth; level++) {
+            path.append(filename, 2 * level, 2 * level + 2).append('/');
+        }
+        return path.append(filename).toString();
+    }
+
+    /**
+     * Migration vers la répartition en sous-dossiers : crée un lien physique du
+     * fichier à plat sous son chemin réparti (aucune copie, même système de
+     * fichiers). L'ancien chemin reste valide jusqu'à sa suppression.
      *
-     * @param filename nom du fichier
-     * @return Resource prête à être streamée
+     * @param storagePath chemin de stockage à plat
+     * @return le nouveau chemin de stockage, null si le fichier est absent
      */
-    public org.springframework.core.io.Resource loadFileAsResource(String filename) {
+    public String linkToShardedPath(String storagePath) {
+        if (!(storageBackend instanceof FilesystemStorageBackend filesystem)) {
+            throw new IllegalStateException("Layout migration requires the filesystem storage backend");
+        }
         try {
-            Path filePath = this.rootLocation.resolve(filename).normalize();
-            org.springframework.core.io.Resource resource = new org.springframework.core.io.UrlResource(
-                    filePath.toUri());
+            if (storageBackend.stat(storagePath).isEmpty()) {
+                return null;
+            }
+            String target = shardedPath(storagePath);
+            checkStoragePath(target);
+            if (storageBackend.stat(target).isEmpty()) {
+                filesystem.link(storagePath, target);
+            }
+            return target;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not relocate file: " + storagePath, e);
+        }
+    }
 
-            if (resource.exists()) {
-                return resource;
+    /**
+     * Nœud du cluster sur lequel un contenu est placé, à enregistrer avec le
+     * fichier (File.storageNode).
+     *
+     * @param storagePath chemin de stockage du fichier
+     * @return l'identifiant du nœud, null si le cluster est désactivé
+     */
+    public String nodeOf(String storagePath) {
+        return storageCluster.placementOf(storagePath);
+    }
+
+    /**
+     * Vrai si les contenus sont stockés sur le système de fichiers local
+     * (répartition en sous-dossiers et migration applicables).
+     */
+    public boolean isFilesystemStorage() {
+        return storageBackend instanceof FilesystemStorageBackend;
+    }
+
+    /**
+     * Indique si le contenu stocké est compressé (gzip) : seuls les contenus
+     * compressés par ce service ont un nom sans "_" terminé par ".gz" (les
+     * fichiers classiques sont nommés UUID_nomOrigine).
+     *
+     * @param storagePath chemin de stockage du fichier
+     */
+    public static boolean isGzipped(String storagePath) {
+        String name = storagePath.substring(storagePath.lastIndexOf('/') + 1);
+        return name.endsWith(GZIP_SUFFIX) && name.indexOf('_') < 0;
+    }
+
+    /**
+     * Résout un contenu stocké (pour le téléchargement).
+     *
+     * @param filename chemin de stockage du fichier
+     * @return contenu prêt à être envoyé par FileDownloadWriter
+     */
+    public StoredObject load(String filename) {
+        return find(filename).orElseThrow(() -> new RuntimeException("File not found " + filename));
+    }
+
+    /**
+     * Résout un contenu stocké, vide s'il est absent du stockage.
+     *
+     * @param filename chemin de stockage du fichier
+     */
+    public Optional<StoredObject> find(String filename) {
+        try {
+            return storageBackend.find(resolveKey(filename));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read file " + filename, e);
+        }
+    }
+
+    // Déplace le contenu préparé sous son chemin définitif (un contenu dédupliqué
+    // déjà présent n'est pas remplacé), puis supprime le staging
+    private void publish(StagedUpload staged) {
+        try {
+            if (!staged.isDeduplicated() || storageBackend.stat(staged.storagePath()).isEmpty()) {
+                storageBackend.putFile(staged.storagePath(), staged.content());
+                syncPublished(staged.storagePath());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file.", e);
+        }
+        discardStaged(staged.id());
+    }
+
+    private void recoverStagedUpload(Path target) throws IOException {
+        String name = target.getFileName().toString();
+        String id = name.substring(0, name.length() - TARGET_SUFFIX.length());
+        Path content = this.stagingLocation.resolve(id + STAGED_SUFFIX);
+        List<String> lines = Files.readAllLines(target);
+        if (lines.isEmpty() || lines.get(0).isEmpty() || !Files.exists(content)) {
+            // Déjà publié (ou préparation interrompue avant la fin)
+            Files.deleteIfExists(target);
+            return;
+        }
+        String digest = lines.size() > 1 && !lines.get(1).isEmpty() ? lines.get(1) : null;
+        StagedUpload staged = new StagedUpload(id, lines.get(0), content, digest, Files.size(content));
+        if (fileRepository.existsByStoragePath(staged.storagePath())) {
+            publish(staged);
+            logger.info("Staged upload {} published after restart", staged.storagePath());
+        } else if (Files.getLastModifiedTime(target).toInstant().isBefore(Instant.now().minus(RECOVERY_GRACE))) {
+            discardStaged(id);
+        }
+    }
+
+    // Enregistre le chemin définitif et l'empreinte à côté du staging (reprise au
+    // redémarrage), forcés sur disque avant le commit en politique SYNC
+    private StagedUpload prepared(String id, String storagePath, Path content, String digest, long size)
+            throws IOException {
+        Path target = this.stagingLocation.resolve(id + TARGET_SUFFIX);
+        Files.write(target, List.of(storagePath, digest != null ? digest : ""));
+        if (durability == Durability.SYNC) {
+            fsync(content);
+            fsync(target);
+            fsyncQuietly(this.stagingLocation);
+        }
+        return new StagedUpload(id, storagePath, content, digest, size);
+    }
+
+    // Chemin d'un contenu dédupliqué : variante déjà stockée (brute ou compressée)
+    // si elle existe, sinon compression du staging si elle est utile. Le staging
+    // est toujours dans le format de son chemin : si la variante disparaît avant
+    // le commit (dernière référence libérée), publish() le place tel quel
+    private String blobPath(Path content, String digest, long size) throws IOException {
+        String storagePath = BLOB_DIR + "/" + digest.substring(0, 2) + "/" + digest;
+        if (storageBackend.stat(storagePath).isPresent()) {
+            return storagePath;
+        }
+        if (storageBackend.stat(storagePath + GZIP_SUFFIX).isPresent()) {
+            Path compressed = content.resolveSibling(content.getFileName() + GZIP_SUFFIX);
+            contentCompressor.compressAlways(() -> Files.newInputStream(content), compressed);
+            Files.move(compressed, content, StandardCopyOption.REPLACE_EXISTING);
+            return storagePath + GZIP_SUFFIX;
+        }
+        if (compressionEnabled && compressInPlace(content, size)) {
+            return storagePath + GZIP_SUFFIX;
+        }
+        return storagePath;
+    }
+
+    // Remplace le contenu du staging par sa version compressée si elle est utile
+    private boolean compressInPlace(Path content, long size) throws IOException {
+        Path compressed = content.resolveSibling(content.getFileName() + GZIP_SUFFIX);
+        if (!contentCompressor.compress(() -> Files.newInputStream(content), size, compressed)) {
+            return false;
+        }
+        Files.move(compressed, content, StandardCopyOption.REPLACE_EXISTING);
+        return true;
+    }
+
+    // fsync d'un contenu publié selon la politique de durabilité (stockage local uniquement)
+    private void syncPublished(String storagePath) {
+        if (durability == Durability.NONE) {
+            return;
+        }
+        storageBackend.localPath(storagePath).ifPresent(published -> {
+            if (durability == Durability.SYNC) {
+                // Contenu déjà forcé en staging : seule l'entrée du dossier reste à écrire
+                fsyncQuietly(published.getParent());
             } else {
-                throw new RuntimeException("File not found " + filename);
+                syncExecutor.execute(() -> {
+                    fsyncQuietly(published);
+                    fsyncQuietly(published.getParent());
+                });
             }
-        } catch (java.net.MalformedURLException e) {
-            throw new RuntimeException("File not found " + filename, e);
+        });
+    }
+
+    private void fsyncQuietly(Path path) {
+        try {
+            fsync(path);
+        } catch (IOException e) {
+            logger.warn("Could not fsync {}: {}", path, e.getMessage());
+        }
+    }
+
+    // Force l'écriture sur disque d'un fichier ou d'un dossier (entrées créées ou renommées)
+    private static void fsync(Path path) throws IOException {
+        StandardOpenOption mode = Files.isDirectory(path) ? StandardOpenOption.READ : StandardOpenOption.WRITE;
+        try (FileChannel channel = FileChannel.open(path, mode)) {
+            channel.force(true);
+        }
+    }
+
+    // Empreinte SHA-256 d'un fichier déjà présent sur disque
+    private String digest(Path file) throws IOException {
+        MessageDigest messageDigest = sha256();
+        try (DigestInputStream digestStream = new DigestInputStream(Files.newInputStream(file), messageDigest)) {
+            digestStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Génère un nom unique pour éviter les collisions (UUID + nom d'origine)
+    private String generateFilename(String originalFilename) {
+        return UUID.randomUUID().toString() + "_" + originalFilename;
+    }
+
+    // Vérification de sécurité : empêche l'écriture en dehors du dossier prévu
+    // (Path Traversal) ou dans des sous-dossiers autres que ceux de la répartition
+    private void checkStoragePath(String storagePath) {
+        String filename = storagePath.substring(storagePath.lastIndexOf('/') + 1);
+        if (filename.length() < 2 * shardDepth || !storagePath.equals(shardedPath(filename))
+                || filename.equals(".") || filename.equals("..")) {
+            throw new RuntimeException("Cannot store file outside current directory.");
+        }
+    }
+
+    // Clé d'un contenu ; un fichier à plat déplacé par la migration reste
+    // accessible par son ancien chemin (caches, liens signés)
+    private String resolveKey(String storagePath) throws IOException {
+        if (shardDepth > 0 && storagePath.indexOf('/') < 0 && storageBackend.stat(storagePath).isEmpty()) {
+            String sharded = shardedPath(storagePath);
+            if (storageBackend.stat(sharded).isPresent()) {
+                return sharded;
+            }
+        }
+        return storagePath;
+    }
+
+    // L'identifiant d'upload est un UUID généré côté serveur
+    private Path resolveStaging(String uploadId) {
+        return this.stagingLocation.resolve(UUID.fromString(uploadId).toString() + STAGED_SUFFIX);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        syncExecutor.shutdown();
+    }
+
+    /**
+     * Upload écrit en zone de staging, en attente de publication.
+     *
+     * @param id          identifiant du staging
+     * @param storagePath chemin de stockage définitif (enregistré en base)
+     * @param content     contenu à publier (compressé le cas échéant)
+     * @param sha256      empreinte SHA-256 du contenu d'origine (hexadécimal)
+     * @param size        taille d'origine
+     */
+    public record StagedUpload(String id, String storagePath, Path content, String sha256, long size) {
+
+        // Contenu adressé par son empreinte (références comptées dans stored_blob)
+        public boolean isDeduplicated() {
+            return storagePath.startsWith(BLOB_DIR + "/");
         }
     }
 }
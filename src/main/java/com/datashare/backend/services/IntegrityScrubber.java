@@ -0,0 +1,218 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// === Imports métier ===
+import com.datashare.backend.storage.StoredObject;
+
+// === Imports I/O ===
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Vérification périodique de l'intégrité des fichiers stockés (scrubbing).
+ *
+ * - Relit par lots (pagination par ID) les fichiers dont l'empreinte SHA-256
+ *   a été enregistrée à l'upload, et compare l'empreinte recalculée
+ * - Contenu compressé au repos : vérifié après décompression (empreinte du
+ *   contenu d'origine)
+ * - Débit de lecture plafonné (datashare.app.scrub.maxBytesPerSecond) pour ne
+ *   pas concurrencer les téléchargements
+ *
+ * Les écarts (contenu corrompu ou absent) sont signalés dans les logs,
+ * aucune réparation n'est tentée. La position du parcours est gardée en
+ * mémoire : il reprend au début après un redémarrage. En cluster, chaque
+ * nœud vérifie ses propres fichiers (bail en base par nœud).
+ */
+@Service
+public class IntegrityScrubber {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntegrityScrubber.class);
+
+    // Bail par nœud ("integrity-scrub-node-1"...)
+    static final String LEASE_PREFIX = "integrity-scrub-";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final FileStorageService fileStorageService;
+
+    private final SchedulerLeaseService leaseService;
+
+    private final boolean clusterEnabled;
+
+    private final String nodeId;
+
+    @Value("${datashare.app.scrub.enabled:false}")
+    private boolean enabled;
+
+    @Value("${datashare.app.scrub.batchSize:100}")
+    private int batchSize;
+
+    // 0 : pas de limite
+    @Value("${datashare.app.scrub.maxBytesPerSecond:20971520}")
+    private long maxBytesPerSecond;
+
+    @Value("${datashare.app.scrub.leaseSeconds:600}")
+    private long leaseSeconds;
+
+    // Dernier ID vérifié (0 : début du parcours)
+    private volatile long cursor;
+
+    public IntegrityScrubber(JdbcTemplate jdbcTemplate, FileStorageService fileStorageService,
+            SchedulerLeaseService leaseService,
+            @Value("${datashare.app.cluster.enabled:false}") boolean clusterEnabled,
+            @Value("${datashare.app.cluster.nodeId:node-1}") String nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fileStorageService = fileStorageService;
+        this.leaseService = leaseService;
+        this.clusterEnabled = clusterEnabled;
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Vérifie le lot suivant de fichiers (toutes les minutes par défaut).
+     *
+     * @return le bilan du lot, vide si la vérification n'a pas eu lieu
+     */
+    @Scheduled(fixedDelayString = "${datashare.app.scrub.intervalMs:60000}")
+    public Optional<Report> scrub() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String lease = LEASE_PREFIX + nodeId;
+        if (!leaseService.tryAcquire(lease, Duration.ofSeconds(leaseSeconds))) {
+            return Optional.empty();
+        }
+        try {
+            List<Object> args = new ArrayList<>(List.of(cursor));
+            String nodeCondition = "";
+            if (clusterEnabled) {
+                nodeCondition = " AND (storage_node IS NULL OR storage_node = ?)";
+                args.add(nodeId);
+            }
+            args.add(batchSize);
+            List<Candidate> batch = jdbcTemplate.query(
+                    "SELECT id, storage_path, sha256 FROM file WHERE id > ? AND sha256 IS NOT NULL"
+                            + nodeCondition + " ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Candidate(rs.getLong(1), rs.getString(2), rs.getString(3)),
+                    args.toArray());
+
+            Report report = verifyBatch(batch);
+            // Fin de table : le parcours suivant reprend au début
+            cursor = batch.size() < batchSize ? 0 : batch.get(batch.size() - 1).id();
+            if (report.corrupted() > 0 || report.missing() > 0) {
+                logger.warn("Integrity scrub: {} file(s) checked, {} corrupted, {} missing",
+                        report.checked(), report.corrupted(), report.missing());
+            } else {
+                logger.debug("Integrity scrub: {} file(s) checked ({} bytes)", report.checked(), report.bytes());
+            }
+            return Optional.of(report);
+        } finally {
+            leaseService.release(lease);
+        }
+    }
+
+    private Report verifyBatch(List<Candidate> batch) {
+        long startNanos = System.nanoTime();
+        long[] bytes = {0};
+        int checked = 0;
+        int corrupted = 0;
+        int missing = 0;
+        for (Candidate candidate : batch) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                Optional<StoredObject> stored = fileStorageService.find(candidate.storagePath());
+                if (stored.isEmpty()) {
+                    missing++;
+                    logger.error("Integrity scrub: content of file {} missing ({})", candidate.id(),
+                            candidate.storagePath());
+                    continue;
+                }
+                String actual = digest(stored.get(), FileStorageService.isGzipped(candidate.storagePath()),
+                        startNanos, bytes);
+                checked++;
+                if (!actual.equalsIgnoreCase(candidate.sha256())) {
+                    corrupted++;
+                    logger.error("Integrity scrub: file {} ({}) corrupted, expected sha256 {} but read {}",
+                            candidate.id(), candidate.storagePath(), candidate.sha256(), actual);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Lecture impossible (fichier supprimé entre-temps...) : vérifié au prochain passage
+                logger.warn("Integrity scrub: could not read file {} ({}): {}", candidate.id(),
+                        candidate.storagePath(), e.getMessage());
+            }
+        }
+        return new Report(checked, corrupted, missing, bytes[0]);
+    }
+
+    // Empreinte du contenu d'origine, lu au débit maximal configuré
+    private String digest(StoredObject stored, boolean gzipped, long startNanos, long[] bytes) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream raw = stored.open();
+                InputStream in = gzipped ? new GZIPInputStream(raw, BUFFER_SIZE) : raw) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+                bytes[0] += read;
+                throttle(startNanos, bytes[0]);
+            }
+        }
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    // Attend que le volume lu depuis le début du lot respecte le débit maximal
+    private void throttle(long startNanos, long bytesRead) throws IOException {
+        if (maxBytesPerSecond <= 0) {
+            return;
+        }
+        long aheadNanos = (long) (bytesRead * 1e9 / maxBytesPerSecond) - (System.nanoTime() - startNanos);
+        if (aheadNanos > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(aheadNanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Integrity scrub interrupted", e);
+            }
+        }
+    }
+
+    private record Candidate(long id, String storagePath, String sha256) {
+    }
+
+    /**
+     * Bilan d'un lot de vérification.
+     *
+     * @param checked   fichiers relus entièrement
+     * @param corrupted fichiers dont l'empreinte ne correspond plus
+     * @param missing   fichiers absents du stockage
+     * @param bytes     volume lu
+     */
+    public record Report(int checked, int corrupted, int missing, long bytes) {
+    }
+}
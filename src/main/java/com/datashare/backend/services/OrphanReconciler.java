@@ -0,0 +1,402 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// === Imports I/O ===
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.PreparedStatement;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Réconciliation entre le dossier d'upload et la table file.
+ *
+ * Jointure par fusion (merge join) de deux flux triés dans le même ordre,
+ * sans ensemble complet en mémoire :
+ * - Parcours de l'arborescence, entrées de chaque dossier triées
+ * - Lecture en flux (curseur) des storage_path distincts, triés par PostgreSQL
+ *
+ * Écarts détectés :
+ * - Contenu orphelin : fichier sur disque sans ligne en base (arrêt entre la
+ *   suppression en base et sur disque, upload interrompu...)
+ * - Contenu manquant : ligne en base (de ce nœud) sans fichier sur disque,
+ *   signalé uniquement (aucune réparation possible)
+ *
+ * En mode réparation (datashare.app.reconcile.repair), les orphelins plus
+ * anciens que le délai de grâce sont supprimés après une nouvelle vérification
+ * en base, dans la limite de maxRepairs par passage. Le parcours est limité
+ * à maxFilesPerSecond entrées par seconde pour ne pas saturer le disque.
+ *
+ * Stockage sur système de fichiers uniquement ; en cluster, chaque nœud
+ * réconcilie son propre disque (bail en base par nœud).
+ */
+@Service
+public class OrphanReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrphanReconciler.class);
+
+    // Bail par nœud ("orphan-reconcile-node-1"...)
+    static final String LEASE_PREFIX = "orphan-reconcile-";
+
+    // Nombre d'écarts détaillés dans les logs, les suivants sont seulement comptés
+    private static final int LOGGED_EXAMPLES = 20;
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate scanTransaction;
+
+    private final SchedulerLeaseService leaseService;
+
+    private final Path rootLocation;
+
+    private final boolean filesystemBackend;
+
+    private final boolean clusterEnabled;
+
+    private final String nodeId;
+
+    @Value("${datashare.app.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${datashare.app.reconcile.repair:false}")
+    private boolean repair;
+
+    // Les fichiers plus récents peuvent appartenir à un upload en cours d'enregistrement
+    @Value("${datashare.app.reconcile.graceMinutes:60}")
+    private long graceMinutes;
+
+    // 0 : pas de limite
+    @Value("${datashare.app.reconcile.maxFilesPerSecond:2000}")
+    private int maxFilesPerSecond;
+
+    @Value("${datashare.app.reconcile.maxRepairs:1000}")
+    private int maxRepairs;
+
+    @Value("${datashare.app.reconcile.leaseSeconds:3600}")
+    private long leaseSeconds;
+
+    public OrphanReconciler(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            SchedulerLeaseService leaseService, @Value("${datashare.app.uploadDir}") String uploadDir,
+            @Value("${datashare.app.storage.backend:filesystem}") String backend,
+            @Value("${datashare.app.cluster.enabled:false}") boolean clusterEnabled,
+            @Value("${datashare.app.cluster.nodeId:node-1}") String nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.scanTransaction = new TransactionTemplate(transactionManager);
+        this.scanTransaction.setReadOnly(true);
+        this.leaseService = leaseService;
+        this.rootLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.filesystemBackend = "filesystem".equals(backend);
+        this.clusterEnabled = clusterEnabled;
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Exécuté chaque nuit (3h30 par défaut) par l'instance qui obtient le bail.
+     *
+     * @return le bilan, vide si la réconciliation n'a pas eu lieu
+     */
+    @Scheduled(cron = "${datashare.app.reconcile.cron:0 30 3 * * *}")
+    public Optional<Report> reconcile() {
+        if (!enabled || !filesystemBackend) {
+            return Optional.empty();
+        }
+        String lease = LEASE_PREFIX + nodeId;
+        if (!leaseService.tryAcquire(lease, Duration.ofSeconds(leaseSeconds))) {
+            return Optional.empty();
+        }
+        try {
+            Report report = run();
+            logger.info("Storage reconciliation: {} file(s) scanned, {} orphan(s) ({} bytes), "
+                    + "{} missing content(s), {} orphan(s) deleted",
+                    report.scanned(), report.orphans(), report.orphanBytes(), report.missing(), report.repaired());
+            return Optional.of(report);
+        } finally {
+            leaseService.release(lease);
+        }
+    }
+
+    private Report run() {
+        Scan scan = new Scan(new SortedTreeWalker(), System.currentTimeMillis() - graceMinutes * 60_000L);
+
+        // Curseur en lecture seule : les lignes arrivent par paquets de FETCH_SIZE
+        scanTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "SELECT storage_path, bool_or(NOT ? OR storage_node IS NULL OR storage_node = ?) "
+                                    + "FROM file GROUP BY storage_path "
+                                    + "ORDER BY translate(storage_path, '/', chr(1)) COLLATE \"C\"");
+                    statement.setBoolean(1, clusterEnabled);
+                    statement.setString(2, nodeId);
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                },
+                rs -> {
+                    scan.onStoragePath(rs.getString(1), rs.getBoolean(2));
+                }));
+        scan.drainDisk();
+
+        long repaired = 0;
+        for (DiskObject orphan : scan.repairCandidates) {
+            pace(scan);
+            if (deleteIfStillOrphan(orphan)) {
+                repaired++;
+            }
+        }
+        return new Report(scan.scanned, scan.orphans, scan.orphanBytes, scan.missing, repaired);
+    }
+
+    /**
+     * Supprime un orphelin après une nouvelle vérification en base (le fichier a
+     * pu être enregistré depuis le début du parcours).
+     *
+     * Un lien réparti (ab/cd/nom) créé par la migration reste référencé tant que
+     * la ligne porte encore le chemin à plat. L'inverse n'est pas vrai : un fichier
+     * à plat dont la ligne a déjà le chemin réparti est un reste de migration
+     * (suppression échouée dans StorageLayoutMigrator), donc un orphelin.
+     */
+    private boolean deleteIfStillOrphan(DiskObject orphan) {
+        String key = orphan.key();
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        Integer references = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM file WHERE storage_path IN (?, ?)", Integer.class, key, name);
+        if (references != null && references > 0) {
+            return false;
+        }
+        if (key.startsWith(FileStorageService.BLOB_DIR + "/")) {
+            // Contenu dédupliqué en cours de réutilisation par un upload
+            String digest = name.endsWith(FileStorageService.GZIP_SUFFIX)
+                    ? name.substring(0, name.length() - FileStorageService.GZIP_SUFFIX.length())
+                    : name;
+            Integer blobReferences = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM stored_blob WHERE digest = ? AND ref_count > 0", Integer.class, digest);
+            if (blobReferences != null && blobReferences > 0) {
+                return false;
+            }
+        }
+        try {
+            if (Files.deleteIfExists(orphan.path())) {
+                logger.info("Storage reconciliation: orphan {} deleted ({} bytes)", key, orphan.size());
+                return true;
+            }
+        } catch (IOException e) {
+            logger.error("Could not delete orphan {}: {}", key, e.getMessage());
+        }
+        return false;
+    }
+
+    // Limite le débit d'entrées traitées (parcours et réparations)
+    private void pace(Scan scan) {
+        scan.operations++;
+        if (maxFilesPerSecond <= 0 || scan.operations % 100 != 0) {
+            return;
+        }
+        long expectedMillis = scan.operations * 1000 / maxFilesPerSecond;
+        long elapsedMillis = (System.nanoTime() - scan.startNanos) / 1_000_000;
+        if (expectedMillis > elapsedMillis) {
+            try {
+                Thread.sleep(expectedMillis - elapsedMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Storage reconciliation interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * Ordre commun aux deux flux : octets UTF-8 non signés, "/" avant tout autre
+     * caractère (identique à translate(storage_path, '/', chr(1)) COLLATE "C",
+     * et à un parcours en profondeur dont chaque dossier est trié par nom).
+     */
+    static int compareKeys(String a, String b) {
+        return Arrays.compareUnsigned(sortKey(a), sortKey(b));
+    }
+
+    private static byte[] sortKey(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '/') {
+                bytes[i] = 1;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Bilan d'une réconciliation.
+     *
+     * @param scanned     fichiers parcourus sur disque
+     * @param orphans     fichiers sans ligne en base (hors délai de grâce)
+     * @param orphanBytes taille cumulée des orphelins
+     * @param missing     contenus référencés en base absents du disque
+     * @param repaired    orphelins supprimés
+     */
+    public record Report(long scanned, long orphans, long orphanBytes, long missing, long repaired) {
+    }
+
+    private record DiskObject(String key, Path path, long size, long lastModified) {
+    }
+
+    /**
+     * État de la jointure : le flux de la base pousse les storage_path, le
+     * parcours du disque est avancé jusqu'à chacun d'eux.
+     */
+    private final class Scan {
+
+        private final SortedTreeWalker disk;
+        private final long graceLimit;
+        private final long startNanos = System.nanoTime();
+        private final List<DiskObject> repairCandidates = new ArrayList<>();
+
+        private long operations;
+        private long scanned;
+        private long orphans;
+        private long orphanBytes;
+        private long missing;
+
+        private Scan(SortedTreeWalker disk, long graceLimit) {
+            this.disk = disk;
+            this.graceLimit = graceLimit;
+        }
+
+        private void onStoragePath(String storagePath, boolean local) {
+            while (disk.peek() != null && compareKeys(disk.peek().key(), storagePath) < 0) {
+                onOrphan(take());
+            }
+            if (disk.peek() != null && disk.peek().key().equals(storagePath)) {
+                take();
+            } else if (local) {
+                missing++;
+                if (missing <= LOGGED_EXAMPLES) {
+                    logger.warn("Storage reconciliation: content missing on disk for {}", storagePath);
+                }
+            }
+        }
+
+        private void drainDisk() {
+            while (disk.peek() != null) {
+                onOrphan(take());
+            }
+        }
+
+        private DiskObject take() {
+            pace(this);
+            scanned++;
+            return disk.next();
+        }
+
+        private void onOrphan(DiskObject object) {
+            if (object.lastModified() > graceLimit) {
+                return;
+            }
+            orphans++;
+            orphanBytes += object.size();
+            if (orphans <= LOGGED_EXAMPLES) {
+                logger.warn("Storage reconciliation: orphan content {} ({} bytes)", object.key(), object.size());
+            }
+            if (repair && repairCandidates.size() < maxRepairs) {
+                repairCandidates.add(object);
+            }
+        }
+    }
+
+    /**
+     * Parcours en profondeur du dossier d'upload, entrées de chaque dossier
+     * triées par nom : les clés sortent dans l'ordre de compareKeys. Seul le
+     * dossier en cours de parcours et ses ancêtres sont gardés en mémoire.
+     * La zone de staging et les fichiers temporaires sont ignorés.
+     */
+    private final class SortedTreeWalker implements Iterator<DiskObject> {
+
+        private final Deque<Iterator<Path>> stack = new ArrayDeque<>();
+        private DiskObject next;
+
+        private SortedTreeWalker() {
+            stack.push(sortedChildren(rootLocation));
+            next = advance();
+        }
+
+        private DiskObject peek() {
+            return next;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public DiskObject next() {
+            DiskObject current = next;
+            next = advance();
+            return current;
+        }
+
+        private DiskObject advance() {
+            while (!stack.isEmpty()) {
+                Iterator<Path> entries = stack.peek();
+                if (!entries.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                Path path = entries.next();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    continue; // supprimé depuis le listing du dossier
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not read " + path, e);
+                }
+                String name = path.getFileName().toString();
+                if (attributes.isDirectory()) {
+                    if (!path.getParent().equals(rootLocation) || !name.equals(FileStorageService.STAGING_DIR)) {
+                        stack.push(sortedChildren(path));
+                    }
+                } else if (attributes.isRegularFile() && !(name.startsWith(".") && name.endsWith(".tmp"))) {
+                    String key = rootLocation.relativize(path).toString().replace('\\', '/');
+                    return new DiskObject(key, path, attributes.size(), attributes.lastModifiedTime().toMillis());
+                }
+            }
+            return null;
+        }
+
+        private Iterator<Path> sortedChildren(Path directory) {
+            List<Path> children = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                stream.forEach(children::add);
+            } catch (NoSuchFileException e) {
+                return children.iterator();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not list " + directory, e);
+            }
+            children.sort((a, b) -> compareKeys(a.getFileName().toString(), b.getFileName().toString()));
+            return children.iterator();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service de quota de stockage par utilisateur (table user_quota).
+ *
+ * - reserve : ajoute la taille d'un fichier reçu, refusé au-delà du quota
+ * - release : retire la taille des fichiers supprimés (utilisateur ou nettoyage)
+ * - requireRoomFor : contrôle préalable sur la taille annoncée (Content-Length)
+ *
+ * Le compteur est maintenu de façon incrémentale : aucune somme des tailles
+ * n'est calculée à l'upload. Les mises à jour sont atomiques côté PostgreSQL
+ * (UPSERT conditionnel) et participent à la transaction de l'appelant : un
+ * upload annulé ne consomme pas de quota.
+ */
+@Service
+public class QuotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuotaService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Espace maximal par utilisateur (0 : sans limite, compteur tenu à jour quand même)
+    @Value("${datashare.app.quota.limit:10GB}")
+    private DataSize limit;
+
+    /**
+     * Dépassement du quota de stockage.
+     */
+    public static class QuotaExceededException extends RuntimeException {
+
+        public QuotaExceededException(long usedBytes, long limitBytes) {
+            super("Quota de stockage dépassé : " + DataSize.ofBytes(usedBytes).toMegabytes() + " Mo utilisés sur "
+                    + DataSize.ofBytes(limitBytes).toMegabytes() + " Mo");
+        }
+    }
+
+    /**
+     * Espace occupé par un utilisateur.
+     *
+     * @param usedBytes  taille cumulée de ses fichiers
+     * @param limitBytes quota (0 : sans limite)
+     */
+    public record Usage(long usedBytes, long limitBytes) {
+
+        /**
+         * Espace encore disponible (Long.MAX_VALUE sans limite).
+         */
+        public long remainingBytes() {
+            return limitBytes > 0 ? Math.max(limitBytes - usedBytes, 0) : Long.MAX_VALUE;
+        }
+    }
+
+    public QuotaService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Espace occupé par un utilisateur (lecture de son compteur).
+     *
+     * @param userId ID de l'utilisateur
+     */
+    public Usage usage(Long userId) {
+        List<Long> used = jdbcTemplate.queryForList("SELECT used_bytes FROM user_quota WHERE user_id = ?",
+                Long.class, userId);
+        return new Usage(used.isEmpty() ? 0 : used.get(0), limit.toBytes());
+    }
+
+    /**
+     * Contrôle préalable, avant la réception du contenu : refuse un upload
+     * dont la taille annoncée ne tient pas dans l'espace restant. La
+     * réservation (reserve) reste seule garante du quota.
+     *
+     * @param userId ID de l'utilisateur
+     * @param bytes  taille annoncée
+     * @throws QuotaExceededException si l'espace restant est insuffisant
+     */
+    public void requireRoomFor(Long userId, long bytes) {
+        Usage usage = usage(userId);
+        if (bytes > usage.remainingBytes()) {
+            throw new QuotaExceededException(usage.usedBytes(), usage.limitBytes());
+        }
+    }
+
+    /**
+     * Ajoute la taille d'un fichier au compteur de l'utilisateur, si le quota
+     * le permet. À appeler dans la transaction d'enregistrement du fichier.
+     *
+     * @param userId ID de l'utilisateur
+     * @param bytes  taille du fichier
+     * @throws QuotaExceededException si le fichier ne tient pas dans le quota
+     */
+    public void reserve(Long userId, long bytes) {
+        long limitBytes = limit.toBytes() > 0 ? limit.toBytes() : Long.MAX_VALUE;
+        // Incrément conditionnel : deux uploads concurrents ne peuvent pas dépasser ensemble le quota
+        int updated = bytes > limitBytes ? 0 : jdbcTemplate.update(
+                "INSERT INTO user_quota (user_id, used_bytes) VALUES (?, ?) "
+                        + "ON CONFLICT (user_id) DO UPDATE SET used_bytes = user_quota.used_bytes + EXCLUDED.used_bytes "
+                        + "WHERE user_quota.used_bytes <= ? - EXCLUDED.used_bytes",
+                userId, bytes, limitBytes);
+        if (updated == 0) {
+            throw new QuotaExceededException(usage(userId).usedBytes(), limit.toBytes());
+        }
+    }
+
+    /**
+     * Retire la taille d'un fichier supprimé du compteur de l'utilisateur.
+     *
+     * @param userId ID du propriétaire
+     * @param bytes  taille du fichier
+     */
+    public void release(Long userId, long bytes) {
+        jdbcTemplate.update("UPDATE user_quota SET used_bytes = GREATEST(used_bytes - ?, 0) WHERE user_id = ?",
+                bytes, userId);
+    }
+
+    /**
+     * Retire les tailles d'un lot de fichiers supprimés, cumulées par propriétaire.
+     *
+     * @param bytesByUser taille libérée par ID d'utilisateur
+     */
+    public void release(Map<Long, Long> bytesByUser) {
+        if (bytesByUser.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(bytesByUser.size());
+        bytesByUser.forEach((userId, bytes) -> args.add(new Object[] { bytes, userId }));
+        jdbcTemplate.batchUpdate("UPDATE user_quota SET used_bytes = GREATEST(used_bytes - ?, 0) WHERE user_id = ?",
+                args);
+    }
+
+    /**
+     * Initialise les compteurs des utilisateurs qui n'en ont pas encore
+     * (fichiers antérieurs à l'introduction du quota). Seuls les utilisateurs
+     * sans ligne sont calculés : les compteurs existants ne sont jamais recalculés.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeCounters() {
+        int created = jdbcTemplate.update("INSERT INTO user_quota (user_id, used_bytes) "
+                + "SELECT f.owner_id, COALESCE(SUM(f.size), 0) FROM file f WHERE f.owner_id IS NOT NULL "
+                + "AND NOT EXISTS (SELECT 1 FROM user_quota q WHERE q.user_id = f.owner_id) "
+                + "GROUP BY f.owner_id ON CONFLICT (user_id) DO NOTHING");
+        if (created > 0) {
+            logger.info("Storage quota: {} user counter(s) initialized", created);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+// === Utilitaires ===
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Baux (leases) des tâches planifiées, stockés dans la table scheduler_lease.
+ *
+ * - Acquisition atomique (UPSERT conditionnel) : un bail libre, expiré ou déjà
+ *   détenu par cette instance est pris, sinon l'acquisition échoue sans attente
+ * - Expiration évaluée avec l'horloge de PostgreSQL (pas de dérive entre nœuds)
+ * - Prolongation pendant les tâches longues, libération en fin de tâche
+ *
+ * Une instance arrêtée en cours de tâche ne bloque ses baux que jusqu'à leur
+ * expiration.
+ */
+@Service
+public class SchedulerLeaseService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Identité de cette instance (unique même si plusieurs instances partagent un nodeId)
+    private final String owner;
+
+    public SchedulerLeaseService(JdbcTemplate jdbcTemplate,
+            @Value("${datashare.app.cluster.nodeId:node-1}") String nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.owner = nodeId + "/" + UUID.randomUUID();
+    }
+
+    /**
+     * Tente d'acquérir (ou de prolonger) un bail.
+     *
+     * @param name nom du bail
+     * @param ttl  durée de validité
+     * @return vrai si cette instance détient le bail
+     */
+    public boolean tryAcquire(String name, Duration ttl) {
+        return jdbcTemplate.update(
+                "INSERT INTO scheduler_lease (name, owner, expires_at) "
+                        + "VALUES (?, ?, now() + ? * interval '1 millisecond') "
+                        + "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at "
+                        + "WHERE scheduler_lease.expires_at < now() OR scheduler_lease.owner = EXCLUDED.owner",
+                name, owner, ttl.toMillis()) == 1;
+    }
+
+    /**
+     * Prolonge un bail détenu par cette instance.
+     *
+     * @return faux si le bail a expiré et été repris par une autre instance
+     */
+    public boolean renew(String name, Duration ttl) {
+        return jdbcTemplate.update(
+                "UPDATE scheduler_lease SET expires_at = now() + ? * interval '1 millisecond' "
+                        + "WHERE name = ? AND owner = ?",
+                ttl.toMillis(), name, owner) == 1;
+    }
+
+    /**
+     * Libère un bail détenu par cette instance (immédiatement réacquérable).
+     */
+    public void release(String name) {
+        jdbcTemplate.update("UPDATE scheduler_lease SET expires_at = now() WHERE name = ? AND owner = ?",
+                name, owner);
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
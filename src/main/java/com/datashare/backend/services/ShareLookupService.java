@@ -0,0 +1,187 @@
+package com.datashare.backend.services;
+
+// === Imports métier ===
+import com.datashare.backend.cache.BoundedTtlCache;
+import com.datashare.backend.model.File;
+import com.datashare.backend.model.Share;
+import com.datashare.backend.repository.ShareRepository;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Résolution des tokens de partage avec cache mémoire.
+ *
+ * - Cache positif borné : token -> métadonnées du fichier partagé
+ * - Cache négatif court : tokens inconnus (limite l'impact des scans de tokens
+ *   aléatoires sur PostgreSQL)
+ * - Invalidation à la suppression d'un fichier (utilisateur ou nettoyage)
+ *
+ * Avec plusieurs instances, une suppression n'est invalidée que localement :
+ * les autres instances voient l'entrée jusqu'à expiration du TTL.
+ */
+@Service
+public class ShareLookupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShareLookupService.class);
+
+    private final ShareRepository shareRepository;
+
+    private final BoundedTtlCache<String, SharedFile> sharedFiles;
+
+    private final BoundedTtlCache<String, Boolean> unknownTokens;
+
+    public ShareLookupService(ShareRepository shareRepository,
+            @Value("${datashare.app.shareCache.maxSize:10000}") int maxSize,
+            @Value("${datashare.app.shareCache.ttlSeconds:60}") long ttlSeconds,
+            @Value("${datashare.app.shareCache.negativeTtlSeconds:10}") long negativeTtlSeconds) {
+        this.shareRepository = shareRepository;
+        this.sharedFiles = new BoundedTtlCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+        this.unknownTokens = new BoundedTtlCache<>(maxSize, negativeTtlSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Recherche le fichier associé à un token de partage.
+     *
+     * @param token token unique de partage
+     * @return les métadonnées du fichier partagé, vide si le token est inconnu
+     */
+    public Optional<SharedFile> find(String token) {
+        if (unknownTokens.getIfPresent(token) != null) {
+            return Optional.empty();
+        }
+        SharedFile sharedFile = sharedFiles.get(token,
+                key -> shareRepository.findByUniqueToken(key).map(SharedFile::from).orElse(null));
+        if (sharedFile == null) {
+            unknownTokens.put(token, Boolean.TRUE);
+        }
+        return Optional.ofNullable(sharedFile);
+    }
+
+    /**
+     * Retire du cache les partages des fichiers supprimés.
+     * Dans une transaction, l'invalidation est répétée après le commit (un
+     * chargement concurrent aurait pu remettre en cache l'état avant suppression).
+     *
+     * @param fileIds IDs des fichiers supprimés
+     */
+    public void invalidateFiles(Collection<Long> fileIds) {
+        Set<Long> ids = new HashSet<>(fileIds);
+        sharedFiles.invalidateIf(sharedFile -> ids.contains(sharedFile.getFileId()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sharedFiles.invalidateIf(sharedFile -> ids.contains(sharedFile.getFileId()));
+                }
+            });
+        }
+    }
+
+    /**
+     * Journalise les statistiques des caches.
+     */
+    @Scheduled(fixedRate = 3600000)
+    public void logStats() {
+        logger.info("Share cache: size={}, hits={}, misses={} / unknown tokens: size={}, hits={}",
+                sharedFiles.size(), sharedFiles.getHits(), sharedFiles.getMisses(),
+                unknownTokens.size(), unknownTokens.getHits());
+    }
+
+    /**
+     * Métadonnées immuables d'un fichier partagé (copie détachée de l'entité).
+     */
+    public static class SharedFile {
+        private final Long shareId;
+        private final Long fileId;
+        private final String storagePath;
+        private final String originalName;
+        private final Long size;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime expirationDate;
+        private final String storageNode;
+        private final String sha256;
+
+        public SharedFile(Long shareId, Long fileId, String storagePath, String originalName, Long size,
+                LocalDateTime createdAt, LocalDateTime expirationDate) {
+            this(shareId, fileId, storagePath, originalName, size, createdAt, expirationDate, null, null);
+        }
+
+        public SharedFile(Long shareId, Long fileId, String storagePath, String originalName, Long size,
+                LocalDateTime createdAt, LocalDateTime expirationDate, String storageNode, String sha256) {
+            this.shareId = shareId;
+            this.fileId = fileId;
+            this.storagePath = storagePath;
+            this.originalName = originalName;
+            this.size = size;
+            this.createdAt = createdAt;
+            this.expirationDate = expirationDate;
+            this.storageNode = storageNode;
+            this.sha256 = sha256;
+        }
+
+        public static SharedFile from(Share share) {
+            File file = share.getFile();
+            return new SharedFile(share.getId(), file.getId(), file.getStoragePath(), file.getOriginalName(),
+                    file.getSize(), file.getCreatedAt(), file.getExpirationDate(), file.getStorageNode(),
+                    file.getSha256());
+        }
+
+        // Vrai si la date d'expiration est dépassée
+        public boolean isExpired() {
+            return expirationDate != null && expirationDate.isBefore(LocalDateTime.now());
+        }
+
+        public Long getShareId() {
+            return shareId;
+        }
+
+        public Long getFileId() {
+            return fileId;
+        }
+
+        public String getStoragePath() {
+            return storagePath;
+        }
+
+        public String getOriginalName() {
+            return originalName;
+        }
+
+        public Long getSize() {
+            return size;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public LocalDateTime getExpirationDate() {
+            return expirationDate;
+        }
+
+        // Nœud du cluster qui détient le contenu (null : non enregistré, ex. lien signé)
+        public String getStorageNode() {
+            return storageNode;
+        }
+
+        // Empreinte SHA-256 du contenu d'origine (null : inconnue, ex. lien signé)
+        public String getSha256() {
+            return sha256;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.datashare.backend.services;
+
+// === Imports métier ===
+import com.datashare.backend.services.ShareLookupService.SharedFile;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Liens de téléchargement signés (mode optionnel).
+ *
+ * Le lien contient lui-même les métadonnées du fichier partagé (ID du partage,
+ * ID et chemin du fichier, nom, taille, dates) et une signature HMAC-SHA256 :
+ * ShareController le vérifie et sert le fichier sans aucune requête en base.
+ *
+ * - Lien falsifié ou expiré : rejeté localement
+ * - Révocation (suppression du fichier avant expiration) : ensemble compact
+ *   d'IDs de partage en mémoire, rechargé périodiquement depuis la table
+ *   revoked_share (délai de propagation entre instances = intervalle de
+ *   rechargement)
+ *
+ * Format : base64url(payload) "." base64url(HMAC(payload)).
+ */
+@Service
+public class SignedLinkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignedLinkService.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    // Version du format de payload
+    private static final byte FORMAT_VERSION = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${datashare.app.signedLinks.enabled:false}")
+    private boolean enabled;
+
+    // Secret dédié ; à défaut, le secret JWT
+    @Value("${datashare.app.signedLinks.secret:${datashare.app.jwtSecret:}}")
+    private String secret;
+
+    private SecretKeySpec key;
+
+    // Mac n'est pas thread-safe : une instance par thread
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    // IDs des partages révoqués, triés (recherche dichotomique, remplacé en bloc)
+    private volatile long[] revokedShareIds = new long[0];
+
+    public SignedLinkService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+            refreshRevocations();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Génère le lien signé d'un fichier partagé (valide jusqu'à son expiration).
+     */
+    public String sign(SharedFile file) {
+        byte[] payload = encode(file);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(mac.get().doFinal(payload));
+    }
+
+    /**
+     * Vérifie un lien signé : signature, révocation et format.
+     * L'expiration n'est pas contrôlée ici (le contrôleur répond alors 410).
+     *
+     * @param signedToken lien signé reçu
+     * @return le fichier partagé, vide si le lien est invalide ou révoqué
+     */
+    public Optional<SharedFile> verify(String signedToken) {
+        int separator = signedToken.indexOf('.');
+        if (!enabled || separator < 0) {
+            return Optional.empty();
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(signedToken.substring(0, separator));
+            byte[] signature = decoder.decode(signedToken.substring(separator + 1));
+
+            // Comparaison en temps constant
+            if (!MessageDigest.isEqual(mac.get().doFinal(payload), signature)) {
+                return Optional.empty();
+            }
+            SharedFile file = decode(payload);
+            if (Arrays.binarySearch(revokedShareIds, file.getShareId()) >= 0) {
+                return Optional.empty();
+            }
+            return Optional.of(file);
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Révoque les liens signés de partages supprimés avant leur expiration.
+     *
+     * @param shareIds  IDs des partages
+     * @param expiresAt expiration des liens (fin de validité de la révocation)
+     */
+    public void revoke(Collection<Long> shareIds, LocalDateTime expiresAt) {
+        if (!enabled || shareIds.isEmpty() || expiresAt == null || expiresAt.isBefore(LocalDateTime.now())) {
+            return;
+        }
+        List<Object[]> rows = shareIds.stream()
+                .map(id -> new Object[] { id, Timestamp.valueOf(expiresAt) })
+                .toList();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO revoked_share (share_id, expires_at) VALUES (?, ?) ON CONFLICT (share_id) DO NOTHING",
+                rows);
+
+        // Effet immédiat sur cette instance
+        synchronized (this) {
+            long[] updated = Arrays.copyOf(revokedShareIds, revokedShareIds.length + shareIds.size());
+            int i = revokedShareIds.length;
+            for (Long id : shareIds) {
+                updated[i++] = id;
+            }
+            Arrays.sort(updated);
+            revokedShareIds = updated;
+        }
+    }
+
+    /**
+     * Recharge l'ensemble des partages révoqués et purge les révocations
+     * devenues inutiles (liens expirés).
+     */
+    @Scheduled(fixedDelayString = "${datashare.app.signedLinks.revocationRefreshMs:30000}")
+    public void refreshRevocations() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("DELETE FROM revoked_share WHERE expires_at < now()");
+            long[] ids = jdbcTemplate.queryForList("SELECT share_id FROM revoked_share", Long.class)
+                    .stream().mapToLong(Long::longValue).sorted().toArray();
+            synchronized (this) {
+                revokedShareIds = ids;
+            }
+        } catch (RuntimeException e) {
+            // Base indisponible : l'ensemble courant reste en vigueur
+            logger.error("Could not refresh revoked shares: {}", e.getMessage());
+        }
+    }
+
+    // Sérialisation compacte des métadonnées (dates en UTC)
+    private byte[] encode(SharedFile file) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(file.getShareId());
+            out.writeLong(file.getFileId());
+            out.writeLong(file.getSize() != null ? file.getSize() : -1L);
+            out.writeLong(epochMillis(file.getCreatedAt()));
+            out.writeLong(epochMillis(file.getExpirationDate()));
+            out.writeUTF(file.getStoragePath());
+            out.writeUTF(file.getOriginalName());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode signed link", e);
+        }
+    }
+
+    private SharedFile decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readByte() != FORMAT_VERSION) {
+            throw new IOException("Unsupported signed link version");
+        }
+        long shareId = in.readLong();
+        long fileId = in.readLong();
+        long size = in.readLong();
+        LocalDateTime createdAt = fromEpochMillis(in.readLong());
+        LocalDateTime expirationDate = fromEpochMillis(in.readLong());
+        String storagePath = in.readUTF();
+        String originalName = in.readUTF();
+        return new SharedFile(shareId, fileId, storagePath, originalName, size >= 0 ? size : null, createdAt,
+                expirationDate);
+    }
+
+    private long epochMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toInstant(ZoneOffset.UTC).toEpochMilli() : Long.MIN_VALUE;
+    }
+
+    private LocalDateTime fromEpochMillis(long millis) {
+        return millis != Long.MIN_VALUE
+                ? LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(millis), ZoneOffset.UTC)
+                : null;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC not available", e);
+        }
+    }
+}
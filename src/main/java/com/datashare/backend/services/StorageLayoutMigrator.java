@@ -0,0 +1,115 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// === Utilitaires ===
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.List;
+
+/**
+ * Migration en ligne des fichiers stockés à plat vers la répartition en
+ * sous-dossiers (datashare.app.storage.shardDepth).
+ *
+ * Traite un lot de fichiers à chaque exécution, sans interrompre le service :
+ * 1. Lien physique du fichier sous son nouveau chemin (aucune copie)
+ * 2. Mise à jour de storage_path (conditionnée à l'ancien chemin)
+ * 3. Suppression de l'ancien chemin
+ *
+ * Pendant et après la migration, les anciens chemins encore présents dans les
+ * caches ou les liens signés restent résolus par FileStorageService.
+ * Les contenus dédupliqués (blobs/ab/...) sont déjà répartis et ne sont pas
+ * concernés, de même que le stockage objet (S3).
+ */
+@Service
+public class StorageLayoutMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageLayoutMigrator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final FileStorageService fileStorageService;
+
+    @Value("${datashare.app.storage.migration.enabled:false}")
+    private boolean enabled;
+
+    @Value("${datashare.app.storage.shardDepth:0}")
+    private int shardDepth;
+
+    @Value("${datashare.app.storage.migration.batchSize:500}")
+    private int batchSize;
+
+    // Dernier ID traité (les fichiers absents du disque ne sont pas retraités)
+    private long lastId;
+
+    // Vrai une fois tous les fichiers à plat traités
+    private volatile boolean completed;
+
+    public StorageLayoutMigrator(JdbcTemplate jdbcTemplate, FileStorageService fileStorageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fileStorageService = fileStorageService;
+    }
+
+    /**
+     * Migre un lot de fichiers à plat.
+     *
+     * @return nombre de fichiers déplacés
+     */
+    @Scheduled(fixedDelayString = "${datashare.app.storage.migration.intervalMs:1000}")
+    public synchronized int migrateBatch() {
+        if (!enabled || shardDepth <= 0 || completed || !fileStorageService.isFilesystemStorage()) {
+            return 0;
+        }
+        List<Object[]> batch = jdbcTemplate.query(
+                "SELECT id, storage_path FROM file WHERE id > ? AND storage_path NOT LIKE '%/%' ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getString(2) },
+                lastId, batchSize);
+        if (batch.isEmpty()) {
+            completed = true;
+            logger.info("Storage layout migration completed");
+            return 0;
+        }
+
+        int moved = 0;
+        for (Object[] row : batch) {
+            long id = (Long) row[0];
+            String storagePath = (String) row[1];
+            lastId = id;
+            try {
+                if (relocate(id, storagePath)) {
+                    moved++;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Could not relocate file {} ({}): {}", id, storagePath, e.getMessage());
+            }
+        }
+        logger.info("Storage layout migration: {} file(s) relocated, last id {}", moved, lastId);
+        return moved;
+    }
+
+    // Déplace un fichier ; l'ancien chemin n'est supprimé qu'une fois la base à jour
+    private boolean relocate(long id, String storagePath) {
+        String sharded = fileStorageService.linkToShardedPath(storagePath);
+        if (sharded == null) {
+            logger.warn("File {} not found on disk: {}", id, storagePath);
+            return false;
+        }
+        int updated = jdbcTemplate.update("UPDATE file SET storage_path = ? WHERE id = ? AND storage_path = ?",
+                sharded, id, storagePath);
+        if (updated == 0) {
+            // Fichier supprimé entre-temps : le nouveau lien est retiré
+            fileStorageService.delete(sharded);
+            return false;
+        }
+        fileStorageService.delete(storagePath);
+        return true;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+}
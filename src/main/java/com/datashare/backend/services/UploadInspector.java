@@ -0,0 +1,253 @@
+package com.datashare.backend.services;
+
+// === Imports Spring ===
+import org.springframework.stereotype.Component;
+
+// === Imports I/O ===
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// === Utilitaires ===
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Contrôle des fichiers reçus, avant toute écriture dans le stockage.
+ *
+ * - Extension du nom d'origine (refus immédiat, sur l'en-tête de l'upload)
+ * - Contenu : les premiers octets du flux sont examinés au passage (octets
+ *   magiques des exécutables PE/ELF/Mach-O, installeurs MSI, scripts "#!"),
+ *   sans lire le reste du fichier
+ *
+ * Le contrôle du contenu ne dépend ni du nom ni du Content-Type fournis par le
+ * client : un exécutable renommé en .pdf est refusé dès ses premiers Ko, avant
+ * que le reste de l'upload ne soit écrit.
+ */
+@Component
+public class UploadInspector {
+
+    // Nombre d'octets examinés en tête de contenu
+    static final int HEADER_SIZE = 4096;
+
+    // Extensions interdites pour des raisons de sécurité
+    private static final Set<String> FORBIDDEN_EXTENSIONS = Set.of(
+            "exe", "msi", "bat", "cmd", "ps1", "vbs", "js", "jar", "com", "scr", "dll", "sys");
+
+    // Signature d'un fichier composé OLE (MSI, mais aussi .doc/.xls historiques)
+    private static final int[] OLE_SIGNATURE = { 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1 };
+
+    // CLSID de l'entrée racine d'un installeur (000C1084-...) ou d'un correctif (000C1086-...)
+    // Windows Installer, dans l'ordre des octets du fichier
+    private static final int[] MSI_CLSID_TAIL = { 0x0C, 0x00, 0x00, 0x00, 0x00, 0x00, 0xC0, 0x00,
+            0x00, 0x00, 0x00, 0x00, 0x00, 0x46 };
+
+    /**
+     * Refus d'un contenu d'après ses premiers octets.
+     */
+    public static class RejectedContentException extends IllegalArgumentException {
+
+        public RejectedContentException(String type) {
+            super("Contenu non supporté : " + type);
+        }
+    }
+
+    /**
+     * Extension interdite du nom d'origine.
+     *
+     * @param originalFilename nom du fichier envoyé (peut être null)
+     * @return l'extension (en minuscules) si elle est interdite
+     */
+    public Optional<String> forbiddenExtension(String originalFilename) {
+        if (originalFilename == null) {
+            return Optional.empty();
+        }
+        int i = originalFilename.lastIndexOf('.');
+        if (i <= 0) {
+            return Optional.empty();
+        }
+        String extension = originalFilename.substring(i + 1).toLowerCase(Locale.ROOT);
+        return FORBIDDEN_EXTENSIONS.contains(extension) ? Optional.of(extension) : Optional.empty();
+    }
+
+    /**
+     * Flux contrôlé : à la première lecture, les HEADER_SIZE premiers octets sont
+     * lus et examinés ; aucun octet n'est rendu si le contenu est refusé
+     * (RejectedContentException). Le reste du flux est transmis tel quel.
+     *
+     * @param in contenu reçu
+     * @return flux à copier vers le stockage
+     */
+    public InputStream inspect(InputStream in) {
+        return new InspectingInputStream(in);
+    }
+
+    /**
+     * Contrôle d'un contenu déjà écrit, sur ses HEADER_SIZE premiers octets
+     * (upload fragmenté : l'en-tête peut être réparti sur plusieurs chunks).
+     *
+     * @param content fichier à examiner
+     * @throws RejectedContentException si le contenu est refusé
+     */
+    public void inspect(Path content) throws IOException {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(content)) {
+            header = in.readNBytes(HEADER_SIZE);
+        }
+        Optional<String> executable = detectExecutable(header, header.length);
+        if (executable.isPresent()) {
+            throw new RejectedContentException(executable.get());
+        }
+    }
+
+    /**
+     * Type d'exécutable reconnu dans les premiers octets d'un contenu.
+     *
+     * @param header premiers octets du contenu
+     * @param length nombre d'octets valides dans header
+     * @return la description du type refusé, vide si le contenu est accepté
+     */
+    public Optional<String> detectExecutable(byte[] header, int length) {
+        // BOM UTF-8 ignoré pour les scripts
+        int text = startsWith(header, length, 0, 0xEF, 0xBB, 0xBF) ? 3 : 0;
+        if (startsWith(header, length, text, '#', '!')) {
+            return Optional.of("script (#!)");
+        }
+        if (startsWith(header, length, 0, 0x7F, 'E', 'L', 'F')) {
+            return Optional.of("exécutable ELF");
+        }
+        if (startsWith(header, length, 0, 0xFE, 0xED, 0xFA, 0xCE)
+                || startsWith(header, length, 0, 0xFE, 0xED, 0xFA, 0xCF)
+                || startsWith(header, length, 0, 0xCE, 0xFA, 0xED, 0xFE)
+                || startsWith(header, length, 0, 0xCF, 0xFA, 0xED, 0xFE)
+                || startsWith(header, length, 0, 0xCA, 0xFE, 0xBA, 0xBE)) {
+            return Optional.of("exécutable Mach-O ou classe Java");
+        }
+        if (isPortableExecutable(header, length)) {
+            return Optional.of("exécutable Windows (PE)");
+        }
+        if (isWindowsInstaller(header, length)) {
+            return Optional.of("installeur Windows (MSI)");
+        }
+        return Optional.empty();
+    }
+
+    // En-tête DOS "MZ" dont le champ e_lfanew pointe sur la signature "PE\0\0"
+    private boolean isPortableExecutable(byte[] header, int length) {
+        if (length < 64 || !startsWith(header, length, 0, 'M', 'Z')) {
+            return false;
+        }
+        long peOffset = readInt(header, 0x3C);
+        return peOffset >= 64 && peOffset <= length - 4
+                && startsWith(header, length, (int) peOffset, 'P', 'E', 0, 0);
+    }
+
+    // Fichier composé OLE dont l'entrée racine porte le CLSID de Windows Installer.
+    // Seule une entrée racine comprise dans les premiers octets peut être vérifiée ;
+    // les autres MSI restent refusés par leur extension.
+    private boolean isWindowsInstaller(byte[] header, int length) {
+        if (length < 0x34 || !startsWith(header, length, 0, OLE_SIGNATURE)) {
+            return false;
+        }
+        int sectorShift = (header[0x1E] & 0xFF) | (header[0x1F] & 0xFF) << 8;
+        long directorySector = readInt(header, 0x30);
+        if (sectorShift != 9 && sectorShift != 12) {
+            return false;
+        }
+        long clsid = ((directorySector + 1) << sectorShift) + 0x50;
+        if (clsid + 16 > length) {
+            return false;
+        }
+        int offset = (int) clsid;
+        int product = header[offset] & 0xFF;
+        return (header[offset + 1] & 0xFF) == 0x10 && (product == 0x84 || product == 0x86)
+                && startsWith(header, length, offset + 2, MSI_CLSID_TAIL);
+    }
+
+    // Entier 32 bits non signé, petit-boutiste
+    private static long readInt(byte[] header, int offset) {
+        return (header[offset] & 0xFFL) | (header[offset + 1] & 0xFFL) << 8 | (header[offset + 2] & 0xFFL) << 16
+                | (header[offset + 3] & 0xFFL) << 24;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, int... magic) {
+        if (offset < 0 || length - offset < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Flux retenant les premiers octets jusqu'à leur examen
+    private final class InspectingInputStream extends InputStream {
+
+        private final InputStream in;
+
+        private byte[] header;
+
+        private int length;
+
+        private int position;
+
+        // Refus conservé : les lectures suivantes échouent aussi
+        private RejectedContentException rejection;
+
+        private InspectingInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            inspectHeader();
+            if (position < length) {
+                return header[position++] & 0xFF;
+            }
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            inspectHeader();
+            if (position < length) {
+                int count = Math.min(len, length - position);
+                System.arraycopy(header, position, b, off, count);
+                position += count;
+                return count;
+            }
+            return in.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return header == null ? 0 : length - position + in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private void inspectHeader() throws IOException {
+            if (rejection != null) {
+                throw rejection;
+            }
+            if (header != null) {
+                return;
+            }
+            byte[] read = in.readNBytes(HEADER_SIZE);
+            Optional<String> executable = detectExecutable(read, read.length);
+            if (executable.isPresent()) {
+                rejection = new RejectedContentException(executable.get());
+                throw rejection;
+            }
+            header = read;
+            length = read.length;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.datashare.backend.services;
+
+// === Imports Servlet API ===
+import jakarta.servlet.http.HttpServletResponse;
+
+// === Imports Spring ===
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+// === Imports I/O ===
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Composant d'écriture d'une archive ZIP de plusieurs fichiers, construite à la
+ * volée dans la réponse HTTP.
+ *
+ * - Aucune archive intermédiaire (ni sur disque, ni en mémoire) : chaque fichier
+ *   est copié directement dans le flux de sortie, par blocs
+ * - Formats déjà compressés (images, vidéos, archives, documents Office...) :
+ *   entrées DEFLATED sans compression (blocs recopiés tels quels). Contrairement
+ *   à une entrée STORED, la taille et le CRC sont écrits après les données : le
+ *   fichier n'est lu qu'une fois
+ * - Autres formats : entrées DEFLATED (niveau rapide)
+ * - Noms d'entrées issus des noms d'origine : séparateurs "/" et "\" remplacés,
+ *   aucune entrée ne peut être extraite hors du dossier de destination
+ *
+ * La taille de l'archive n'est pas connue à l'avance : la réponse est envoyée
+ * en chunked transfer encoding.
+ */
+@Component
+public class ZipDownloadWriter {
+
+    // Extensions dont le contenu est déjà compressé
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "zst",
+            "jpg", "jpeg", "png", "gif", "webp", "heic",
+            "mp3", "aac", "ogg", "flac", "m4a",
+            "mp4", "mkv", "avi", "mov", "webm",
+            "pdf", "docx", "xlsx", "pptx", "odt", "ods", "odp", "epub");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Fichier à inclure dans l'archive.
+     *
+     * @param name    nom de l'entrée (nom d'origine du fichier)
+     * @param source  ouverture du contenu stocké
+     * @param gzipped contenu stocké compressé (décompressé dans l'archive)
+     */
+    public record ZipItem(String name, ContentCompressor.ContentSource source, boolean gzipped) {
+
+        public ZipItem(String name, Path path) {
+            this(name, () -> Files.newInputStream(path), false);
+        }
+
+        // Flux du contenu d'origine
+        InputStream open() throws IOException {
+            InputStream in = source.open();
+            return gzipped ? ContentCompressor.decompress(in) : in;
+        }
+    }
+
+    /**
+     * Envoie l'archive dans la réponse HTTP (en-têtes positionnés ici).
+     *
+     * @param items       fichiers à inclure
+     * @param archiveName nom de l'archive proposé au navigateur
+     * @param response    réponse HTTP
+     */
+    public void write(List<ZipItem> items, String archiveName, HttpServletResponse response) throws IOException {
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archiveName + "\"");
+        write(items, response.getOutputStream());
+    }
+
+    /**
+     * Écrit l'archive dans un flux (le flux n'est pas fermé).
+     *
+     * @param items fichiers à inclure
+     * @param out   flux de destination
+     */
+    public void write(List<ZipItem> items, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        Set<String> usedNames = new HashSet<>();
+
+        for (ZipItem item : items) {
+            ZipEntry entry = new ZipEntry(uniqueName(entryName(item.name()), usedNames));
+            // Niveau appliqué à l'entrée suivante (descripteur de données : une seule lecture)
+            zip.setLevel(isCompressed(item.name()) ? Deflater.NO_COMPRESSION : Deflater.BEST_SPEED);
+            zip.putNextEntry(entry);
+            try (InputStream in = item.open()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                }
+            }
+            zip.closeEntry();
+        }
+        // Écrit le répertoire central sans fermer le flux de la réponse
+        zip.finish();
+        zip.flush();
+    }
+
+    // Vrai si l'extension correspond à un format déjà compressé
+    static boolean isCompressed(String name) {
+        int i = name.lastIndexOf('.');
+        return i > 0 && COMPRESSED_EXTENSIONS.contains(name.substring(i + 1).toLowerCase(Locale.ROOT));
+    }
+
+    // Nom d'entrée sans chemin : un nom d'origine ne peut pas créer de dossier ni
+    // remonter hors de la destination ("..", "/", "\")
+    static String entryName(String name) {
+        String entryName = name.replace('/', '_').replace('\\', '_');
+        return entryName.isBlank() || entryName.equals(".") || entryName.equals("..") ? "fichier" : entryName;
+    }
+
+    // Deux fichiers de même nom : suffixe " (n)" avant l'extension
+    private String uniqueName(String name, Set<String> usedNames) {
+        String candidate = name;
+        int i = name.lastIndexOf('.');
+        String base = i > 0 ? name.substring(0, i) : name;
+        String extension = i > 0 ? name.substring(i) : "";
+        for (int n = 1; !usedNames.add(candidate); n++) {
+            candidate = base + " (" + n + ")" + extension;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,110 @@
+package com.datashare.backend.storage;
+
+// === Imports Spring ===
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+// === Imports I/O ===
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stockage réparti sur les nœuds du cluster (datashare.app.cluster.enabled).
+ *
+ * - Écriture sur le nœud propriétaire de la clé (hachage cohérent) : stockage
+ *   local, ou envoi en streaming à l'API interne du nœud distant
+ * - Lecture, métadonnées et suppression : stockage local d'abord (contenu placé
+ *   ici, y compris avant un changement de topologie), sinon nœud propriétaire
+ *
+ * Chaque nœud conserve son stockage sur le système de fichiers local.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "datashare.app.cluster.enabled", havingValue = "true")
+public class ClusterStorageBackend implements StorageBackend {
+
+    private final StorageCluster cluster;
+
+    private final FilesystemStorageBackend local;
+
+    private final Map<String, RemoteStorageBackend> remotes = new LinkedHashMap<>();
+
+    public ClusterStorageBackend(StorageCluster cluster, FilesystemStorageBackend local) {
+        this.cluster = cluster;
+        this.local = local;
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (String node : cluster.getNodes()) {
+            if (!cluster.isLocal(node)) {
+                remotes.put(node, new RemoteStorageBackend(httpClient, cluster.nodeUrl(node), cluster.getToken()));
+            }
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length) throws IOException {
+        owner(key).put(key, in, length);
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        owner(key).putFile(key, source);
+    }
+
+    @Override
+    public InputStream get(String key, long start, long length) throws IOException {
+        return holder(key).get(key, start, length);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        if (local.delete(key)) {
+            return true;
+        }
+        StorageBackend owner = owner(key);
+        return owner != local && owner.delete(key);
+    }
+
+    @Override
+    public Optional<ObjectStat> stat(String key) throws IOException {
+        Optional<ObjectStat> stat = local.stat(key);
+        if (stat.isPresent()) {
+            return stat;
+        }
+        StorageBackend owner = owner(key);
+        return owner != local ? owner.stat(key) : Optional.empty();
+    }
+
+    /**
+     * Le contenu résolu reste lié au stockage qui le détient : un contenu local
+     * est envoyé en zéro-copie, un contenu distant est relayé en streaming.
+     */
+    @Override
+    public Optional<StoredObject> find(String key) throws IOException {
+        Optional<StoredObject> found = local.find(key);
+        if (found.isPresent()) {
+            return found;
+        }
+        StorageBackend owner = owner(key);
+        return owner != local ? owner.find(key) : Optional.empty();
+    }
+
+    // Stockage du nœud propriétaire de la clé selon l'anneau
+    private StorageBackend owner(String key) {
+        String node = cluster.ownerOf(key);
+        return cluster.isLocal(node) ? local : remotes.get(node);
+    }
+
+    // Stockage local s'il détient la clé, sinon celui du nœud propriétaire
+    private StorageBackend holder(String key) throws IOException {
+        return local.stat(key).isPresent() ? local : owner(key);
+    }
+}
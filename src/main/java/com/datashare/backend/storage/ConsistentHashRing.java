@@ -0,0 +1,66 @@
+package com.datashare.backend.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Anneau de hachage cohérent : associe chaque clé de stockage à un nœud.
+ *
+ * Chaque nœud est placé sur l'anneau en plusieurs points (nœuds virtuels) pour
+ * équilibrer la répartition. L'ajout ou le retrait d'un nœud ne déplace
+ * qu'environ 1/N des clés (celles des segments qu'il reprend ou libère).
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    private final List<String> nodes;
+
+    /**
+     * @param nodes        identifiants des nœuds
+     * @param virtualNodes nombre de points par nœud sur l'anneau
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("Hash ring needs at least one node and one virtual node");
+        }
+        this.nodes = List.copyOf(nodes);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Nœud propriétaire d'une clé : premier point de l'anneau à partir du hash
+     * de la clé (retour au début de l'anneau si besoin).
+     */
+    public String nodeFor(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    // 64 premiers bits du MD5 (répartition uniforme, pas d'usage cryptographique)
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.datashare.backend.storage;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// === Imports I/O ===
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stockage sur le système de fichiers local (dossier datashare.app.uploadDir).
+ *
+ * - Écritures dans un fichier temporaire puis déplacement atomique
+ * - Clés résolues sous le dossier racine uniquement (Path Traversal)
+ * - Expose le fichier local pour l'envoi zéro-copie
+ */
+@Component
+@ConditionalOnProperty(name = "datashare.app.storage.backend", havingValue = "filesystem", matchIfMissing = true)
+public class FilesystemStorageBackend implements StorageBackend {
+
+    private final Path rootLocation;
+
+    public FilesystemStorageBackend(@Value("${datashare.app.uploadDir}") String uploadDir) {
+        this.rootLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length) throws IOException {
+        Path destination = resolve(key);
+        Files.createDirectories(destination.getParent());
+        Path temp = destination.resolveSibling("." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.copy(in, temp);
+            Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        Path destination = resolve(key);
+        Files.createDirectories(destination.getParent());
+        Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public InputStream get(String key, long start, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(start);
+        InputStream in = Channels.newInputStream(channel);
+        return length < 0 ? in : new RangeInputStream(in, length);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<ObjectStat> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ObjectStat(attributes.size(), attributes.lastModifiedTime().toMillis()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    /**
+     * Crée un lien physique (même contenu, sans copie) d'une clé vers une autre.
+     * Utilisé par la migration de la répartition en sous-dossiers.
+     */
+    public void link(String existingKey, String newKey) throws IOException {
+        Path destination = resolve(newKey);
+        Files.createDirectories(destination.getParent());
+        Files.createLink(destination, resolve(existingKey));
+    }
+
+    // Chemin physique d'une clé, refusé hors du dossier racine
+    private Path resolve(String key) {
+        Path path = rootLocation.resolve(key).normalize();
+        if (!path.startsWith(rootLocation) || path.equals(rootLocation)) {
+            throw new IllegalArgumentException("Storage key outside root directory: " + key);
+        }
+        return path;
+    }
+
+    // Limite la lecture à la longueur de la plage demandée
+    private static final class RangeInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
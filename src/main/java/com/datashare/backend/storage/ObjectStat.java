@@ -0,0 +1,10 @@
+package com.datashare.backend.storage;
+
+/**
+ * Métadonnées d'un contenu stocké.
+ *
+ * @param size         taille en octets
+ * @param lastModified date de dernière modification (epoch, millisecondes)
+ */
+public record ObjectStat(long size, long lastModified) {
+}
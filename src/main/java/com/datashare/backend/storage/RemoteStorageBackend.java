@@ -0,0 +1,127 @@
+package com.datashare.backend.storage;
+
+// === Imports I/O ===
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Accès au stockage local d'un autre nœud du cluster via son API interne
+ * (/internal/storage, protégée par le secret partagé du cluster).
+ *
+ * Les contenus sont transmis en streaming dans les deux sens (aucune mise en
+ * mémoire complète).
+ */
+public class RemoteStorageBackend implements StorageBackend {
+
+    /**
+     * Chemin de l'API interne de stockage.
+     */
+    public static final String API_PATH = "/internal/storage";
+
+    /**
+     * En-têtes des métadonnées retournées par HEAD.
+     */
+    public static final String SIZE_HEADER = "X-Storage-Size";
+    public static final String LAST_MODIFIED_HEADER = "X-Storage-Last-Modified";
+
+    private final HttpClient httpClient;
+
+    private final String baseUrl;
+
+    private final String token;
+
+    /**
+     * @param httpClient client HTTP partagé
+     * @param baseUrl    URL de base du nœud distant
+     * @param token      secret partagé du cluster
+     */
+    public RemoteStorageBackend(HttpClient httpClient, String baseUrl, String token) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.token = token;
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length) throws IOException {
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofInputStream(() -> in);
+        if (length >= 0) {
+            body = HttpRequest.BodyPublishers.fromPublisher(body, length);
+        }
+        expect(send(request(key, "").PUT(body).build(), HttpResponse.BodyHandlers.discarding()), key, 204);
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        HttpRequest request = request(key, "").PUT(HttpRequest.BodyPublishers.ofFile(source)).build();
+        expect(send(request, HttpResponse.BodyHandlers.discarding()), key, 204);
+        Files.delete(source);
+    }
+
+    @Override
+    public InputStream get(String key, long start, long length) throws IOException {
+        HttpRequest request = request(key, "&start=" + start + "&length=" + length).GET().build();
+        HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            expect(response, key, 200);
+        }
+        return response.body();
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        HttpResponse<Void> response = send(request(key, "").DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        expect(response, key, 204);
+        return true;
+    }
+
+    @Override
+    public Optional<ObjectStat> stat(String key) throws IOException {
+        HttpRequest request = request(key, "").method("HEAD", HttpRequest.BodyPublishers.noBody()).build();
+        HttpResponse<Void> response = send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        expect(response, key, 200);
+        try {
+            return Optional.of(new ObjectStat(
+                    Long.parseLong(response.headers().firstValue(SIZE_HEADER).orElseThrow()),
+                    Long.parseLong(response.headers().firstValue(LAST_MODIFIED_HEADER).orElseThrow())));
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid metadata from storage node " + baseUrl + " for " + key, e);
+        }
+    }
+
+    private HttpRequest.Builder request(String key, String query) {
+        URI uri = URI.create(baseUrl + API_PATH + "?key=" + URLEncoder.encode(key, StandardCharsets.UTF_8) + query);
+        return HttpRequest.newBuilder(uri).header(StorageCluster.TOKEN_HEADER, token);
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling storage node " + baseUrl);
+        }
+    }
+
+    private void expect(HttpResponse<?> response, String key, int status) throws IOException {
+        if (response.statusCode() != status) {
+            throw new IOException("Storage node " + baseUrl + " returned " + response.statusCode() + " for " + key);
+        }
+    }
+}
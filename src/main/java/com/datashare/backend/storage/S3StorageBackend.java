@@ -0,0 +1,168 @@
+package com.datashare.backend.storage;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PreDestroy;
+
+// === Imports AWS SDK ===
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+// === Imports I/O ===
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stockage objet compatible S3 (AWS S3, MinIO, Ceph RGW...).
+ *
+ * - Contenus jusqu'à la taille d'une partie : un seul PUT
+ * - Au-delà (ou taille inconnue) : upload multipart, une partie en mémoire à la
+ *   fois, abandonné proprement en cas d'erreur
+ * - Lectures par plage (GET avec en-tête Range)
+ *
+ * Permet de faire tourner plusieurs instances du backend sans état devant un
+ * stockage partagé. Activé par datashare.app.storage.backend=s3.
+ */
+@Component
+@ConditionalOnProperty(name = "datashare.app.storage.backend", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+
+    // Taille minimale d'une partie imposée par S3 (sauf la dernière)
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client client;
+
+    private final String bucket;
+
+    private final int partSize;
+
+    public S3StorageBackend(
+            @Value("${datashare.app.storage.s3.endpoint:}") String endpoint,
+            @Value("${datashare.app.storage.s3.region:us-east-1}") String region,
+            @Value("${datashare.app.storage.s3.bucket}") String bucket,
+            @Value("${datashare.app.storage.s3.accessKey}") String accessKey,
+            @Value("${datashare.app.storage.s3.secretKey}") String secretKey,
+            @Value("${datashare.app.storage.s3.pathStyle:true}") boolean pathStyle,
+            @Value("${datashare.app.storage.s3.partSizeMb:8}") int partSizeMb) {
+        this(buildClient(endpoint, region, accessKey, secretKey, pathStyle), bucket, partSizeMb * 1024 * 1024);
+    }
+
+    public S3StorageBackend(S3Client client, String bucket, int partSize) {
+        this.client = client;
+        this.bucket = bucket;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length) throws IOException {
+        byte[] buffer = new byte[partSize];
+        int read = in.readNBytes(buffer, 0, partSize);
+
+        // Contenu tenant dans une partie : PUT simple
+        if (read < partSize || (length >= 0 && length == read)) {
+            client.putObject(PutObjectRequest.builder().bucket(bucket).key(key).contentLength((long) read).build(),
+                    RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, read), read));
+            return;
+        }
+
+        String uploadId = client.createMultipartUpload(
+                CreateMultipartUploadRequest.builder().bucket(bucket).key(key).build()).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int partNumber = 1;
+            while (read > 0) {
+                String eTag = client.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucket).key(key).uploadId(uploadId)
+                        .partNumber(partNumber).contentLength((long) read).build(),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, read), read)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                partNumber++;
+                read = in.readNBytes(buffer, 0, partSize);
+            }
+            client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            // Libère les parties déjà envoyées (facturées tant que l'upload reste ouvert)
+            client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId).build());
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long start, long length) throws IOException {
+        if (length == 0) {
+            return InputStream.nullInputStream();
+        }
+        GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(key);
+        if (start > 0 || length > 0) {
+            request.range("bytes=" + start + "-" + (length > 0 ? String.valueOf(start + length - 1) : ""));
+        }
+        return client.getObject(request.build());
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        if (stat(key).isEmpty()) {
+            return false;
+        }
+        client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        return true;
+    }
+
+    @Override
+    public Optional<ObjectStat> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return Optional.of(new ObjectStat(head.contentLength(), head.lastModified().toEpochMilli()));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        client.close();
+    }
+
+    private static S3Client buildClient(String endpoint, String region, String accessKey, String secretKey,
+            boolean pathStyle) {
+        var builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(accessKey, secretKey)))
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isBlank()) {
+            // Stockage compatible S3 (MinIO...) : endpoint explicite
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+}
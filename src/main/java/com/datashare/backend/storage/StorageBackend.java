@@ -0,0 +1,82 @@
+package com.datashare.backend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Abstraction du stockage des contenus (système de fichiers local, stockage
+ * objet compatible S3...).
+ *
+ * Les clés sont les chemins de stockage enregistrés en base (storage_path), avec
+ * "/" comme séparateur. Les implémentations doivent rendre une écriture visible
+ * de façon atomique (jamais de contenu partiel lisible).
+ */
+public interface StorageBackend {
+
+    /**
+     * Écrit un contenu sous la clé (remplace un contenu existant).
+     *
+     * @param key    clé de stockage
+     * @param in     contenu
+     * @param length taille du contenu, -1 si inconnue
+     */
+    void put(String key, InputStream in, long length) throws IOException;
+
+    /**
+     * Transfère un fichier local (staging) sous la clé ; le fichier source est
+     * consommé (déplacé ou supprimé après envoi).
+     *
+     * @param key    clé de stockage
+     * @param source fichier local complet
+     */
+    default void putFile(String key, Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            put(key, in, Files.size(source));
+        }
+        Files.delete(source);
+    }
+
+    /**
+     * Lit une plage du contenu.
+     *
+     * @param key    clé de stockage
+     * @param start  position du premier octet
+     * @param length nombre d'octets, -1 pour lire jusqu'à la fin
+     * @return flux de la plage (à fermer par l'appelant)
+     */
+    InputStream get(String key, long start, long length) throws IOException;
+
+    /**
+     * Supprime un contenu.
+     *
+     * @return false si la clé n'existait pas
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Métadonnées d'un contenu.
+     *
+     * @return vide si la clé n'existe pas
+     */
+    Optional<ObjectStat> stat(String key) throws IOException;
+
+    /**
+     * Fichier local correspondant à la clé, si le stockage est local (permet
+     * l'envoi zéro-copie via sendfile).
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * Résout un contenu existant.
+     *
+     * @return vide si la clé n'existe pas
+     */
+    default Optional<StoredObject> find(String key) throws IOException {
+        return stat(key).map(stat -> new StoredObject(this, key, stat));
+    }
+}
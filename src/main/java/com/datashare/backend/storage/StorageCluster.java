@@ -0,0 +1,171 @@
+package com.datashare.backend.storage;
+
+// === Imports Spring ===
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// === Utilitaires ===
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Topologie du cluster de stockage (plusieurs instances, chacune avec son
+ * dossier d'upload local).
+ *
+ * - Liste des nœuds (identifiant -> URL de base) et identifiant du nœud local
+ * - Placement des contenus par hachage cohérent de la clé de stockage
+ * - Routage des téléchargements vers le nœud qui détient le contenu
+ * - Secret partagé de l'API interne entre nœuds (/internal/storage), dédié :
+ *   obligatoire quand le cluster est activé
+ *
+ * Désactivé par défaut : une instance unique stocke tout localement.
+ */
+@Component
+public class StorageCluster {
+
+    /**
+     * En-tête portant le secret partagé sur l'API interne.
+     */
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+
+    private final boolean enabled;
+
+    private final String localNodeId;
+
+    private final Map<String, String> nodeUrls;
+
+    private final ConsistentHashRing ring;
+
+    private final String secret;
+
+    private final boolean redirectDownloads;
+
+    public StorageCluster(@Value("${datashare.app.cluster.enabled:false}") boolean enabled,
+            @Value("${datashare.app.cluster.nodeId:node-1}") String localNodeId,
+            @Value("${datashare.app.cluster.nodes:}") String nodes,
+            @Value("${datashare.app.cluster.virtualNodes:128}") int virtualNodes,
+            @Value("${datashare.app.cluster.secret:}") String secret,
+            @Value("${datashare.app.cluster.redirectDownloads:true}") boolean redirectDownloads) {
+        this.enabled = enabled;
+        this.localNodeId = localNodeId;
+        this.nodeUrls = parseNodes(nodes);
+        this.secret = secret;
+        this.redirectDownloads = redirectDownloads;
+        if (!enabled) {
+            this.ring = null;
+            return;
+        }
+        // Secret propre au cluster : la clé de signature des JWT n'est jamais transmise aux autres nœuds
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException(
+                    "datashare.app.cluster.secret must be set when the storage cluster is enabled");
+        }
+        if (!nodeUrls.containsKey(localNodeId)) {
+            throw new IllegalStateException(
+                    "Local node " + localNodeId + " is missing from datashare.app.cluster.nodes");
+        }
+        this.ring = new ConsistentHashRing(nodeUrls.keySet(), virtualNodes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    /**
+     * Nœud propriétaire d'une clé de stockage (nœud local si le cluster est
+     * désactivé).
+     */
+    public String ownerOf(String key) {
+        return enabled ? ring.nodeFor(key) : localNodeId;
+    }
+
+    /**
+     * Nœud à enregistrer avec un nouveau fichier (File.storageNode), null si le
+     * cluster est désactivé.
+     */
+    public String placementOf(String key) {
+        return enabled ? ring.nodeFor(key) : null;
+    }
+
+    /**
+     * Identifiants des nœuds déclarés.
+     */
+    public Set<String> getNodes() {
+        return nodeUrls.keySet();
+    }
+
+    public boolean isLocal(String nodeId) {
+        return localNodeId.equals(nodeId);
+    }
+
+    /**
+     * URL de base d'un nœud (ex : http://10.0.0.2:8080).
+     */
+    public String nodeUrl(String nodeId) {
+        String url = nodeUrls.get(nodeId);
+        if (url == null) {
+            throw new IllegalArgumentException("Unknown storage node: " + nodeId);
+        }
+        return url;
+    }
+
+    /**
+     * URL de base du nœud vers lequel rediriger un téléchargement (nœud
+     * enregistré pour le fichier).
+     *
+     * @param storageNode nœud enregistré (null : fichier antérieur au cluster ou
+     *                    lien signé)
+     * @return vide si le contenu est local, si le nœud n'est pas connu ou si la
+     *         redirection est désactivée : le contenu est alors relayé par ce
+     *         nœud (disque local, sinon nœud propriétaire selon l'anneau)
+     */
+    public Optional<String> redirectTarget(String storageNode) {
+        if (!enabled || !redirectDownloads || storageNode == null || isLocal(storageNode)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(nodeUrls.get(storageNode));
+    }
+
+    /**
+     * Secret partagé transmis aux autres nœuds.
+     */
+    public String getToken() {
+        return secret;
+    }
+
+    /**
+     * Vérifie le secret présenté sur l'API interne (comparaison en temps constant).
+     */
+    public boolean isAuthorized(String token) {
+        return enabled && token != null && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Format : "node-1=http://host1:8080,node-2=http://host2:8080"
+    private static Map<String, String> parseNodes(String nodes) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String entry : nodes.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalStateException("Invalid cluster node entry: " + entry.trim());
+            }
+            String url = entry.substring(separator + 1).trim();
+            while (url.endsWith("/")) {
+                url = url.substring(0, url.length() - 1);
+            }
+            urls.put(entry.substring(0, separator).trim(), url);
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,50 @@
+package com.datashare.backend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Contenu stocké résolu (clé, métadonnées et accès au backend), utilisé pour
+ * le téléchargement.
+ */
+public final class StoredObject {
+
+    private final StorageBackend backend;
+    private final String key;
+    private final ObjectStat stat;
+
+    public StoredObject(StorageBackend backend, String key, ObjectStat stat) {
+        this.backend = backend;
+        this.key = key;
+        this.stat = stat;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getSize() {
+        return stat.size();
+    }
+
+    public long getLastModified() {
+        return stat.lastModified();
+    }
+
+    // Fichier local (stockage sur disque), vide pour un stockage distant
+    public Optional<Path> getLocalPath() {
+        return backend.localPath(key);
+    }
+
+    // Flux d'une plage du contenu (length = -1 : jusqu'à la fin)
+    public InputStream open(long start, long length) throws IOException {
+        return backend.get(key, start, length);
+    }
+
+    // Flux du contenu complet
+    public InputStream open() throws IOException {
+        return backend.get(key, 0, -1);
+    }
+}
@@ -0,0 +1,122 @@
+package com.datashare.backend.benchmark;
+
+import com.datashare.backend.security.jwt.AuthTokenFilter;
+import com.datashare.backend.security.jwt.JwtUtils;
+import com.datashare.backend.security.services.UserDetailsCache;
+import com.datashare.backend.security.services.UserDetailsImpl;
+import com.datashare.backend.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de la validation JWT dans AuthTokenFilter (coût par requête
+ * authentifiée).
+ *
+ * - legacyDoubleParse : ancien chemin (clé et parser reconstruits, token parsé
+ *   deux fois : validation puis lecture du sujet)
+ * - parseJwtClaims : clé et parser construits au démarrage, un seul parsing
+ * - filter : passage complet dans le filtre, compte vérifié via le cache des
+ *   utilisateurs (hit, sans base de données : cas courant)
+ * - filterClaimsOnly : passage complet dans le filtre, vérification désactivée
+ *   (principal construit depuis les seuls claims)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    private static final String SECRET = "ThisIsASecretKeyForBenchmarkThatIsLongEnoughToSatisfyHS256";
+
+    private JwtUtils jwtUtils;
+
+    private AuthTokenFilter authTokenFilter;
+
+    private AuthTokenFilter claimsOnlyFilter;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000);
+        jwtUtils.init();
+
+        UserDetailsImpl user = new UserDetailsImpl(1L, "bench@test.com", "hash");
+        token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null));
+
+        // Utilisateur déjà en cache : aucune requête en base pendant la mesure
+        UserDetailsCache userDetailsCache = new UserDetailsCache(10000, 300);
+        userDetailsCache.get(user.getUsername(), email -> user);
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(null, userDetailsCache, null);
+        authTokenFilter = new AuthTokenFilter(jwtUtils, userDetailsService, true);
+        claimsOnlyFilter = new AuthTokenFilter(jwtUtils, userDetailsService, false);
+    }
+
+    @Benchmark
+    public String legacyDoubleParse() {
+        Jwts.parserBuilder().setSigningKey(legacyKey()).build().parse(token);
+        return Jwts.parserBuilder().setSigningKey(legacyKey()).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String parseJwtClaims() {
+        return jwtUtils.parseJwtClaims(token).getSubject();
+    }
+
+    @Benchmark
+    public Object filter() throws ServletException, IOException {
+        return doFilter(authTokenFilter);
+    }
+
+    @Benchmark
+    public Object filterClaimsOnly() throws ServletException, IOException {
+        return doFilter(claimsOnlyFilter);
+    }
+
+    private Object doFilter(AuthTokenFilter filter) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    // Clé reconstruite à chaque appel, comme avant l'optimisation
+    private Key legacyKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuthTokenFilterBenchmark.class.getSimpleName())
+                // Temps CPU et allocations par opération, en plus du temps écoulé
+                .addProfiler(ProcessCpuProfiler.class)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
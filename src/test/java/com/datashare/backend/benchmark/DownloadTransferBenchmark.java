@@ -0,0 +1,171 @@
+package com.datashare.backend.benchmark;
+
+import com.datashare.backend.services.FileDownloadWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.UrlResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH du chemin de téléchargement (temps, CPU et allocations par Go servi).
+ *
+ * - urlResourceCopy : ancien chemin (UrlResource + copie par blocs de 8 Ko,
+ *   comme ResourceHttpMessageConverter)
+ * - transferToStream : premier chemin sans sendfile (FileChannel.transferTo vers
+ *   le flux de sortie), remplacé par bufferedCopy
+ * - bufferedCopy : FileDownloadWriter sans sendfile (copie par blocs de 256 Ko)
+ * - sendfile : transferTo vers la socket, chemin noyau utilisé par sendfile
+ *
+ * Chaque opération envoie un fichier de 1 Go (cache disque chaud) sur une
+ * connexion TCP locale, lue par un processus séparé (Drain) : son temps CPU
+ * n'est pas compté. Les chemins sans sendfile écrivent dans un flux opaque,
+ * comme le flux de sortie d'une réponse servlet.
+ *
+ * Le temps moyen par opération est un temps écoulé ; le coût CPU par Go est
+ * donné par ProcessCpuProfiler (cpu.time.norm), les allocations par GCProfiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DownloadTransferBenchmark {
+
+    private static final long FILE_SIZE = 1L << 30; // 1 Go
+
+    private final FileDownloadWriter fileDownloadWriter = new FileDownloadWriter();
+
+    private Path file;
+
+    private Process drain;
+
+    private SocketChannel socket;
+
+    private OutputStream responseStream;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("datashare-bench", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            for (long written = 0; written < FILE_SIZE; written += buffer.capacity()) {
+                buffer.clear();
+                channel.write(buffer);
+            }
+        }
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()
+                .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+            drain = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), Drain.class.getName(), String.valueOf(port))
+                    .inheritIO()
+                    .start();
+            socket = server.accept();
+        }
+
+        // Flux opaque : ni FileOutputStream ni canal reconnus par le JDK
+        OutputStream socketStream = socket.socket().getOutputStream();
+        responseStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                socketStream.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                socketStream.write(b, off, len);
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        socket.close();
+        drain.waitFor();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long urlResourceCopy() throws IOException {
+        try (InputStream in = new UrlResource(file.toUri()).getInputStream()) {
+            return StreamUtils.copy(in, responseStream);
+        }
+    }
+
+    @Benchmark
+    public long transferToStream() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return transferTo(channel, Channels.newChannel(responseStream));
+        }
+    }
+
+    @Benchmark
+    public long bufferedCopy() throws IOException {
+        fileDownloadWriter.transfer(file, 0, FILE_SIZE, responseStream);
+        return FILE_SIZE;
+    }
+
+    @Benchmark
+    public long sendfile() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return transferTo(channel, socket);
+        }
+    }
+
+    private static long transferTo(FileChannel channel, WritableByteChannel target) throws IOException {
+        long position = 0;
+        while (position < FILE_SIZE) {
+            position += channel.transferTo(position, FILE_SIZE - position, target);
+        }
+        return position;
+    }
+
+    /**
+     * Client lisant et jetant tout ce qu'il reçoit (processus séparé).
+     */
+    public static class Drain {
+
+        public static void main(String[] args) throws IOException {
+            try (SocketChannel channel = SocketChannel.open(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0])))) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+                while (channel.read(buffer) >= 0) {
+                    buffer.clear();
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DownloadTransferBenchmark.class.getSimpleName())
+                // Temps CPU et allocations par opération, en plus du temps écoulé
+                .addProfiler(ProcessCpuProfiler.class)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,65 @@
+package com.datashare.backend.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profiler JMH du temps CPU consommé par opération (option -prof).
+ *
+ * Mesure le temps CPU du processus du benchmark (utilisateur + noyau, tous
+ * threads : benchmark, JIT et GC compris) pendant chaque itération, divisé par
+ * le nombre d'opérations mesurées. Contrairement au temps moyen (temps écoulé),
+ * ce résultat ne compte pas les attentes et inclut le travail fait par le
+ * noyau (copie sendfile / transferTo) et par le GC.
+ *
+ * Résultat : cpu.time.norm, dans l'unité de temps du benchmark par opération.
+ */
+public class ProcessCpuProfiler implements InternalProfiler {
+
+    private final com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    private long startCpuNanos;
+
+    @Override
+    public String getDescription() {
+        return "Process CPU time (user + system) per operation";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        startCpuNanos = os.getProcessCpuTime();
+    }
+
+    @Override
+    public List<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+            IterationResult result) {
+        long cpuNanos = os.getProcessCpuTime() - startCpuNanos;
+        long ops = result.getMetadata().getMeasuredOps();
+        if (ops == 0) {
+            return List.of();
+        }
+        TimeUnit unit = benchmarkParams.getTimeUnit();
+        double perOp = (double) cpuNanos / ops / unit.toNanos(1);
+        return List.of(new ScalarResult("cpu.time.norm", perOp, label(unit) + "/op", AggregationPolicy.AVG));
+    }
+
+    private static String label(TimeUnit unit) {
+        return switch (unit) {
+            case NANOSECONDS -> "ns";
+            case MICROSECONDS -> "us";
+            case MILLISECONDS -> "ms";
+            case SECONDS -> "s";
+            default -> unit.name().toLowerCase();
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.datashare.backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour BoundedTtlCache.
+ * Vérifie la borne de taille (LRU), l'expiration, l'invalidation et les compteurs.
+ */
+public class BoundedTtlCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    /**
+     * Le second accès est servi par le cache (hit), sans rechargement.
+     */
+    @Test
+    public void testHitAfterMiss() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 1, TimeUnit.MINUTES, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", key -> "value-" + loads.incrementAndGet());
+        String value = cache.get("a", key -> "value-" + loads.incrementAndGet());
+
+        assertEquals("value-1", value);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    /**
+     * Une entrée expirée est rechargée.
+     */
+    @Test
+    public void testExpiredEntryReloaded() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 1, TimeUnit.MINUTES, now::get);
+        cache.get("a", key -> "old");
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        assertEquals("new", cache.get("a", key -> "new"));
+        assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * Au-delà de la taille maximale, l'entrée la moins récemment utilisée est évincée.
+     */
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(2, 1, TimeUnit.MINUTES, now::get);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a", key -> "reloaded"); // "a" devient la plus récente
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals("A", cache.get("a", key -> "reloaded"));
+        assertEquals("reloaded", cache.get("b", key -> "reloaded"));
+    }
+
+    /**
+     * L'invalidation par condition supprime les entrées correspondantes.
+     */
+    @Test
+    public void testInvalidateIf() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 1, TimeUnit.MINUTES, now::get);
+        cache.put("a", "keep");
+        cache.put("b", "drop");
+
+        cache.invalidateIf("drop"::equals);
+
+        assertEquals(1, cache.size());
+        assertEquals("keep", cache.get("a", key -> null));
+    }
+
+    /**
+     * Une valeur chargée null n'est pas mise en cache.
+     */
+    @Test
+    public void testNullNotCached() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 1, TimeUnit.MINUTES, now::get);
+
+        assertNull(cache.get("a", key -> null));
+        assertEquals(0, cache.size());
+    }
+}
@@ -3,27 +3,39 @@ package com.datashare.backend.controllers;
 import com.datashare.backend.model.AppUser;
 import com.datashare.backend.model.File;
 import com.datashare.backend.model.Share;
+import com.datashare.backend.payload.response.FileResponse;
 import com.datashare.backend.repository.AppUserRepository;
 import com.datashare.backend.repository.FileRepository;
+import com.datashare.backend.repository.FileSort;
 import com.datashare.backend.repository.ShareRepository;
+import com.datashare.backend.security.services.UserDetailsImpl;
+import com.datashare.backend.services.ExpirationScheduler;
 import com.datashare.backend.services.FileStorageService;
+import com.datashare.backend.services.FileStorageService.StagedUpload;
+import com.datashare.backend.services.QuotaService;
+import com.datashare.backend.services.ShareLookupService;
+import com.datashare.backend.services.SignedLinkService;
+import com.datashare.backend.services.UploadInspector;
+import com.datashare.backend.services.ZipDownloadWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Collections;
-import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -53,14 +65,35 @@ public class FileControllerIT {
     @Mock
     ShareRepository shareRepository;
 
+    @Mock
+    ShareLookupService shareLookupService;
+
+    @Mock
+    SignedLinkService signedLinkService;
+
+    @Mock
+    ZipDownloadWriter zipDownloadWriter;
+
+    @Mock
+    ExpirationScheduler expirationScheduler;
+
+    @Mock
+    TransactionTemplate uploadTransaction;
+
+    @Spy
+    UploadInspector uploadInspector = new UploadInspector();
+
+    @Mock
+    QuotaService quotaService;
+
     @Mock
     SecurityContext securityContext;
 
     @Mock
     Authentication authentication;
 
-    @Mock
-    UserDetails userDetails;
+    // Principal construit depuis le JWT (ID + email)
+    UserDetailsImpl userDetails = new UserDetailsImpl(1L, "test@test.com", null);
 
     @InjectMocks
     FileController fileController;
@@ -81,8 +114,7 @@ public class FileControllerIT {
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(userDetails);
-        when(userDetails.getUsername()).thenReturn("test@test.com");
-        lenient().when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(mockUser));
+        lenient().when(userRepository.getReferenceById(1L)).thenReturn(mockUser);
     }
 
     /**
@@ -94,7 +126,10 @@ public class FileControllerIT {
         mockAuthentication();
 
         MockMultipartFile file = new MockMultipartFile("file", "test.txt", "text/plain", "content".getBytes());
-        when(fileStorageService.store(any())).thenReturn("path/to/test.txt");
+        when(fileStorageService.stage(any())).thenReturn(
+                new StagedUpload("id", "path/to/test.txt", Path.of("id.part"), null, 7L));
+        when(uploadTransaction.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(null));
         when(fileRepository.save(any(File.class))).thenAnswer(i -> {
             File f = i.getArgument(0);
             f.setId(10L);
@@ -108,6 +143,7 @@ public class FileControllerIT {
                 .andExpect(jsonPath("$.shareToken").exists());
 
         verify(fileRepository, times(1)).save(any(File.class));
+        verify(fileStorageService).publishOnCommit(any(StagedUpload.class));
         verify(shareRepository, times(1)).save(any(Share.class));
     }
 
@@ -118,18 +154,11 @@ public class FileControllerIT {
     public void testGetListFiles_Success() throws Exception {
         mockAuthentication();
 
-        File file = new File();
-        file.setId(10L);
-        file.setOriginalName("test.txt");
-        file.setOwner(mockUser);
-        file.setCreatedAt(LocalDateTime.now());
-
-        Share share = new Share();
-        share.setUniqueToken("token-123");
-        share.setDownloadCount(5);
+        FileResponse file = new FileResponse(10L, "test.txt", 123L, LocalDateTime.now(),
+                LocalDateTime.now().plusDays(1), "token-123", 5);
 
-        when(fileRepository.findByOwnerId(1L)).thenReturn(Collections.singletonList(file));
-        when(shareRepository.findByFileId(10L)).thenReturn(Optional.of(share));
+        when(fileRepository.findFileResponsesPage(1L, FileSort.CREATED_AT, false, null, 101))
+                .thenReturn(Collections.singletonList(file));
 
         mockMvc.perform(get("/api/files"))
                 .andExpect(status().isOk())
@@ -3,9 +3,23 @@ package com.datashare.backend.controllers;
 import com.datashare.backend.model.AppUser;
 import com.datashare.backend.model.File;
 import com.datashare.backend.repository.AppUserRepository;
+import com.datashare.backend.repository.FileCursor;
 import com.datashare.backend.repository.FileRepository;
+import com.datashare.backend.repository.FileSort;
 import com.datashare.backend.repository.ShareRepository;
+import com.datashare.backend.security.services.UserDetailsImpl;
+import com.datashare.backend.services.ExpirationScheduler;
 import com.datashare.backend.services.FileStorageService;
+import com.datashare.backend.services.FileStorageService.StagedUpload;
+import com.datashare.backend.services.QuotaService;
+import com.datashare.backend.services.QuotaService.QuotaExceededException;
+import com.datashare.backend.services.QuotaService.Usage;
+import com.datashare.backend.services.ShareLookupService;
+import com.datashare.backend.services.SignedLinkService;
+import com.datashare.backend.services.UploadInspector;
+import com.datashare.backend.services.UploadInspector.RejectedContentException;
+import com.datashare.backend.services.ZipDownloadWriter;
+import com.datashare.backend.payload.response.FileResponse;
 import com.datashare.backend.payload.response.MessageResponse;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -13,25 +27,40 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
  * Tests Unitaires pour FileController.
@@ -53,6 +82,27 @@ public class FileControllerTest {
     @Mock
     private ShareRepository shareRepository;
 
+    @Mock
+    private ShareLookupService shareLookupService;
+
+    @Mock
+    private SignedLinkService signedLinkService;
+
+    @Mock
+    private ZipDownloadWriter zipDownloadWriter;
+
+    @Mock
+    private ExpirationScheduler expirationScheduler;
+
+    @Mock
+    private TransactionTemplate uploadTransaction;
+
+    @Spy
+    private UploadInspector uploadInspector = new UploadInspector();
+
+    @Mock
+    private QuotaService quotaService;
+
     @InjectMocks
     private FileController fileController;
 
@@ -62,12 +112,13 @@ public class FileControllerTest {
     @Mock
     private Authentication authentication;
 
-    @Mock
-    private UserDetails userDetails;
+    // Principal construit depuis le JWT (ID + email)
+    private final UserDetailsImpl userDetails = new UserDetailsImpl(1L, "test@test.com", null);
 
     @BeforeEach
     public void setUp() {
         SecurityContextHolder.setContext(securityContext);
+        ReflectionTestUtils.setField(fileController, "maxFileSize", DataSize.ofMegabytes(1));
     }
 
     /**
@@ -102,16 +153,18 @@ public class FileControllerTest {
         // Mock Security Context
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
         lenient().when(authentication.getPrincipal()).thenReturn(userDetails);
-        lenient().when(userDetails.getUsername()).thenReturn("test@test.com");
 
         // Mock User
         AppUser mockUser = new AppUser();
         mockUser.setId(1L);
         mockUser.setEmail("test@test.com");
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(mockUser));
+        when(userRepository.getReferenceById(1L)).thenReturn(mockUser);
 
         // Mock Storage & Repository
-        when(fileStorageService.store(any(MultipartFile.class))).thenReturn("stored_path.pdf");
+        when(fileStorageService.stage(any(MultipartFile.class))).thenReturn(
+                new StagedUpload("id", "stored_path.pdf", Path.of("id.part"), null, 7L));
+        when(uploadTransaction.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(null));
         when(fileRepository.save(any(File.class))).thenAnswer(i -> {
             File f = i.getArgument(0);
             f.setId(100L); // simulate save
@@ -127,34 +180,154 @@ public class FileControllerTest {
     }
 
     /**
-     * Teste la récupération de la liste des fichiers.
+     * Exécutable renommé : refusé d'après ses premiers octets (400).
      */
     @Test
-    public void testGetListFiles() {
+    public void testUploadFileWithExecutableContent() {
+        MockMultipartFile file = new MockMultipartFile("file", "facture.pdf", "application/pdf", "MZ".getBytes());
+        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(fileStorageService.stage(any(MultipartFile.class)))
+                .thenThrow(new RejectedContentException("exécutable Windows (PE)"));
+
+        ResponseEntity<?> response = fileController.uploadFile(file, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        MessageResponse body = (MessageResponse) response.getBody();
+        assertEquals("Contenu non supporté : exécutable Windows (PE)", body.getMessage());
+    }
+
+    /**
+     * Quota dépassé à l'enregistrement : 413, transaction annulée (le staging
+     * est supprimé au rollback) et aucun fichier créé.
+     */
+    @Test
+    public void testUploadFileOverQuota() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "document.pdf", "application/pdf",
+                "content".getBytes());
+        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(authentication.getPrincipal()).thenReturn(userDetails);
         AppUser mockUser = new AppUser();
         mockUser.setId(1L);
-        mockUser.setEmail("test@test.com");
+        when(userRepository.getReferenceById(1L)).thenReturn(mockUser);
+        when(fileStorageService.stage(any(MultipartFile.class))).thenReturn(
+                new StagedUpload("id", "stored_path.pdf", Path.of("id.part"), null, 7L));
+        when(uploadTransaction.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(null));
+        doThrow(new QuotaExceededException(10L << 20, 10L << 20)).when(quotaService).reserve(1L, 7L);
+
+        ResponseEntity<?> response = fileController.uploadFile(file, null);
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        MessageResponse body = (MessageResponse) response.getBody();
+        assertEquals("Quota de stockage dépassé : 10 Mo utilisés sur 10 Mo", body.getMessage());
+        verify(fileRepository, never()).save(any(File.class));
+        verify(fileStorageService).discard(any(StagedUpload.class));
+    }
+
+    /**
+     * Upload en flux : le contenu de la partie "file" est transmis au stockage
+     * au fil de la lecture, le champ expirationTime peut suivre le fichier.
+     */
+    @Test
+    public void testUploadFileStreamSuccess() throws Exception {
+        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(authentication.getPrincipal()).thenReturn(userDetails);
+        AppUser mockUser = new AppUser();
+        mockUser.setId(1L);
+        when(userRepository.getReferenceById(1L)).thenReturn(mockUser);
+
+        when(fileStorageService.stage(eq("document.pdf"), any(InputStream.class))).thenAnswer(i -> {
+            assertEquals("content", new String(i.<InputStream>getArgument(1).readAllBytes()));
+            return new StagedUpload("id", "stored_path.pdf", Path.of("id.part"), null, 7L);
+        });
+        when(uploadTransaction.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(null));
+        when(fileRepository.save(any(File.class))).thenAnswer(i -> i.getArgument(0));
+
+        ResponseEntity<?> response = fileController.uploadFileStream(multipartRequest("document.pdf", "3"));
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(fileStorageService).publishOnCommit(any(StagedUpload.class));
+        verify(fileStorageService, never()).discard(any());
+    }
+
+    /**
+     * Upload en flux : extension refusée sur l'en-tête de la partie, avant
+     * toute écriture.
+     */
+    @Test
+    public void testUploadFileStreamWithForbiddenExtension() throws Exception {
+        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(authentication.getPrincipal()).thenReturn(userDetails);
+
+        ResponseEntity<?> response = fileController.uploadFileStream(multipartRequest("malicious.exe", null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        MessageResponse body = (MessageResponse) response.getBody();
+        assertEquals("Extension non supportée : .exe", body.getMessage());
+        verifyNoInteractions(fileStorageService);
+    }
 
-        File file1 = new File();
-        file1.setId(10L);
-        file1.setOriginalName("file1.txt");
-        file1.setSize(123L);
-        file1.setCreatedAt(LocalDateTime.now());
-        file1.setExpirationDate(LocalDateTime.now().plusDays(1));
+    /**
+     * Teste la récupération de la liste des fichiers.
+     */
+    @Test
+    public void testGetListFiles() {
+        FileResponse file1 = new FileResponse(10L, "file1.txt", 123L, LocalDateTime.now(),
+                LocalDateTime.now().plusDays(1), null, 0);
 
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(userDetails);
-        when(userDetails.getUsername()).thenReturn("test@test.com");
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(mockUser));
-        when(fileRepository.findByOwnerId(1L)).thenReturn(java.util.List.of(file1));
-        when(shareRepository.findByFileId(10L)).thenReturn(Optional.empty());
+        when(fileRepository.findFileResponsesPage(1L, FileSort.CREATED_AT, false, null, 101))
+                .thenReturn(java.util.List.of(file1));
 
-        ResponseEntity<java.util.List<com.datashare.backend.payload.response.FileResponse>> response = fileController
-                .getListFiles();
+        ResponseEntity<?> response = fileController.getListFiles("createdAt", "desc", null, 100);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(1, response.getBody().size());
-        assertEquals("file1.txt", response.getBody().get(0).getOriginalName());
+        @SuppressWarnings("unchecked")
+        java.util.List<FileResponse> body = (java.util.List<FileResponse>) response.getBody();
+        assertEquals(1, body.size());
+        assertEquals("file1.txt", body.get(0).getOriginalName());
+        assertNull(response.getHeaders().getFirst(FileController.NEXT_CURSOR_HEADER));
+    }
+
+    /**
+     * Teste la pagination : une ligne en trop produit un curseur de page suivante.
+     */
+    @Test
+    public void testGetListFiles_NextCursor() {
+        LocalDateTime now = LocalDateTime.now();
+        FileResponse file1 = new FileResponse(10L, "file1.txt", 123L, now, now.plusDays(1), null, 0);
+        FileResponse file2 = new FileResponse(11L, "file2.txt", 456L, now, now.plusDays(1), null, 0);
+
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(fileRepository.findFileResponsesPage(1L, FileSort.SIZE, true, null, 2))
+                .thenReturn(java.util.List.of(file1, file2));
+
+        ResponseEntity<?> response = fileController.getListFiles("size", "asc", null, 1);
+
+        @SuppressWarnings("unchecked")
+        java.util.List<FileResponse> body = (java.util.List<FileResponse>) response.getBody();
+        assertEquals(1, body.size());
+        String nextCursor = response.getHeaders().getFirst(FileController.NEXT_CURSOR_HEADER);
+        FileCursor cursor = FileCursor.decode(nextCursor, FileSort.SIZE, true);
+        assertEquals(123L, cursor.getValue());
+        assertEquals(10L, cursor.getId());
+    }
+
+    /**
+     * Un critère de tri inconnu est refusé (400).
+     */
+    @Test
+    public void testGetListFiles_InvalidSort() {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+
+        ResponseEntity<?> response = fileController.getListFiles("storagePath", "desc", null, 100);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     /**
@@ -170,16 +343,50 @@ public class FileControllerTest {
         file.setId(20L);
         file.setOwner(mockUser);
         file.setStoragePath("path/to/file");
+        file.setSize(1000L);
 
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(userDetails);
-        when(userDetails.getUsername()).thenReturn("test@test.com");
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(mockUser));
         when(fileRepository.findById(20L)).thenReturn(Optional.of(file));
+        when(uploadTransaction.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(null));
+        when(fileRepository.deleteByIdAndOwnerId(20L, 1L)).thenReturn(1);
 
         ResponseEntity<?> response = fileController.deleteFile(20L);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(shareRepository).deleteByFileId(20L);
+        verify(quotaService).release(1L, 1000L);
+        verify(fileStorageService).release("path/to/file");
+    }
+
+    /**
+     * Suppression concurrente du même fichier : la ligne déjà supprimée n'est
+     * libérée qu'une fois (ni quota ni contenu libérés par la seconde requête).
+     */
+    @Test
+    public void testDeleteFile_AlreadyDeleted() {
+        AppUser mockUser = new AppUser();
+        mockUser.setId(1L);
+
+        File file = new File();
+        file.setId(20L);
+        file.setOwner(mockUser);
+        file.setStoragePath("path/to/file");
+        file.setSize(1000L);
+
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(fileRepository.findById(20L)).thenReturn(Optional.of(file));
+        when(uploadTransaction.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(null));
+        when(fileRepository.deleteByIdAndOwnerId(20L, 1L)).thenReturn(0);
+
+        ResponseEntity<?> response = fileController.deleteFile(20L);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(quotaService, never()).release(anyLong(), anyLong());
+        verify(fileStorageService, never()).release(any());
     }
 
     /**
@@ -199,13 +406,48 @@ public class FileControllerTest {
         file.setOwner(owner); // Owner is ID 1
 
         when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getPrincipal()).thenReturn(userDetails);
-        when(userDetails.getUsername()).thenReturn("hacker@test.com");
-        when(userRepository.findByEmail("hacker@test.com")).thenReturn(Optional.of(hacker)); // Current user is ID 2
+        when(authentication.getPrincipal())
+                .thenReturn(new UserDetailsImpl(hacker.getId(), hacker.getEmail(), null)); // Current user is ID 2
         when(fileRepository.findById(20L)).thenReturn(Optional.of(file));
 
         ResponseEntity<?> response = fileController.deleteFile(20L);
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
+
+    /**
+     * Consultation du quota : espace occupé, quota et espace restant.
+     */
+    @Test
+    public void testGetQuota() {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(quotaService.usage(1L)).thenReturn(new Usage(300L, 1000L));
+
+        ResponseEntity<?> response = fileController.getQuota();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("usedBytes", 300L, "limitBytes", 1000L, "remainingBytes", 700L), response.getBody());
+    }
+
+    // Corps multipart/form-data : partie "file" suivie du champ expirationTime (optionnel)
+    private MockHttpServletRequest multipartRequest(String filename, String expirationTime) {
+        String boundary = "----DataShareBoundary";
+        StringBuilder body = new StringBuilder()
+                .append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"file\"; filename=\"").append(filename)
+                .append("\"\r\n")
+                .append("Content-Type: application/octet-stream\r\n\r\n")
+                .append("content\r\n");
+        if (expirationTime != null) {
+            body.append("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"expirationTime\"\r\n\r\n")
+                    .append(expirationTime).append("\r\n");
+        }
+        body.append("--").append(boundary).append("--\r\n");
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/files/upload/stream");
+        request.setContentType("multipart/form-data; boundary=" + boundary);
+        request.setContent(body.toString().getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
 }
@@ -2,23 +2,44 @@ package com.datashare.backend.controllers;
 
 import com.datashare.backend.model.File;
 import com.datashare.backend.model.Share;
-import com.datashare.backend.repository.ShareRepository;
+import com.datashare.backend.services.DownloadCounterService;
+import com.datashare.backend.services.FileDownloadWriter;
 import com.datashare.backend.services.FileStorageService;
+import com.datashare.backend.services.ShareLookupService;
+import com.datashare.backend.services.ShareLookupService.SharedFile;
+import com.datashare.backend.services.SignedLinkService;
+import com.datashare.backend.services.ZipDownloadWriter;
+import com.datashare.backend.storage.FilesystemStorageBackend;
+import com.datashare.backend.storage.StorageCluster;
+import com.datashare.backend.storage.StoredObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
-import java.net.MalformedURLException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -29,11 +50,32 @@ import static org.mockito.Mockito.*;
 public class ShareControllerTest {
 
     @Mock
-    private ShareRepository shareRepository;
+    private ShareLookupService shareLookupService;
+
+    @Mock
+    private SignedLinkService signedLinkService;
+
+    @Mock
+    private ZipDownloadWriter zipDownloadWriter;
 
     @Mock
     private FileStorageService fileStorageService;
 
+    @Mock
+    private FileDownloadWriter fileDownloadWriter;
+
+    @Mock
+    private DownloadCounterService downloadCounterService;
+
+    @Mock
+    private StorageCluster storageCluster;
+
+    @TempDir
+    Path tempDir;
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/download/valid-token");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
     @InjectMocks
     private ShareController shareController;
 
@@ -49,7 +91,7 @@ public class ShareControllerTest {
         Share share = new Share();
         share.setFile(file);
 
-        when(shareRepository.findByUniqueToken(token)).thenReturn(Optional.of(share));
+        when(shareLookupService.find(token)).thenReturn(Optional.of(SharedFile.from(share)));
 
         ResponseEntity<?> response = shareController.getShareMetadata(token);
 
@@ -63,7 +105,7 @@ public class ShareControllerTest {
     @Test
     void getShareMetadata_NotFound() {
         String token = "invalid-token";
-        when(shareRepository.findByUniqueToken(token)).thenReturn(Optional.empty());
+        when(shareLookupService.find(token)).thenReturn(Optional.empty());
 
         ResponseEntity<?> response = shareController.getShareMetadata(token);
 
@@ -81,7 +123,7 @@ public class ShareControllerTest {
         Share share = new Share();
         share.setFile(file);
 
-        when(shareRepository.findByUniqueToken(token)).thenReturn(Optional.of(share));
+        when(shareLookupService.find(token)).thenReturn(Optional.of(SharedFile.from(share)));
 
         ResponseEntity<?> response = shareController.getShareMetadata(token);
 
@@ -89,38 +131,140 @@ public class ShareControllerTest {
     }
 
     /**
-     * Téléchargement réussi : Doit incrémenter le compteur de téléchargements.
+     * Téléchargement réussi : Doit incrémenter le compteur de téléchargements
+     * et déléguer l'envoi du fichier au FileDownloadWriter.
      */
     @Test
-    void downloadFile_Success() throws MalformedURLException {
+    void downloadFile_Success() throws IOException {
         String token = "valid-token";
         File file = new File();
         file.setOriginalName("test.txt");
         file.setStoragePath("path/to/test.txt");
         Share share = new Share();
+        share.setId(5L);
         share.setFile(file);
 
-        // Mock Resource
-        Resource resource = mock(Resource.class);
+        StoredObject stored = storedObject(Files.writeString(tempDir.resolve("test.txt"), "Hello World"));
 
-        when(shareRepository.findByUniqueToken(token)).thenReturn(Optional.of(share));
-        when(fileStorageService.loadFileAsResource("path/to/test.txt")).thenReturn(resource);
+        when(shareLookupService.find(token)).thenReturn(Optional.of(SharedFile.from(share)));
+        when(fileStorageService.load("path/to/test.txt")).thenReturn(stored);
 
-        ResponseEntity<?> response = shareController.downloadFile(token);
+        ResponseEntity<?> result = shareController.downloadFile(token, request, response);
 
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(shareRepository).save(share); // Check download count increment
-        assertEquals(1, share.getDownloadCount());
+        assertNull(result); // Réponse écrite directement
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("attachment; filename=\"test.txt\"", response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        verify(fileDownloadWriter).write(eq(stored), eq(0L), eq(11L), eq(request), any());
+        verify(downloadCounterService).recordDownload(5L); // Check download count increment
+    }
+
+    /**
+     * Requête Range : réponse partielle déléguée au writer, compteur incrémenté
+     * uniquement si la plage démarre au premier octet.
+     */
+    @Test
+    void downloadFile_Range() throws IOException {
+        Share share = shareWithStoredFile("Hello World");
+        request.addHeader(HttpHeaders.RANGE, "bytes=6-");
+
+        ResponseEntity<?> result = shareController.downloadFile("valid-token", request, response);
+
+        assertNull(result);
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        verify(fileDownloadWriter).writeRanges(any(StoredObject.class), eq(11L), anyList(), eq(request), any());
+        verify(downloadCounterService, never()).recordDownload(share.getId()); // Reprise : non comptée
+    }
+
+    /**
+     * If-Range avec un ETag obsolète : la plage est ignorée, fichier complet.
+     */
+    @Test
+    void downloadFile_IfRangeMismatch() throws IOException {
+        shareWithStoredFile("Hello World");
+        request.addHeader(HttpHeaders.RANGE, "bytes=6-");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale-etag\"");
+
+        shareController.downloadFile("valid-token", request, response);
+
+        verify(fileDownloadWriter).write(any(StoredObject.class), eq(0L), eq(11L), eq(request), any());
+        verify(fileDownloadWriter, never()).writeRanges(any(StoredObject.class), anyLong(), anyList(), any(), any());
+    }
+
+    /**
+     * If-None-Match avec l'ETag courant : 304 sans corps ni comptage.
+     */
+    @Test
+    void downloadFile_NotModified() throws IOException {
+        Share share = shareWithStoredFile("Hello World");
+        shareController.downloadFile("valid-token", request, response);
+        String etag = response.getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/api/download/valid-token");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+
+        ResponseEntity<?> result = shareController.downloadFile("valid-token", conditional, notModified);
+
+        assertNull(result);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), notModified.getStatus());
+        verify(fileDownloadWriter, times(1)).write(any(StoredObject.class), anyLong(), anyLong(), any(), any());
+        verify(downloadCounterService, times(1)).recordDownload(share.getId());
+    }
+
+    /**
+     * Plage au-delà de la fin du fichier : 416.
+     */
+    @Test
+    void downloadFile_RangeNotSatisfiable() throws IOException {
+        shareWithStoredFile("Hello World");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-200");
+
+        ResponseEntity<?> result = shareController.downloadFile("valid-token", request, response);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, result.getStatusCode());
+        assertEquals("bytes */11", result.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    /**
+     * Plages répétées couvrant plusieurs fois le fichier : réponse complète
+     * unique (200), pas de réponse partielle amplifiée.
+     */
+    @Test
+    void downloadFile_OverlappingRangesServeFullBody() throws IOException {
+        Share share = shareWithStoredFile("Hello World");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-,0-,0-,0-,0-");
+
+        ResponseEntity<?> result = shareController.downloadFile("valid-token", request, response);
+
+        assertNull(result);
+        verify(fileDownloadWriter).write(any(StoredObject.class), eq(0L), eq(11L), eq(request), any());
+        verify(fileDownloadWriter, never()).writeRanges(any(StoredObject.class), anyLong(), anyList(), any(), any());
+        verify(downloadCounterService).recordDownload(share.getId());
+    }
+
+    /**
+     * Plages qui se chevauchent ou se touchent : fusionnées et triées avant
+     * l'envoi partiel.
+     */
+    @Test
+    void downloadFile_MergesRanges() throws IOException {
+        shareWithStoredFile("Hello World");
+        request.addHeader(HttpHeaders.RANGE, "bytes=8-9,0-1,2-3,1-2");
+
+        shareController.downloadFile("valid-token", request, response);
+
+        verify(fileDownloadWriter).writeRanges(any(StoredObject.class), eq(11L),
+                eq(List.of(HttpRange.createByteRange(0, 3), HttpRange.createByteRange(8, 9))), eq(request), any());
     }
 
     @Test
     void downloadFile_NotFound() {
         String token = "invalid-token";
-        when(shareRepository.findByUniqueToken(token)).thenReturn(Optional.empty());
+        when(shareLookupService.find(token)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = shareController.downloadFile(token);
+        ResponseEntity<?> result = shareController.downloadFile(token, request, response);
 
-        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
     }
 
     @Test
@@ -131,10 +275,166 @@ public class ShareControllerTest {
         Share share = new Share();
         share.setFile(file);
 
-        when(shareRepository.findByUniqueToken(token)).thenReturn(Optional.of(share));
+        when(shareLookupService.find(token)).thenReturn(Optional.of(SharedFile.from(share)));
+
+        ResponseEntity<?> result = shareController.downloadFile(token, request, response);
 
-        ResponseEntity<?> response = shareController.downloadFile(token);
+        assertEquals(HttpStatus.GONE, result.getStatusCode());
+    }
+
+    /**
+     * Lien signé valide : fichier servi sans résolution du token en base,
+     * compteur du partage d'origine incrémenté.
+     */
+    @Test
+    void downloadSignedFile_Success() throws IOException {
+        StoredObject stored = storedObject(Files.writeString(tempDir.resolve("signed.txt"), "Hello World"));
+        SharedFile file = new SharedFile(5L, 1L, "signed.txt", "test.txt", 11L,
+                LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1));
+
+        when(signedLinkService.verify("signed-token")).thenReturn(Optional.of(file));
+        when(fileStorageService.load("signed.txt")).thenReturn(stored);
+
+        ResponseEntity<?> result = shareController.downloadSignedFile("signed-token", request, response);
+
+        assertNull(result);
+        verify(fileDownloadWriter).write(eq(stored), eq(0L), eq(11L), eq(request), any());
+        verify(downloadCounterService).recordDownload(5L);
+        verifyNoInteractions(shareLookupService);
+    }
+
+    /**
+     * Lien signé falsifié, révoqué ou mode désactivé : 404.
+     */
+    @Test
+    void downloadSignedFile_Invalid() {
+        when(signedLinkService.verify("forged-token")).thenReturn(Optional.empty());
+
+        ResponseEntity<?> result = shareController.downloadSignedFile("forged-token", request, response);
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        verifyNoInteractions(fileStorageService);
+    }
+
+    /**
+     * Archive ZIP : partages inconnus ignorés, partages valides comptés.
+     */
+    @Test
+    void downloadZip_SkipsUnknownTokens() throws IOException {
+        Share share = shareWithStoredFile("Hello World");
+        when(shareLookupService.find("invalid-token")).thenReturn(Optional.empty());
+
+        ResponseEntity<?> result = shareController.downloadZip(List.of("valid-token", "invalid-token"), response);
+
+        assertNull(result);
+        verify(zipDownloadWriter).write(argThat(items -> items.size() == 1
+                && items.get(0).name().equals("test.txt")), eq("datashare.zip"), eq(response));
+        verify(downloadCounterService).recordDownload(share.getId());
+    }
+
+    @Test
+    void downloadZip_NotFound() {
+        when(shareLookupService.find("invalid-token")).thenReturn(Optional.empty());
+
+        ResponseEntity<?> result = shareController.downloadZip(List.of("invalid-token"), response);
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        verifyNoInteractions(zipDownloadWriter);
+    }
+
+    /**
+     * Contenu compressé au repos : envoyé tel quel (Content-Encoding: gzip) au
+     * client qui l'accepte, décompressé à la volée pour les autres.
+     */
+    @Test
+    void downloadFile_CompressedAtRest() throws IOException {
+        String storagePath = "0b7e4c9a-1f2d-4e3a-9c8b-7d6e5f4a3b2c.gz";
+        StoredObject stored = storedObject(
+                Files.write(tempDir.resolve(storagePath), new byte[] { 0x1F, (byte) 0x8B, 1, 2 }));
+        SharedFile file = new SharedFile(5L, 1L, storagePath, "logs.txt", 1000L,
+                LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1));
+        when(shareLookupService.find("gzip-token")).thenReturn(Optional.of(file));
+        when(fileStorageService.load(storagePath)).thenReturn(stored);
+
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        shareController.downloadFile("gzip-token", request, response);
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        verify(fileDownloadWriter).write(eq(stored), eq(0L), eq(4L), eq(request), any());
+
+        MockHttpServletRequest identity = new MockHttpServletRequest("GET", "/api/download/gzip-token");
+        identity.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+        MockHttpServletResponse decompressed = new MockHttpServletResponse();
+        shareController.downloadFile("gzip-token", identity, decompressed);
+
+        assertNull(decompressed.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("none", decompressed.getHeader(HttpHeaders.ACCEPT_RANGES));
+        verify(fileDownloadWriter).writeDecompressed(stored, 1000L, decompressed);
+    }
+
+    /**
+     * Empreinte connue : ETag fort dérivé du SHA-256 et en-têtes Repr-Digest /
+     * Digest ; absents de la version gzip (empreinte du contenu d'origine).
+     */
+    @Test
+    void downloadFile_DigestHeaders() throws IOException {
+        String sha256 = "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+        StoredObject stored = storedObject(Files.writeString(tempDir.resolve("stored.txt"), "Hello World"));
+        SharedFile file = new SharedFile(5L, 1L, "stored.txt", "test.txt", 11L,
+                LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1), null, sha256);
+        when(shareLookupService.find("valid-token")).thenReturn(Optional.of(file));
+        when(fileStorageService.load("stored.txt")).thenReturn(stored);
+
+        shareController.downloadFile("valid-token", request, response);
+
+        assertEquals("\"" + sha256 + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("sha-256=:pZGm1Av0IEBKARczz7exkNYsZb8LzaMrV7J32a2fFG4=:", response.getHeader("Repr-Digest"));
+        assertEquals("sha-256=pZGm1Av0IEBKARczz7exkNYsZb8LzaMrV7J32a2fFG4=", response.getHeader("Digest"));
+    }
+
+    /**
+     * Cluster : fichier détenu par un autre nœud, redirection 307 vers la même
+     * URL sur ce nœud, sans lecture du stockage ni comptage.
+     */
+    @Test
+    void downloadFile_RedirectsToOwningNode() {
+        SharedFile file = new SharedFile(5L, 1L, "ab/cd/stored.txt", "test.txt", 11L,
+                LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1), "node-2", null);
+        when(shareLookupService.find("valid-token")).thenReturn(Optional.of(file));
+        when(storageCluster.redirectTarget("node-2")).thenReturn(Optional.of("http://localhost:8081"));
+        request.setQueryString("v=1");
+
+        ResponseEntity<?> result = shareController.downloadFile("valid-token", request, response);
+
+        assertEquals(HttpStatus.TEMPORARY_REDIRECT, result.getStatusCode());
+        assertEquals("http://localhost:8081/api/download/valid-token?v=1",
+                result.getHeaders().getFirst(HttpHeaders.LOCATION));
+        verifyNoInteractions(fileStorageService, fileDownloadWriter, downloadCounterService);
+    }
+
+    // Partage valide pointant vers un fichier réellement stocké
+    private Share shareWithStoredFile(String content) throws IOException {
+        File file = new File();
+        file.setId(1L);
+        file.setOriginalName("test.txt");
+        file.setStoragePath("stored.txt");
+        file.setSize((long) content.length());
+        file.setCreatedAt(LocalDateTime.now().minusHours(1));
+        Share share = new Share();
+        share.setId(5L);
+        share.setFile(file);
+
+        StoredObject stored = storedObject(Files.writeString(tempDir.resolve("stored.txt"), content));
+        when(shareLookupService.find("valid-token")).thenReturn(Optional.of(SharedFile.from(share)));
+        lenient().when(fileStorageService.load("stored.txt")).thenReturn(stored);
+        lenient().when(fileStorageService.find("stored.txt")).thenReturn(Optional.of(stored));
+        return share;
+    }
 
-        assertEquals(HttpStatus.GONE, response.getStatusCode());
+    // Contenu stocké sur disque (backend système de fichiers du dossier temporaire)
+    private StoredObject storedObject(Path path) throws IOException {
+        return new FilesystemStorageBackend(tempDir.toString())
+                .find(path.getFileName().toString()).orElseThrow();
     }
 }
@@ -0,0 +1,122 @@
+package com.datashare.backend.controllers;
+
+import com.datashare.backend.services.FileDownloadWriter;
+import com.datashare.backend.storage.FilesystemStorageBackend;
+import com.datashare.backend.storage.RemoteStorageBackend;
+import com.datashare.backend.storage.StorageCluster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests de l'API interne de stockage (StorageNodeController).
+ * Vérifie le contrôle du secret du cluster (X-Cluster-Token) sur chaque
+ * méthode, puis les accès autorisés au disque local.
+ */
+public class StorageNodeControllerTest {
+
+    private static final String SECRET = "cluster-secret";
+
+    private static final List<HttpMethod> METHODS = List.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.PUT,
+            HttpMethod.DELETE);
+
+    @TempDir
+    Path tempDir;
+
+    private FilesystemStorageBackend localStorage;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        localStorage = new FilesystemStorageBackend(tempDir.toString());
+        localStorage.put("ab/file.txt", new ByteArrayInputStream(bytes("Hello World")), 11);
+
+        StorageNodeController controller = new StorageNodeController();
+        ReflectionTestUtils.setField(controller, "storageCluster", new StorageCluster(true, "node-1",
+                "node-1=http://localhost:8080,node-2=http://localhost:8081", 128, SECRET, true));
+        ReflectionTestUtils.setField(controller, "localStorage", localStorage);
+        ReflectionTestUtils.setField(controller, "fileDownloadWriter", new FileDownloadWriter());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    /**
+     * Sans en-tête X-Cluster-Token : 403 sur toutes les méthodes, disque inchangé.
+     */
+    @Test
+    void missingToken_Forbidden() throws Exception {
+        for (HttpMethod method : METHODS) {
+            mockMvc.perform(storageRequest(method).content(bytes("overwritten")))
+                    .andExpect(status().isForbidden());
+        }
+        assertUnchanged();
+    }
+
+    /**
+     * Secret erroné : 403 sur toutes les méthodes, disque inchangé.
+     */
+    @Test
+    void wrongToken_Forbidden() throws Exception {
+        for (HttpMethod method : METHODS) {
+            mockMvc.perform(storageRequest(method).header(StorageCluster.TOKEN_HEADER, "wrong")
+                    .content(bytes("overwritten")))
+                    .andExpect(status().isForbidden());
+        }
+        assertUnchanged();
+    }
+
+    /**
+     * Secret valide : métadonnées, lecture par plage, écriture et suppression.
+     */
+    @Test
+    void validToken_Allowed() throws Exception {
+        mockMvc.perform(storageRequest(HttpMethod.HEAD).header(StorageCluster.TOKEN_HEADER, SECRET))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RemoteStorageBackend.SIZE_HEADER, "11"));
+        mockMvc.perform(storageRequest(HttpMethod.GET).param("start", "6").param("length", "5")
+                .header(StorageCluster.TOKEN_HEADER, SECRET))
+                .andExpect(status().isOk())
+                .andExpect(content().string("World"));
+        mockMvc.perform(request(HttpMethod.PUT, RemoteStorageBackend.API_PATH).param("key", "cd/new.txt")
+                .header(StorageCluster.TOKEN_HEADER, SECRET).content(bytes("new")))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(storageRequest(HttpMethod.DELETE).header(StorageCluster.TOKEN_HEADER, SECRET))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(storageRequest(HttpMethod.DELETE).header(StorageCluster.TOKEN_HEADER, SECRET))
+                .andExpect(status().isNotFound());
+
+        assertTrue(localStorage.stat("ab/file.txt").isEmpty());
+        assertEquals(3L, localStorage.stat("cd/new.txt").orElseThrow().size());
+    }
+
+    private MockHttpServletRequestBuilder storageRequest(HttpMethod method) {
+        return request(method, RemoteStorageBackend.API_PATH).param("key", "ab/file.txt");
+    }
+
+    private void assertUnchanged() throws IOException {
+        try (var in = localStorage.get("ab/file.txt", 0, -1)) {
+            assertEquals("Hello World", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+package com.datashare.backend.multipart;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour StreamingMultipartParser.
+ * Vérifie le découpage des parties (y compris quand le délimiteur est coupé
+ * entre deux lectures), les en-têtes et les limites de taille.
+ */
+public class StreamingMultipartParserTest {
+
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    /**
+     * Champ simple, fichier binaire contenant un quasi-délimiteur, partie
+     * ignorée puis fin du corps ; flux lu par petits morceaux.
+     */
+    @Test
+    void nextPart_SplitsParts() throws IOException {
+        byte[] content = new byte[200_000];
+        new Random(42).nextBytes(content);
+        byte[] nearDelimiter = ("\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1) + "X")
+                .getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(nearDelimiter, 0, content, 100_000, nearDelimiter.length);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("preamble\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"expirationTime\"\r\n\r\n"
+                + "3\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"rapport;v2.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"ignored\"\r\n\r\n"
+                + "value\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        StreamingMultipartParser parser = new StreamingMultipartParser(
+                new TrickleInputStream(body.toByteArray()), BOUNDARY, 1_000_000);
+
+        StreamingMultipartParser.Part field = parser.nextPart();
+        assertEquals("expirationTime", field.name());
+        assertNull(field.filename());
+        assertEquals("3", field.readString(16));
+
+        StreamingMultipartParser.Part file = parser.nextPart();
+        assertEquals("file", file.name());
+        assertEquals("rapport;v2.pdf", file.filename());
+        assertEquals("application/pdf", file.contentType());
+        assertArrayEquals(content, file.content().readAllBytes());
+
+        assertEquals("ignored", parser.nextPart().name());
+        assertNull(parser.nextPart());
+    }
+
+    /**
+     * Partie plus grande que la limite : rejetée pendant la lecture.
+     */
+    @Test
+    void content_ExceedsMaxPartSize() throws IOException {
+        StreamingMultipartParser parser = new StreamingMultipartParser(body("0123456789"), BOUNDARY, 4);
+
+        InputStream content = parser.nextPart().content();
+
+        assertThrows(MaxUploadSizeExceededException.class, content::readAllBytes);
+    }
+
+    /**
+     * Corps tronqué (pas de délimiteur de fin) : erreur de format.
+     */
+    @Test
+    void content_Truncated() throws IOException {
+        String truncated = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"\r\n\r\n0123";
+        StreamingMultipartParser parser = new StreamingMultipartParser(
+                new ByteArrayInputStream(truncated.getBytes(StandardCharsets.UTF_8)), BOUNDARY, 100);
+
+        InputStream content = parser.nextPart().content();
+
+        assertThrows(IOException.class, content::readAllBytes);
+    }
+
+    @Test
+    void boundary_FromContentType() {
+        assertEquals(Optional.of("abc"), StreamingMultipartParser.boundary("multipart/form-data; boundary=\"abc\""));
+        assertEquals(Optional.of("abc"), StreamingMultipartParser.boundary("Multipart/Form-Data;boundary=abc"));
+        assertTrue(StreamingMultipartParser.boundary("application/json").isEmpty());
+        assertTrue(StreamingMultipartParser.boundary("multipart/form-data").isEmpty());
+    }
+
+    private ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n\r\n"
+                + content + "\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Flux rendant au plus quelques octets par lecture (réception réseau fragmentée)
+    private static final class TrickleInputStream extends ByteArrayInputStream {
+
+        private final Random random = new Random(7);
+
+        private TrickleInputStream(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(100)));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.datashare.backend.repository;
+
+import com.datashare.backend.model.AppUser;
+import com.datashare.backend.model.File;
+import com.datashare.backend.model.Share;
+import com.datashare.backend.payload.response.FileResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du FileRepository sur la base de test.
+ * Vérifie que le listing des fichiers ne dépend pas du nombre de fichiers
+ * (absence de requêtes N+1) et la pagination par curseur.
+ */
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class FileRepositoryTest {
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Le nombre de requêtes SQL reste constant (1) avec 1 ou 20 fichiers.
+     */
+    @Test
+    public void testFindFileResponsesByOwnerId_ConstantStatementCount() {
+        AppUser fewFilesOwner = createUserWithFiles("few@test.com", 1);
+        AppUser manyFilesOwner = createUserWithFiles("many@test.com", 20);
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<FileResponse> fewFiles = fileRepository.findFileResponsesPage(fewFilesOwner.getId(), FileSort.CREATED_AT, false,
+                null, 100);
+        long fewFilesStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<FileResponse> manyFiles = fileRepository.findFileResponsesPage(manyFilesOwner.getId(), FileSort.CREATED_AT, false,
+                null, 100);
+        long manyFilesStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(1, fewFiles.size());
+        assertEquals(20, manyFiles.size());
+        assertEquals(1, fewFilesStatements);
+        assertEquals(fewFilesStatements, manyFilesStatements);
+        assertNotNull(manyFiles.get(0).getShareToken());
+    }
+
+    /**
+     * Le parcours page par page via le curseur renvoie chaque fichier une seule
+     * fois, dans l'ordre du tri.
+     */
+    @Test
+    public void testFindFileResponsesPage_KeysetPagination() {
+        AppUser owner = createUserWithFiles("pages@test.com", 5);
+
+        List<String> names = new ArrayList<>();
+        FileCursor cursor = null;
+        List<FileResponse> page;
+        do {
+            page = fileRepository.findFileResponsesPage(owner.getId(), FileSort.NAME, true, cursor, 2);
+            page.forEach(file -> names.add(file.getOriginalName()));
+            if (!page.isEmpty()) {
+                String next = FileCursor.encode(FileSort.NAME, true, page.get(page.size() - 1));
+                cursor = FileCursor.decode(next, FileSort.NAME, true);
+            }
+        } while (page.size() == 2);
+
+        assertEquals(List.of("file0.txt", "file1.txt", "file2.txt", "file3.txt", "file4.txt"), names);
+    }
+
+    /**
+     * Lignes dont la valeur de tri est NULL : parcourues après les autres en
+     * ordre croissant, avant en ordre décroissant, curseur posé sur l'une d'elles
+     * compris.
+     */
+    @Test
+    public void testFindFileResponsesPage_NullSortValues() {
+        AppUser owner = createUserWithFiles("nulls@test.com", 4);
+        entityManager.createQuery("update File f set f.expirationDate = null, f.originalName = null "
+                + "where f.owner.id = :ownerId and f.originalName in ('file1.txt', 'file3.txt')")
+                .setParameter("ownerId", owner.getId())
+                .executeUpdate();
+
+        for (FileSort sort : List.of(FileSort.EXPIRATION, FileSort.NAME)) {
+            List<FileResponse> ascending = readAllPages(owner, sort, true);
+            List<FileResponse> descending = readAllPages(owner, sort, false);
+
+            assertEquals(4, ascending.size());
+            assertNotNull(sort.valueOf(ascending.get(1)));
+            assertNull(sort.valueOf(ascending.get(2)));
+            assertNull(sort.valueOf(ascending.get(3)));
+            assertEquals(4, descending.size());
+            assertNull(sort.valueOf(descending.get(0)));
+            assertNull(sort.valueOf(descending.get(1)));
+            assertNotNull(sort.valueOf(descending.get(2)));
+            assertEquals(4, descending.stream().map(FileResponse::getId).distinct().count());
+        }
+    }
+
+    // Parcourt toutes les pages (une ligne par page : chaque curseur est utilisé)
+    private List<FileResponse> readAllPages(AppUser owner, FileSort sort, boolean ascending) {
+        List<FileResponse> files = new ArrayList<>();
+        FileCursor cursor = null;
+        List<FileResponse> page;
+        do {
+            page = fileRepository.findFileResponsesPage(owner.getId(), sort, ascending, cursor, 1);
+            files.addAll(page);
+            if (!page.isEmpty()) {
+                String next = FileCursor.encode(sort, ascending, page.get(0));
+                cursor = FileCursor.decode(next, sort, ascending);
+            }
+        } while (!page.isEmpty());
+        return files;
+    }
+
+    // Crée un utilisateur possédant "count" fichiers partagés, puis vide le contexte
+    // de persistance pour que la lecture passe réellement par la base
+    private AppUser createUserWithFiles(String email, int count) {
+        AppUser user = new AppUser();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        userRepository.save(user);
+
+        for (int i = 0; i < count; i++) {
+            File file = new File();
+            file.setOriginalName("file" + i + ".txt");
+            file.setStoragePath(UUID.randomUUID() + "_file" + i + ".txt");
+            file.setSize(10L);
+            file.setOwner(user);
+            file.setExpirationDate(LocalDateTime.now().plusDays(7));
+
+            Share share = new Share();
+            share.setUniqueToken(UUID.randomUUID().toString());
+            share.setFile(file);
+            file.getShares().add(share);
+
+            entityManager.persist(file);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return user;
+    }
+}
@@ -0,0 +1,85 @@
+package com.datashare.backend.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour HierarchicalTimingWheel.
+ * Vérifie que chaque élément est rendu à son échéance (jamais avant, au plus
+ * un tick après), y compris après les cascades entre niveaux.
+ */
+public class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    /**
+     * Échéance proche (niveau 0) : rendue au tick de l'échéance.
+     */
+    @Test
+    void advance_NearDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 4, 0);
+        wheel.schedule("a", 5_000);
+
+        assertEquals(List.of(), wheel.advance(4_999));
+        assertEquals(List.of("a"), wheel.advance(5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Échéances sur plusieurs niveaux : rendues dans l'ordre, à leur tick,
+     * après cascade vers les niveaux inférieurs.
+     */
+    @Test
+    void advance_CascadesAcrossLevels() {
+        long start = 123_456_789_000L;
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK, 4, start);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // De 1 seconde à 8 jours
+            long deadline = start + 1_000 + (long) (random.nextDouble() * 8 * 86_400_000L);
+            deadlines.add(deadline);
+            assertTrue(wheel.schedule(i, deadline));
+        }
+
+        int returned = 0;
+        for (long now = start; returned < deadlines.size(); now += 7 * TICK) {
+            for (int item : wheel.advance(now)) {
+                long deadline = deadlines.get(item);
+                assertTrue(deadline <= now, "Returned before its deadline");
+                assertTrue(now - deadline < 8 * TICK, "Returned too late");
+                returned++;
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Échéance au-delà de l'horizon de la roue : conservée jusqu'à son échéance.
+     */
+    @Test
+    void advance_BeyondHorizon() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 1, 0);
+        wheel.schedule("late", 200_000);
+
+        assertEquals(List.of(), wheel.advance(199_000));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("late"), wheel.advance(200_000));
+    }
+
+    /**
+     * Échéance déjà atteinte : refusée.
+     */
+    @Test
+    void schedule_PastDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 4, 10_000);
+
+        assertFalse(wheel.schedule("past", 9_000));
+        assertEquals(0, wheel.size());
+    }
+}
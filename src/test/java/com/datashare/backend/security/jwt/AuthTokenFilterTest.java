@@ -0,0 +1,159 @@
+package com.datashare.backend.security.jwt;
+
+import com.datashare.backend.security.services.UserDetailsImpl;
+import com.datashare.backend.security.services.UserDetailsServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests Unitaires pour AuthTokenFilter.
+ * Vérifie la vérification du compte (par défaut) et la construction du
+ * principal depuis les seuls claims du JWT.
+ */
+@ExtendWith(MockitoExtension.class)
+public class AuthTokenFilterTest {
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    private JwtUtils jwtUtils;
+
+    private AuthTokenFilter authTokenFilter;
+
+    @BeforeEach
+    void setUp() {
+        // Contexte éventuellement laissé par un autre test du même thread
+        SecurityContextHolder.clearContext();
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret",
+                "ThisIsASecretKeyForTestThatIsLongEnoughToSatisfyHS256Requirements");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000);
+        jwtUtils.init();
+        authTokenFilter = new AuthTokenFilter(jwtUtils, userDetailsService, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Vérification désactivée : un token portant l'ID construit le principal sans
+     * accès au cache ni à la base.
+     */
+    @Test
+    void doFilter_PrincipalFromClaims() throws Exception {
+        authTokenFilter = new AuthTokenFilter(jwtUtils, userDetailsService, false);
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(new UserDetailsImpl(7L, "test@test.com", "hash"), null));
+
+        authTokenFilter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        UserDetailsImpl principal = (UserDetailsImpl) SecurityContextHolder.getContext()
+                .getAuthentication().getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("test@test.com", principal.getUsername());
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    /**
+     * Un token émis avant l'ajout de l'ID est encore accepté (chargement en base).
+     */
+    @Test
+    void doFilter_LegacyTokenLoadsUser() throws Exception {
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                new User("test@test.com", "hash", Collections.emptyList()), null));
+        when(userDetailsService.loadUserByUsername("test@test.com"))
+                .thenReturn(new UserDetailsImpl(7L, "test@test.com", "hash"));
+
+        authTokenFilter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        UserDetailsImpl principal = (UserDetailsImpl) SecurityContextHolder.getContext()
+                .getAuthentication().getPrincipal();
+        assertEquals(7L, principal.getId());
+    }
+
+    /**
+     * Par défaut, le compte est vérifié même si le token porte l'ID.
+     */
+    @Test
+    void doFilter_VerifiesUser() throws Exception {
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(new UserDetailsImpl(7L, "test@test.com", "hash"), null));
+        when(userDetailsService.loadUserByUsername("test@test.com"))
+                .thenReturn(new UserDetailsImpl(7L, "test@test.com", "hash"));
+
+        authTokenFilter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        UserDetailsImpl principal = (UserDetailsImpl) SecurityContextHolder.getContext()
+                .getAuthentication().getPrincipal();
+        assertEquals(7L, principal.getId());
+    }
+
+    /**
+     * Compte supprimé puis recréé avec le même email : l'ancien token (autre ID)
+     * est refusé.
+     */
+    @Test
+    void doFilter_RecreatedAccountRefused() throws Exception {
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(new UserDetailsImpl(7L, "test@test.com", "hash"), null));
+        when(userDetailsService.loadUserByUsername("test@test.com"))
+                .thenReturn(new UserDetailsImpl(8L, "test@test.com", "hash"));
+
+        authTokenFilter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    /**
+     * Compte supprimé (évincé du cache, absent en base) : authentification refusée.
+     */
+    @Test
+    void doFilter_DeletedUserRefused() throws Exception {
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(new UserDetailsImpl(7L, "test@test.com", "hash"), null));
+        when(userDetailsService.loadUserByUsername("test@test.com"))
+                .thenThrow(new UsernameNotFoundException("User Not Found with email: test@test.com"));
+
+        authTokenFilter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    /**
+     * Un token invalide ne positionne aucune authentification.
+     */
+    @Test
+    void doFilter_InvalidToken() throws Exception {
+        authTokenFilter.doFilter(request("invalid-token"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -1,5 +1,7 @@
 package com.datashare.backend.security.jwt;
 
+import com.datashare.backend.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -37,6 +39,7 @@ public class JwtUtilsTest {
         // Injection des propriétés via ReflectionTestUtils
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
         ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", jwtExpirationMs);
+        jwtUtils.init();
     }
 
     /**
@@ -80,6 +83,53 @@ public class JwtUtilsTest {
         assertTrue(jwtUtils.validateJwtToken(token));
     }
 
+    /**
+     * Vérifie la lecture des claims en un seul parsing.
+     */
+    @Test
+    void parseJwtClaims_Valid() {
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn("testuser");
+
+        String token = jwtUtils.generateJwtToken(authentication);
+        Claims claims = jwtUtils.parseJwtClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("testuser", claims.getSubject());
+    }
+
+    /**
+     * Vérifie que l'ID utilisateur est porté par le token.
+     */
+    @Test
+    void generateJwtToken_WithUserId() {
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(42L, "testuser", "hash"));
+
+        String token = jwtUtils.generateJwtToken(authentication);
+        Claims claims = jwtUtils.parseJwtClaims(token);
+
+        assertEquals("testuser", claims.getSubject());
+        assertEquals(42L, claims.get(JwtUtils.USER_ID_CLAIM, Long.class));
+    }
+
+    /**
+     * Un token signé avec une autre clé est rejeté.
+     */
+    @Test
+    void parseJwtClaims_WrongSignature() {
+        JwtUtils otherJwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(otherJwtUtils, "jwtSecret", jwtSecret + "Other");
+        ReflectionTestUtils.setField(otherJwtUtils, "jwtExpirationMs", jwtExpirationMs);
+        otherJwtUtils.init();
+
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn("testuser");
+
+        String token = otherJwtUtils.generateJwtToken(authentication);
+
+        assertNull(jwtUtils.parseJwtClaims(token));
+    }
+
     @Test
     void validateJwtToken_Invalid() {
         assertFalse(jwtUtils.validateJwtToken("invalid-token"));
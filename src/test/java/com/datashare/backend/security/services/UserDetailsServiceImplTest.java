@@ -0,0 +1,128 @@
+package com.datashare.backend.security.services;
+
+import com.datashare.backend.model.AppUser;
+import com.datashare.backend.repository.AppUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests Unitaires pour UserDetailsServiceImpl.
+ * Vérifie le passage par le cache et son invalidation.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserDetailsServiceImplTest {
+
+    @Mock
+    private AppUserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserDetailsCache userDetailsCache;
+
+    private UserDetailsServiceImpl userDetailsService;
+
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() {
+        userDetailsCache = new UserDetailsCache(100, 300);
+        userDetailsService = new UserDetailsServiceImpl(userRepository, userDetailsCache, transactionManager);
+
+        user = new AppUser();
+        user.setId(1L);
+        user.setEmail("test@test.com");
+        user.setPasswordHash("hash");
+    }
+
+    /**
+     * Le second chargement est servi par le cache (une seule requête, une
+     * seule transaction).
+     */
+    @Test
+    void loadUserByUsername_Cached() {
+        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(user));
+
+        userDetailsService.loadUserByUsername("test@test.com");
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername("test@test.com");
+
+        assertEquals(1L, userDetails.getId());
+        verify(userRepository, times(1)).findByEmail("test@test.com");
+        verify(transactionManager, times(1)).getTransaction(any());
+        assertEquals(1, userDetailsCache.getHits());
+        assertEquals(1, userDetailsCache.getMisses());
+    }
+
+    /**
+     * Après modification du compte (listener JPA), l'utilisateur est rechargé.
+     */
+    @Test
+    void loadUserByUsername_ReloadedAfterEviction() {
+        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(user));
+        userDetailsService.loadUserByUsername("test@test.com");
+
+        new AppUserCacheListener(userDetailsCache).evict(user);
+        userDetailsService.loadUserByUsername("test@test.com");
+
+        verify(userRepository, times(2)).findByEmail("test@test.com");
+    }
+
+    /**
+     * Chargement concurrent entre le flush de la modification et le commit :
+     * l'ancienne ligne remise en cache est évincée après le commit.
+     */
+    @Test
+    void loadUserByUsername_StaleLoadEvictedAfterCommit() {
+        AppUser updated = new AppUser();
+        updated.setId(1L);
+        updated.setEmail("test@test.com");
+        updated.setPasswordHash("new-hash");
+        when(userRepository.findByEmail("test@test.com"))
+                .thenReturn(Optional.of(user), Optional.of(user), Optional.of(updated));
+        userDetailsService.loadUserByUsername("test@test.com");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Flush de la modification : éviction immédiate
+            new AppUserCacheListener(userDetailsCache).evict(updated);
+            // Requête concurrente : lit la ligne non encore commitée (ancien mot de passe)
+            assertEquals("hash", userDetailsService.loadUserByUsername("test@test.com").getPassword());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+                    .getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("new-hash", userDetailsService.loadUserByUsername("test@test.com").getPassword());
+        verify(userRepository, times(3)).findByEmail("test@test.com");
+    }
+
+    /**
+     * Un utilisateur inconnu lève UsernameNotFoundException (et n'est pas mis en cache).
+     */
+    @Test
+    void loadUserByUsername_NotFound() {
+        when(userRepository.findByEmail("unknown@test.com")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class,
+                () -> userDetailsService.loadUserByUsername("unknown@test.com"));
+    }
+}
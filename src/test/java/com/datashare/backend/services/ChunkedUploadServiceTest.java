@@ -0,0 +1,218 @@
+package com.datashare.backend.services;
+
+import com.datashare.backend.services.ChunkedUploadService.UploadSession;
+import com.datashare.backend.services.FileStorageService.StagedUpload;
+import com.datashare.backend.services.UploadInspector.RejectedContentException;
+import com.datashare.backend.storage.FilesystemStorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour ChunkedUploadService.
+ * Vérifie l'assemblage des chunks, la reprise et la promotion du staging.
+ */
+public class ChunkedUploadServiceTest {
+
+    private static final String HELLO_WORLD_SHA256 =
+            "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+
+    private ChunkedUploadService chunkedUploadService;
+    private FileStorageService fileStorageService;
+    private final String TEST_UPLOAD_DIR = "target/test-chunked-uploads";
+
+    @BeforeEach
+    public void setUp() {
+        fileStorageService = new FileStorageService();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", TEST_UPLOAD_DIR);
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend",
+                new FilesystemStorageBackend(TEST_UPLOAD_DIR));
+        ReflectionTestUtils.setField(fileStorageService, "uploadInspector", new UploadInspector());
+        fileStorageService.init();
+
+        chunkedUploadService = new ChunkedUploadService();
+        ReflectionTestUtils.setField(chunkedUploadService, "fileStorageService", fileStorageService);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(Paths.get(TEST_UPLOAD_DIR));
+    }
+
+    /**
+     * Deux chunks successifs sont assemblés, puis publiés seulement après le
+     * commit de l'enregistrement.
+     */
+    @Test
+    public void testChunksAssembledOnComplete() throws IOException {
+        UploadSession session = chunkedUploadService.init(1L, "test.txt", 11, null);
+
+        assertEquals(6, chunkedUploadService.appendChunk(session, 0, stream("Hello ")));
+        assertEquals(11, chunkedUploadService.appendChunk(session, 6, stream("World")));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            StagedUpload staged = chunkedUploadService.complete(session);
+            fileStorageService.publishOnCommit(staged);
+            Path path = Paths.get(TEST_UPLOAD_DIR).resolve(staged.storagePath());
+            assertFalse(Files.exists(path));
+
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertEquals("Hello World", Files.readString(path));
+            assertEquals(11, staged.size());
+            assertEquals(HELLO_WORLD_SHA256, staged.sha256());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(chunkedUploadService.find(session.getUploadId(), 1L).isEmpty());
+    }
+
+    /**
+     * Rollback de l'enregistrement : le fichier assemblé n'est jamais publié.
+     */
+    @Test
+    public void testCompleteRolledBack() throws IOException {
+        UploadSession session = chunkedUploadService.init(1L, "test.txt", 11, null);
+        chunkedUploadService.appendChunk(session, 0, stream("Hello World"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            StagedUpload staged = chunkedUploadService.complete(session);
+            fileStorageService.publishOnCommit(staged);
+
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            assertFalse(Files.exists(Paths.get(TEST_UPLOAD_DIR).resolve(staged.storagePath())));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        try (var files = Files.list(fileStorageService.getStagingLocation())) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Un chunk renvoyé après coupure (offset déjà reçu) réécrit la fin du fichier.
+     */
+    @Test
+    public void testChunkResentAfterInterruption() {
+        UploadSession session = chunkedUploadService.init(1L, "test.txt", 11, null);
+        chunkedUploadService.appendChunk(session, 0, stream("Hello Wo"));
+
+        assertEquals(11, chunkedUploadService.appendChunk(session, 6, stream("World")));
+        assertEquals(11, chunkedUploadService.currentOffset(session));
+    }
+
+    /**
+     * Chunk renvoyé puis chunk en échec : l'empreinte calculée au fil de l'eau est
+     * abandonnée, puis recalculée sur le fichier assemblé.
+     */
+    @Test
+    public void testDigestAfterResentChunk() {
+        UploadSession session = chunkedUploadService.init(1L, "test.txt", 11, null);
+        chunkedUploadService.appendChunk(session, 0, stream("Hello Wo"));
+        assertThrows(IllegalArgumentException.class,
+                () -> chunkedUploadService.appendChunk(session, 8, stream("rld and more")));
+        chunkedUploadService.appendChunk(session, 6, stream("World"));
+
+        StagedUpload staged = chunkedUploadService.complete(session);
+
+        assertEquals(HELLO_WORLD_SHA256, staged.sha256());
+    }
+
+    /**
+     * Un offset au-delà des octets reçus est refusé.
+     */
+    @Test
+    public void testOffsetGapRejected() {
+        UploadSession session = chunkedUploadService.init(1L, "test.txt", 11, null);
+
+        assertThrows(IllegalStateException.class,
+                () -> chunkedUploadService.appendChunk(session, 6, stream("World")));
+    }
+
+    /**
+     * Un chunk dépassant la taille annoncée est refusé et annulé.
+     */
+    @Test
+    public void testChunkExceedingTotalSizeRejected() {
+        UploadSession session = chunkedUploadService.init(1L, "test.txt", 5, null);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> chunkedUploadService.appendChunk(session, 0, stream("Hello World")));
+        assertEquals(0, chunkedUploadService.currentOffset(session));
+    }
+
+    /**
+     * La finalisation d'un upload incomplet est refusée.
+     */
+    @Test
+    public void testCompleteIncompleteUpload_ThrowsException() {
+        UploadSession session = chunkedUploadService.init(1L, "test.txt", 11, null);
+        chunkedUploadService.appendChunk(session, 0, stream("Hello"));
+
+        assertThrows(IllegalStateException.class, () -> chunkedUploadService.complete(session));
+    }
+
+    /**
+     * En-tête d'exécutable réparti sur deux chunks (premier octet seul, puis la
+     * suite à l'offset 1) : refusé à la finalisation, fragments supprimés.
+     */
+    @Test
+    public void testExecutableHeaderSplitAcrossChunks_Rejected() throws IOException {
+        byte[] pe = new byte[128];
+        pe[0] = 'M';
+        pe[1] = 'Z';
+        pe[0x3C] = 64;
+        System.arraycopy(new byte[] { 'P', 'E', 0, 0 }, 0, pe, 64, 4);
+        byte[] elf = { 0x7F, 'E', 'L', 'F', 2, 1, 1, 0 };
+        byte[] script = "#!/bin/sh\nrm -rf /\n".getBytes();
+
+        for (byte[] header : new byte[][] { pe, elf, script }) {
+            UploadSession session = chunkedUploadService.init(1L, "notes.txt", header.length, null);
+            chunkedUploadService.appendChunk(session, 0, new ByteArrayInputStream(header, 0, 1));
+            chunkedUploadService.appendChunk(session, 1, new ByteArrayInputStream(header, 1, header.length - 1));
+
+            assertThrows(RejectedContentException.class, () -> chunkedUploadService.complete(session));
+            assertEquals(0, chunkedUploadService.currentOffset(session));
+            assertTrue(chunkedUploadService.find(session.getUploadId(), 1L).isEmpty());
+        }
+        try (var files = Files.list(fileStorageService.getStagingLocation())) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Une session n'est visible que par son propriétaire.
+     */
+    @Test
+    public void testSessionScopedToOwner() {
+        UploadSession session = chunkedUploadService.init(1L, "test.txt", 11, null);
+
+        assertTrue(chunkedUploadService.find(session.getUploadId(), 1L).isPresent());
+        assertTrue(chunkedUploadService.find(session.getUploadId(), 2L).isEmpty());
+    }
+
+    private void completeTransaction(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes());
+    }
+}
@@ -0,0 +1,85 @@
+package com.datashare.backend.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour ContentCompressor.
+ * Vérifie la détection des formats compressés et la compression gzip.
+ */
+public class ContentCompressorTest {
+
+    private final ContentCompressor contentCompressor = new ContentCompressor();
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Les formats déjà compressés sont reconnus à leurs octets magiques.
+     */
+    @Test
+    void isCompressible_SniffsMagicBytes() {
+        assertFalse(isCompressible(new byte[] { (byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A }));
+        assertFalse(isCompressible(new byte[] { 0x1F, (byte) 0x8B, 0x08, 0x00 }));
+        assertFalse(isCompressible(new byte[] { 'P', 'K', 0x03, 0x04, 0x14 }));
+        assertFalse(isCompressible(new byte[] { 0, 0, 0, 0x20, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm' }));
+        assertTrue(isCompressible("date,level,message\n".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(isCompressible("{\"id\": 1}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Un CSV est compressé et restitué à l'identique.
+     */
+    @Test
+    void compress_TextContent() throws IOException {
+        byte[] csv = "2024-01-01,INFO,request served in 12 ms\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        Path target = tempDir.resolve("export.gz");
+
+        assertTrue(contentCompressor.compress(() -> new ByteArrayInputStream(csv), csv.length, target));
+
+        assertTrue(Files.size(target) < csv.length / 10);
+        try (InputStream in = ContentCompressor.decompress(Files.newInputStream(target))) {
+            assertArrayEquals(csv, in.readAllBytes());
+        }
+    }
+
+    /**
+     * Contenu incompressible (aléatoire) : stocké tel quel, aucun fichier laissé.
+     */
+    @Test
+    void compress_InsufficientGain() throws IOException {
+        byte[] random = new byte[64 * 1024];
+        new Random(42).nextBytes(random);
+        random[0] = 'x'; // pas d'octets magiques reconnus
+        Path target = tempDir.resolve("random.gz");
+
+        assertFalse(contentCompressor.compress(() -> new ByteArrayInputStream(random), random.length, target));
+        assertFalse(Files.exists(target));
+    }
+
+    /**
+     * Format déjà compressé : aucune tentative de compression.
+     */
+    @Test
+    void compress_SkipsCompressedFormats() throws IOException {
+        byte[] jpeg = new byte[] { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0, 0, 0 };
+        Path target = tempDir.resolve("photo.gz");
+
+        assertFalse(contentCompressor.compress(() -> new ByteArrayInputStream(jpeg), jpeg.length, target));
+        assertFalse(Files.exists(target));
+    }
+
+    private boolean isCompressible(byte[] header) {
+        return contentCompressor.isCompressible(header, Math.min(header.length, ContentCompressor.HEADER_SIZE));
+    }
+}
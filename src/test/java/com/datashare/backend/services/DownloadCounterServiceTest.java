@@ -0,0 +1,127 @@
+package com.datashare.backend.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests Unitaires pour DownloadCounterService.
+ * Vérifie l'agrégation des incréments et leur écriture en batch.
+ */
+@ExtendWith(MockitoExtension.class)
+public class DownloadCounterServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private DownloadCounterService downloadCounterService;
+
+    // Deltas écrits en base, cumulés par ID de partage
+    private final Map<Long, Long> flushed = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        downloadCounterService = new DownloadCounterService(jdbcTemplate);
+    }
+
+    /**
+     * Les incréments sont agrégés par partage et écrits en un seul batch.
+     */
+    @Test
+    void flush_AggregatesDeltas() {
+        captureBatches();
+        downloadCounterService.recordDownload(1L);
+        downloadCounterService.recordDownload(1L);
+        downloadCounterService.recordDownload(1L);
+        downloadCounterService.recordDownload(2L);
+
+        downloadCounterService.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertEquals(Map.of(1L, 3L, 2L, 1L), flushed);
+    }
+
+    /**
+     * Sans nouveau téléchargement, aucun batch n'est envoyé.
+     */
+    @Test
+    void flush_NothingPending() {
+        downloadCounterService.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * En cas d'échec de l'écriture, les deltas sont conservés pour le flush suivant.
+     */
+    @Test
+    void flush_FailureKeepsDeltas() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        downloadCounterService.recordDownload(1L);
+        downloadCounterService.recordDownload(1L);
+
+        downloadCounterService.flush();
+
+        assertEquals(2L, downloadCounterService.pending(1L));
+    }
+
+    /**
+     * Incréments concurrents et flushs simultanés : aucun téléchargement perdu
+     * ni compté deux fois.
+     */
+    @Test
+    void flush_ConcurrentDownloadsNotLost() throws Exception {
+        captureBatches();
+        int threads = 8;
+        int downloadsPerThread = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < downloadsPerThread; i++) {
+                    downloadCounterService.recordDownload((long) (i % 3));
+                }
+            }));
+        }
+        while (futures.stream().anyMatch(future -> !future.isDone())) {
+            downloadCounterService.flush();
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        downloadCounterService.flush();
+
+        long total = flushed.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals((long) threads * downloadsPerThread, total);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void captureBatches() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            for (Object[] row : batch) {
+                flushed.merge((Long) row[1], (Long) row[0], Long::sum);
+            }
+            return new int[batch.size()];
+        });
+    }
+}
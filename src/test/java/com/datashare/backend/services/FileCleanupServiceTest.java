@@ -0,0 +1,218 @@
+package com.datashare.backend.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests Unitaires pour FileCleanupService.
+ * Vérifie le découpage en lots, les DELETE ensemblistes, le décrément des
+ * quotas et la libération des contenus après chaque lot.
+ */
+@ExtendWith(MockitoExtension.class)
+public class FileCleanupServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private ShareLookupService shareLookupService;
+
+    @Mock
+    private SchedulerLeaseService leaseService;
+
+    @Mock
+    private QuotaService quotaService;
+
+    private FileCleanupService cleanupService;
+
+    @BeforeEach
+    void setUp() {
+        cleanupService = new FileCleanupService(jdbcTemplate, transactionManager, fileStorageService,
+                shareLookupService, leaseService, quotaService, 2);
+        ReflectionTestUtils.setField(cleanupService, "batchSize", 2);
+        ReflectionTestUtils.setField(cleanupService, "partitions", 1);
+        ReflectionTestUtils.setField(cleanupService, "leaseSeconds", 300L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupService.shutdown();
+    }
+
+    /**
+     * Lot complet puis lot partiel : deux transactions, DELETE des partages puis
+     * des fichiers par lot, quotas décrémentés par propriétaire, contenus
+     * libérés et cache invalidé.
+     */
+    @Test
+    void deleteExpiredFiles_InBatches() {
+        when(leaseService.tryAcquire(eq("file-cleanup-0"), any())).thenReturn(true);
+        when(leaseService.renew(eq("file-cleanup-0"), any())).thenReturn(true);
+        doAnswer(rows(1L, 2L)).doAnswer(rows(3L))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+                        any(LocalDateTime.class), eq(1), eq(0), eq(2));
+
+        assertEquals(3, cleanupService.deleteExpiredFiles());
+
+        verify(jdbcTemplate).update("DELETE FROM share WHERE file_id IN (?,?)", 1L, 2L);
+        verify(jdbcTemplate).update("DELETE FROM file WHERE id IN (?,?)", 1L, 2L);
+        verify(jdbcTemplate).update("DELETE FROM share WHERE file_id IN (?)", 3L);
+        verify(jdbcTemplate).update("DELETE FROM file WHERE id IN (?)", 3L);
+        verify(quotaService).release(Map.of(11L, 100L, 10L, 200L));
+        verify(quotaService).release(Map.of(11L, 300L));
+        verify(transactionManager, times(2)).commit(any());
+        verify(shareLookupService).invalidateFiles(List.of(1L, 2L));
+        verify(shareLookupService).invalidateFiles(List.of(3L));
+        verify(fileStorageService).release("file-1");
+        verify(fileStorageService).release("file-2");
+        verify(fileStorageService).release("file-3");
+        verify(leaseService).release("file-cleanup-0");
+    }
+
+    /**
+     * Un contenu impossible à libérer n'empêche pas la libération des autres.
+     */
+    @Test
+    void deleteExpiredFiles_ReleaseFailure() {
+        when(leaseService.tryAcquire(eq("file-cleanup-0"), any())).thenReturn(true);
+        when(leaseService.renew(eq("file-cleanup-0"), any())).thenReturn(true);
+        doAnswer(rows(1L, 2L)).doAnswer(rows())
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+                        any(LocalDateTime.class), eq(1), eq(0), eq(2));
+        doThrow(new RuntimeException("disk error")).when(fileStorageService).release("file-1");
+
+        assertEquals(2, cleanupService.deleteExpiredFiles());
+
+        verify(fileStorageService).release("file-2");
+    }
+
+    /**
+     * Aucun fichier expiré : une seule sélection, aucun DELETE.
+     */
+    @Test
+    void deleteExpiredFiles_Nothing() {
+        when(leaseService.tryAcquire(eq("file-cleanup-0"), any())).thenReturn(true);
+        doAnswer(rows())
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+                        any(LocalDateTime.class), eq(1), eq(0), eq(2));
+
+        assertEquals(0, cleanupService.deleteExpiredFiles());
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verifyNoInteractions(fileStorageService, shareLookupService);
+    }
+
+    /**
+     * Bail détenu par une autre instance : rien n'est sélectionné ni supprimé.
+     */
+    @Test
+    void deleteExpiredFiles_LeaseHeldElsewhere() {
+        when(leaseService.tryAcquire(eq("file-cleanup-0"), any())).thenReturn(false);
+
+        assertEquals(0, cleanupService.deleteExpiredFiles());
+
+        verifyNoInteractions(jdbcTemplate, transactionManager, fileStorageService);
+        verify(leaseService, never()).release(anyString());
+    }
+
+    /**
+     * Bail perdu en cours de tâche (expiré et repris) : arrêt après le lot en cours.
+     */
+    @Test
+    void deleteExpiredFiles_StopsWhenLeaseLost() {
+        when(leaseService.tryAcquire(eq("file-cleanup-0"), any())).thenReturn(true);
+        when(leaseService.renew(eq("file-cleanup-0"), any())).thenReturn(false);
+        doAnswer(rows(1L, 2L))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+                        any(LocalDateTime.class), eq(1), eq(0), eq(2));
+
+        assertEquals(2, cleanupService.deleteExpiredFiles());
+
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class),
+                any(LocalDateTime.class), eq(1), eq(0), eq(2));
+    }
+
+    /**
+     * Plusieurs partitions : seules celles dont le bail est obtenu sont traitées,
+     * avec leur filtre modulo.
+     */
+    @Test
+    void deleteExpiredFiles_Partitions() {
+        ReflectionTestUtils.setField(cleanupService, "partitions", 2);
+        when(leaseService.tryAcquire(eq("file-cleanup-0"), any())).thenReturn(false);
+        when(leaseService.tryAcquire(eq("file-cleanup-1"), any())).thenReturn(true);
+        doAnswer(rows(3L))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+                        any(LocalDateTime.class), eq(2), eq(1), eq(2));
+
+        assertEquals(1, cleanupService.deleteExpiredFiles());
+
+        verify(fileStorageService).release("file-3");
+        verify(leaseService).release("file-cleanup-1");
+        verify(leaseService, never()).release("file-cleanup-0");
+    }
+
+    /**
+     * Fichiers arrivés à échéance (roue d'expiration) : seuls ceux encore expirés
+     * et non verrouillés sont supprimés, sans bail.
+     */
+    @Test
+    void deleteExpiredFiles_ByIds() {
+        doAnswer(rows(5L))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+                        any(LocalDateTime.class), eq(5L), eq(6L));
+
+        assertEquals(1, cleanupService.deleteExpiredFiles(List.of(5L, 6L)));
+
+        verify(jdbcTemplate).query(eq("SELECT id, storage_path, owner_id, size FROM file WHERE expiration_date < ? "
+                + "AND id IN (?,?) FOR UPDATE SKIP LOCKED"), any(RowCallbackHandler.class),
+                any(LocalDateTime.class), eq(5L), eq(6L));
+        verify(jdbcTemplate).update("DELETE FROM file WHERE id IN (?)", 5L);
+        verify(quotaService).release(Map.of(11L, 500L));
+        verify(fileStorageService).release("file-5");
+        verifyNoInteractions(leaseService);
+    }
+
+    // Simule les lignes (id, storage_path, owner_id, size) retournées par la sélection
+    // d'un lot : fichier "file-N" de N * 100 octets, appartenant à l'utilisateur 10 + N % 2
+    private Answer<Void> rows(long... ids) {
+        return invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long id : ids) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(id);
+                when(rs.getString(2)).thenReturn("file-" + id);
+                when(rs.getLong(3)).thenReturn(10L + id % 2);
+                when(rs.getLong(4)).thenReturn(id * 100);
+                handler.processRow(rs);
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.datashare.backend.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour FileDownloadWriter.
+ * Vérifie le choix entre sendfile (Tomcat) et la copie par blocs.
+ */
+public class FileDownloadWriterTest {
+
+    private final FileDownloadWriter fileDownloadWriter = new FileDownloadWriter();
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Sans support sendfile, les octets sont copiés dans la réponse.
+     */
+    @Test
+    public void testWriteWithoutSendfile() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.txt"), "Hello World");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileDownloadWriter.write(file, 6, 5, request, response);
+
+        assertEquals("World", response.getContentAsString());
+        assertEquals(5, response.getContentLengthLong());
+    }
+
+    /**
+     * Avec support sendfile, l'envoi est délégué au connecteur Tomcat.
+     */
+    @Test
+    public void testWriteWithSendfile() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.txt"), "Hello World");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(FileDownloadWriter.SENDFILE_SUPPORT, Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileDownloadWriter.write(file, 0, 11, request, response);
+
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute(FileDownloadWriter.SENDFILE_FILENAME));
+        assertEquals(0L, request.getAttribute(FileDownloadWriter.SENDFILE_START));
+        assertEquals(11L, request.getAttribute(FileDownloadWriter.SENDFILE_END));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    /**
+     * Une plage unique produit un 206 avec Content-Range.
+     */
+    @Test
+    public void testWriteSingleRange() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.txt"), "Hello World");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileDownloadWriter.writeRanges(file, 11, HttpRange.parseRanges("bytes=-5"), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 6-10/11", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("World", response.getContentAsString());
+    }
+
+    /**
+     * Plusieurs plages produisent un corps multipart/byteranges.
+     */
+    @Test
+    public void testWriteMultipleRanges() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.txt"), "Hello World");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileDownloadWriter.writeRanges(file, 11, HttpRange.parseRanges("bytes=0-4,6-10"), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+        String body = response.getContentAsString();
+        assertTrue(body.contains("Content-Range: bytes 0-4/11\r\n\r\nHello"));
+        assertTrue(body.contains("Content-Range: bytes 6-10/11\r\n\r\nWorld"));
+        assertEquals(body.length(), response.getContentLengthLong());
+    }
+
+    /**
+     * Portion couvrant plusieurs blocs de copie, à partir d'un offset quelconque.
+     */
+    @Test
+    public void testTransferSeveralBlocks() throws IOException {
+        byte[] content = new byte[FileDownloadWriter.COPY_BUFFER_SIZE * 2 + 100];
+        new Random(42).nextBytes(content);
+        Path file = Files.write(tempDir.resolve("test.bin"), content);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        fileDownloadWriter.transfer(file, 7, content.length - 10, out);
+
+        assertArrayEquals(Arrays.copyOfRange(content, 7, content.length - 3), out.toByteArray());
+    }
+
+    /**
+     * Un fichier plus court que la portion demandée lève une erreur.
+     */
+    @Test
+    public void testTransferTruncatedFile_ThrowsException() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.txt"), "Hello");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThrows(IOException.class,
+                () -> fileDownloadWriter.transfer(file, 0, 11, response.getOutputStream()));
+    }
+}
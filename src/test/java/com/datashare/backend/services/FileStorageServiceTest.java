@@ -1,11 +1,18 @@
 package com.datashare.backend.services;
 
+import com.datashare.backend.repository.FileRepository;
+import com.datashare.backend.services.FileStorageService.StagedUpload;
+import com.datashare.backend.storage.FilesystemStorageBackend;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.FileSystemUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -13,6 +20,10 @@ import java.nio.file.Paths;
 import java.lang.reflect.Field;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 /**
  * Tests Unitaires pour FileStorageService.
@@ -32,6 +43,11 @@ public class FileStorageServiceTest {
         uploadDirField.setAccessible(true);
         uploadDirField.set(fileStorageService, TEST_UPLOAD_DIR);
 
+        // Stockage sur disque dans le répertoire de test
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend",
+                new FilesystemStorageBackend(TEST_UPLOAD_DIR));
+        ReflectionTestUtils.setField(fileStorageService, "uploadInspector", new UploadInspector());
+
         // Initialisation manuelle
         fileStorageService.init();
     }
@@ -62,6 +78,80 @@ public class FileStorageServiceTest {
         assertTrue(Files.exists(path));
     }
 
+    /**
+     * Upload en transaction : invisible sous son chemin définitif avant le
+     * commit, publié après, sans reste dans la zone de staging.
+     */
+    @Test
+    public void testPublishOnCommit() throws IOException {
+        Path staging = Paths.get(TEST_UPLOAD_DIR).resolve(FileStorageService.STAGING_DIR);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            StagedUpload staged = fileStorageService.stage(
+                    new MockMultipartFile("file", "test.txt", "text/plain", "Hello World".getBytes()));
+            // Empreinte calculée pendant la copie
+            assertEquals("a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e", staged.sha256());
+            assertFalse(staged.isDeduplicated());
+            fileStorageService.publishOnCommit(staged);
+            assertFalse(Files.exists(Paths.get(TEST_UPLOAD_DIR).resolve(staged.storagePath())));
+
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertEquals("Hello World",
+                    Files.readString(Paths.get(TEST_UPLOAD_DIR).resolve(staged.storagePath())));
+            try (var files = Files.list(staging)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Rollback : le fichier n'est jamais publié et le staging est supprimé.
+     */
+    @Test
+    public void testPublishOnCommit_Rollback() throws IOException {
+        Path staging = Paths.get(TEST_UPLOAD_DIR).resolve(FileStorageService.STAGING_DIR);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            StagedUpload staged = fileStorageService.stage(
+                    new MockMultipartFile("file", "test.txt", "text/plain", "Hello World".getBytes()));
+            fileStorageService.publishOnCommit(staged);
+
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            assertFalse(Files.exists(Paths.get(TEST_UPLOAD_DIR).resolve(staged.storagePath())));
+            try (var files = Files.list(staging)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Arrêt entre le commit et la publication : l'upload dont la ligne est en
+     * base est publié au redémarrage.
+     */
+    @Test
+    public void testRecoverStagedUploads() {
+        FileRepository fileRepository = mock(FileRepository.class);
+        ReflectionTestUtils.setField(fileStorageService, "fileRepository", fileRepository);
+        StagedUpload committed = fileStorageService.stage(
+                new MockMultipartFile("file", "test.txt", "text/plain", "Hello World".getBytes()));
+        StagedUpload pending = fileStorageService.stage(
+                new MockMultipartFile("file", "other.txt", "text/plain", "Other".getBytes()));
+        when(fileRepository.existsByStoragePath(committed.storagePath())).thenReturn(true);
+
+        fileStorageService.recoverStagedUploads();
+
+        assertTrue(Files.exists(Paths.get(TEST_UPLOAD_DIR).resolve(committed.storagePath())));
+        assertFalse(Files.exists(committed.content()));
+        // Sans ligne en base et récent : conservé (transaction peut-être encore en cours)
+        assertTrue(Files.exists(pending.content()));
+    }
+
     /**
      * Vérifie que le stockage d'un fichier vide lève une exception.
      */
@@ -79,4 +169,199 @@ public class FileStorageServiceTest {
 
         assertEquals("Failed to store empty file.", exception.getMessage());
     }
+
+    /**
+     * Upload en flux : taille mesurée pendant la copie ; contenu vide refusé
+     * sans laisser de fichier en staging.
+     */
+    @Test
+    public void testStageFromStream() throws IOException {
+        StagedUpload staged = fileStorageService.stage("notes.txt",
+                new ByteArrayInputStream("Hello World".getBytes()));
+
+        assertEquals(11L, staged.size());
+        assertEquals("Hello World", Files.readString(staged.content()));
+        fileStorageService.discard(staged);
+        assertFalse(Files.exists(staged.content()));
+
+        Exception exception = assertThrows(RuntimeException.class,
+                () -> fileStorageService.stage("empty.txt", new ByteArrayInputStream(new byte[0])));
+        assertEquals("Failed to store empty file.", exception.getMessage());
+        try (var files = Files.list(Paths.get(TEST_UPLOAD_DIR).resolve(FileStorageService.STAGING_DIR))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Mode dédupliqué : deux uploads identiques partagent un seul contenu sur
+     * disque, stocké sous son empreinte SHA-256.
+     */
+    @Test
+    public void testStoreDeduplicated() throws IOException {
+        BlobReferenceService blobReferenceService = mock(BlobReferenceService.class);
+        when(blobReferenceService.retain(any(), anyLong())).thenReturn(1, 2);
+        ReflectionTestUtils.setField(fileStorageService, "dedupEnabled", true);
+        ReflectionTestUtils.setField(fileStorageService, "blobReferenceService", blobReferenceService);
+
+        String first = fileStorageService.store(
+                new MockMultipartFile("file", "a.txt", "text/plain", "Hello World".getBytes()));
+        String second = fileStorageService.store(
+                new MockMultipartFile("file", "b.txt", "text/plain", "Hello World".getBytes()));
+
+        // SHA-256("Hello World")
+        String digest = "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+        assertEquals("blobs/a5/" + digest, first);
+        assertEquals(first, second);
+        assertTrue(Files.exists(Paths.get(TEST_UPLOAD_DIR).resolve(first)));
+        verify(blobReferenceService, times(2)).retain(digest, 11L);
+
+        // Aucun fichier de staging ne reste après placement
+        try (var staged = Files.list(Paths.get(TEST_UPLOAD_DIR).resolve(FileStorageService.STAGING_DIR))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+    /**
+     * Variante compressée déjà stockée : le staging est compressé lui aussi,
+     * pour rester lisible si la variante est supprimée avant la publication.
+     */
+    @Test
+    public void testStoreDeduplicated_ExistingCompressedVariantReleasedBeforePublish() throws IOException {
+        BlobReferenceService blobReferenceService = mock(BlobReferenceService.class);
+        ReflectionTestUtils.setField(fileStorageService, "dedupEnabled", true);
+        ReflectionTestUtils.setField(fileStorageService, "blobReferenceService", blobReferenceService);
+        ReflectionTestUtils.setField(fileStorageService, "contentCompressor", new ContentCompressor());
+        String digest = "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+        Path variant = Paths.get(TEST_UPLOAD_DIR).resolve("blobs/a5/" + digest + ".gz");
+        Files.createDirectories(variant.getParent());
+        Files.write(variant, new byte[] { 0x1F, (byte) 0x8B });
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            StagedUpload staged = fileStorageService.stage(
+                    new MockMultipartFile("file", "a.txt", "text/plain", "Hello World".getBytes()));
+            fileStorageService.publishOnCommit(staged);
+            assertEquals("blobs/a5/" + digest + ".gz", staged.storagePath());
+
+            // Dernière référence de la variante libérée avant le commit
+            Files.delete(variant);
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        try (var in = ContentCompressor.decompress(Files.newInputStream(variant))) {
+            assertEquals("Hello World", new String(in.readAllBytes()));
+        }
+    }
+
+    /**
+     * La libération d'un contenu dédupliqué passe par le compteur de références.
+     */
+    @Test
+    public void testReleaseDeduplicatedDelegatesToReferenceCount() {
+        BlobReferenceService blobReferenceService = mock(BlobReferenceService.class);
+        ReflectionTestUtils.setField(fileStorageService, "blobReferenceService", blobReferenceService);
+
+        fileStorageService.release("blobs/a5/a591a6d4");
+
+        verify(blobReferenceService).release(eq("a591a6d4"), any(Runnable.class));
+    }
+
+    /**
+     * La libération d'un fichier classique le supprime directement.
+     */
+    @Test
+    public void testReleaseDeletesRegularFile() {
+        String storedFilename = fileStorageService.store(
+                new MockMultipartFile("file", "test.txt", "text/plain", "Hello World".getBytes()));
+
+        fileStorageService.release(storedFilename);
+
+        assertFalse(Files.exists(Paths.get(TEST_UPLOAD_DIR).resolve(storedFilename)));
+    }
+
+    /**
+     * Mode compression : un CSV est stocké compressé (UUID.gz), une image PNG
+     * est stockée telle quelle.
+     */
+    @Test
+    public void testStoreCompressed() throws IOException {
+        ReflectionTestUtils.setField(fileStorageService, "compressionEnabled", true);
+        ReflectionTestUtils.setField(fileStorageService, "contentCompressor", new ContentCompressor());
+
+        byte[] csv = "id,name,size\n1,report,1024\n".repeat(500).getBytes();
+        String compressed = fileStorageService.store(new MockMultipartFile("file", "export.csv", "text/csv", csv));
+        byte[] png = new byte[] { (byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0 };
+        String raw = fileStorageService.store(new MockMultipartFile("file", "image.png", "image/png", png));
+
+        assertTrue(FileStorageService.isGzipped(compressed));
+        assertTrue(Files.size(Paths.get(TEST_UPLOAD_DIR).resolve(compressed)) < csv.length);
+        assertFalse(FileStorageService.isGzipped(raw));
+        assertTrue(raw.endsWith("_image.png"));
+    }
+
+    /**
+     * Un fichier classique nommé *.gz n'est pas confondu avec un contenu compressé
+     * par le stockage.
+     */
+    @Test
+    public void testIsGzipped() {
+        assertTrue(FileStorageService.isGzipped("0b7e4c9a-1f2d-4e3a-9c8b-7d6e5f4a3b2c.gz"));
+        assertTrue(FileStorageService.isGzipped("blobs/a5/a591a6d4.gz"));
+        assertFalse(FileStorageService.isGzipped("0b7e4c9a-1f2d-4e3a-9c8b-7d6e5f4a3b2c_logs.gz"));
+        assertFalse(FileStorageService.isGzipped("blobs/a5/a591a6d4"));
+    }
+
+    /**
+     * Répartition en sous-dossiers : le fichier est stocké sous ab/cd/UUID_nom.
+     */
+    @Test
+    public void testStoreSharded() {
+        ReflectionTestUtils.setField(fileStorageService, "shardDepth", 2);
+
+        String storedFilename = fileStorageService.store(
+                new MockMultipartFile("file", "test.txt", "text/plain", "Hello World".getBytes()));
+
+        String uuid = storedFilename.substring(storedFilename.lastIndexOf('/') + 1);
+        assertEquals(uuid.substring(0, 2) + "/" + uuid.substring(2, 4) + "/" + uuid, storedFilename);
+        assertTrue(Files.exists(Paths.get(TEST_UPLOAD_DIR).resolve(storedFilename)));
+    }
+
+    /**
+     * Un nom d'origine contenant des séparateurs ne peut pas créer d'autres
+     * sous-dossiers.
+     */
+    @Test
+    public void testStoreSharded_RejectsNestedNames() {
+        ReflectionTestUtils.setField(fileStorageService, "shardDepth", 2);
+
+        assertThrows(RuntimeException.class, () -> fileStorageService.store(
+                new MockMultipartFile("file", "../../evil.txt", "text/plain", "Hello World".getBytes())));
+    }
+
+    /**
+     * Après migration, l'ancien chemin à plat reste résolu vers le nouveau.
+     */
+    @Test
+    public void testLinkToShardedPath_OldPathStillResolves() throws IOException {
+        String flat = fileStorageService.store(
+                new MockMultipartFile("file", "test.txt", "text/plain", "Hello World".getBytes()));
+        ReflectionTestUtils.setField(fileStorageService, "shardDepth", 2);
+
+        String sharded = fileStorageService.linkToShardedPath(flat);
+        fileStorageService.delete(flat);
+
+        assertEquals(fileStorageService.shardedPath(flat), sharded);
+        assertFalse(Files.exists(Paths.get(TEST_UPLOAD_DIR).resolve(flat)));
+        try (var in = fileStorageService.load(flat).open()) {
+            assertEquals("Hello World", new String(in.readAllBytes()));
+        }
+    }
+
+    private void completeTransaction(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+    }
 }
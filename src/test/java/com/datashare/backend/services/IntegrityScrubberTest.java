@@ -0,0 +1,140 @@
+package com.datashare.backend.services;
+
+import com.datashare.backend.storage.FilesystemStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests Unitaires pour IntegrityScrubber.
+ * Vérifie la comparaison des empreintes (contenu brut ou compressé), le
+ * signalement des contenus absents et la reprise du parcours par lots.
+ */
+@ExtendWith(MockitoExtension.class)
+public class IntegrityScrubberTest {
+
+    // SHA-256 de "Hello World"
+    private static final String HELLO_SHA256 = "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+
+    @TempDir
+    Path uploadDir;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private SchedulerLeaseService leaseService;
+
+    private IntegrityScrubber scrubber;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        scrubber = new IntegrityScrubber(jdbcTemplate, fileStorageService, leaseService, false, "node-1");
+        ReflectionTestUtils.setField(scrubber, "enabled", true);
+        ReflectionTestUtils.setField(scrubber, "batchSize", 3);
+        ReflectionTestUtils.setField(scrubber, "maxBytesPerSecond", 0L);
+        ReflectionTestUtils.setField(scrubber, "leaseSeconds", 600L);
+
+        FilesystemStorageBackend backend = new FilesystemStorageBackend(uploadDir.toString());
+        Files.writeString(uploadDir.resolve("ok.txt"), "Hello World");
+        Files.writeString(uploadDir.resolve("corrupted.txt"), "Hello Wor1d");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(uploadDir.resolve("blob.gz")))) {
+            out.write("Hello World".getBytes(StandardCharsets.UTF_8));
+        }
+        lenient().when(fileStorageService.find(anyString()))
+                .thenAnswer(invocation -> backend.find(invocation.getArgument(0)));
+        lenient().when(leaseService.tryAcquire(eq("integrity-scrub-node-1"), any())).thenReturn(true);
+    }
+
+    /**
+     * Contenu intact (brut ou compressé au repos), corrompu puis absent.
+     */
+    @Test
+    void scrub_DetectsCorruption() {
+        stubBatch(0L, new Object[] { 1L, "ok.txt", HELLO_SHA256 },
+                new Object[] { 2L, "corrupted.txt", HELLO_SHA256 },
+                new Object[] { 3L, "blob.gz", HELLO_SHA256 });
+
+        IntegrityScrubber.Report report = scrubber.scrub().orElseThrow();
+
+        assertEquals(3, report.checked());
+        assertEquals(1, report.corrupted());
+        assertEquals(0, report.missing());
+        assertEquals(33, report.bytes());
+        verify(leaseService).release("integrity-scrub-node-1");
+    }
+
+    /**
+     * Lot complet : le passage suivant reprend après le dernier ID ; lot
+     * incomplet (fin de table) : retour au début.
+     */
+    @Test
+    void scrub_ResumesAfterLastId() {
+        stubBatch(0L, new Object[] { 1L, "ok.txt", HELLO_SHA256 },
+                new Object[] { 2L, "ok.txt", HELLO_SHA256 },
+                new Object[] { 7L, "ok.txt", HELLO_SHA256 });
+        stubBatch(7L, new Object[] { 9L, "missing.txt", HELLO_SHA256 });
+
+        scrubber.scrub();
+        IntegrityScrubber.Report report = scrubber.scrub().orElseThrow();
+
+        assertEquals(0, report.checked());
+        assertEquals(1, report.missing());
+        assertEquals(0L, ReflectionTestUtils.getField(scrubber, "cursor"));
+    }
+
+    /**
+     * Bail détenu par une autre instance : aucune lecture.
+     */
+    @Test
+    void scrub_LeaseHeldElsewhere() {
+        when(leaseService.tryAcquire(eq("integrity-scrub-node-1"), any())).thenReturn(false);
+
+        assertTrue(scrubber.scrub().isEmpty());
+
+        verifyNoInteractions(jdbcTemplate, fileStorageService);
+    }
+
+    // Simule le lot (id, storage_path, sha256) lu après l'ID donné
+    private void stubBatch(long afterId, Object[]... rows) {
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<Object>>any(), eq(afterId), eq(3)))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    List<Object> result = new ArrayList<>();
+                    for (Object[] row : rows) {
+                        ResultSet rs = mock(ResultSet.class);
+                        when(rs.getLong(1)).thenReturn((Long) row[0]);
+                        when(rs.getString(2)).thenReturn((String) row[1]);
+                        when(rs.getString(3)).thenReturn((String) row[2]);
+                        result.add(mapper.mapRow(rs, result.size()));
+                    }
+                    return result;
+                });
+    }
+}
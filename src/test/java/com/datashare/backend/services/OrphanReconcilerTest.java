@@ -0,0 +1,207 @@
+package com.datashare.backend.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests Unitaires pour OrphanReconciler.
+ * Vérifie la jointure entre le parcours trié du disque et le flux des
+ * storage_path, le délai de grâce et la réparation des orphelins.
+ */
+@ExtendWith(MockitoExtension.class)
+public class OrphanReconcilerTest {
+
+    private static final String COUNT_FILES = "SELECT count(*) FROM file WHERE storage_path IN (?, ?)";
+
+    @TempDir
+    Path uploadDir;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private SchedulerLeaseService leaseService;
+
+    private OrphanReconciler reconciler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        reconciler = new OrphanReconciler(jdbcTemplate, transactionManager, leaseService,
+                uploadDir.toString(), "filesystem", false, "node-1");
+        ReflectionTestUtils.setField(reconciler, "enabled", true);
+        ReflectionTestUtils.setField(reconciler, "graceMinutes", 60L);
+        ReflectionTestUtils.setField(reconciler, "maxFilesPerSecond", 0);
+        ReflectionTestUtils.setField(reconciler, "maxRepairs", 1000);
+        ReflectionTestUtils.setField(reconciler, "leaseSeconds", 3600L);
+
+        oldFile("ab/cd/ok.txt");
+        oldFile("ab/cd/orphan.txt");
+        Files.writeString(uploadDir.resolve("ab/cd/recent.txt"), "upload en cours");
+        oldFile(".staging/upload.part");
+        oldFile("ab/.temp.tmp");
+    }
+
+    /**
+     * Orphelin ancien signalé, fichier récent ignoré (délai de grâce), contenu
+     * manquant du nœud signalé ; staging et fichiers temporaires ignorés.
+     */
+    @Test
+    void reconcile_ReportsDrift() {
+        when(leaseService.tryAcquire(eq("orphan-reconcile-node-1"), any())).thenReturn(true);
+        doAnswer(storagePaths("ab/cd/missing.txt", "ab/cd/ok.txt", "zz/other-node.txt"))
+                .when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        OrphanReconciler.Report report = reconciler.reconcile().orElseThrow();
+
+        assertEquals(3, report.scanned());
+        assertEquals(1, report.orphans());
+        assertEquals(1, report.missing());
+        assertEquals(0, report.repaired());
+        assertTrue(Files.exists(uploadDir.resolve("ab/cd/orphan.txt")));
+        verify(leaseService).release("orphan-reconcile-node-1");
+    }
+
+    /**
+     * Réparation : l'orphelin est supprimé, sauf s'il a été enregistré en base
+     * depuis le début du parcours.
+     */
+    @Test
+    void reconcile_RepairsOrphans() throws IOException {
+        ReflectionTestUtils.setField(reconciler, "repair", true);
+        oldFile("ab/cd/registered.txt");
+        when(leaseService.tryAcquire(eq("orphan-reconcile-node-1"), any())).thenReturn(true);
+        doAnswer(storagePaths("ab/cd/ok.txt"))
+                .when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        when(jdbcTemplate.queryForObject(eq(COUNT_FILES), eq(Integer.class),
+                eq("ab/cd/orphan.txt"), eq("orphan.txt"))).thenReturn(0);
+        when(jdbcTemplate.queryForObject(eq(COUNT_FILES), eq(Integer.class),
+                eq("ab/cd/registered.txt"), eq("registered.txt"))).thenReturn(1);
+
+        OrphanReconciler.Report report = reconciler.reconcile().orElseThrow();
+
+        assertEquals(2, report.orphans());
+        assertEquals(1, report.repaired());
+        assertFalse(Files.exists(uploadDir.resolve("ab/cd/orphan.txt")));
+        assertTrue(Files.exists(uploadDir.resolve("ab/cd/registered.txt")));
+        assertTrue(Files.exists(uploadDir.resolve("ab/cd/ok.txt")));
+    }
+
+    /**
+     * Fichier migré présent à plat et réparti : le lien à plat restant (ligne déjà
+     * passée au chemin réparti) est supprimé, le lien réparti est conservé.
+     */
+    @Test
+    void reconcile_RemovesFlatLeftoverOfMigratedFile() throws IOException {
+        ReflectionTestUtils.setField(reconciler, "repair", true);
+        String name = "0b7e4c9a-1111-2222-3333-444455556666_report.txt";
+        oldFile(name);
+        oldFile("0b/7e/" + name);
+        when(leaseService.tryAcquire(eq("orphan-reconcile-node-1"), any())).thenReturn(true);
+        doAnswer(storagePaths("0b/7e/" + name, "ab/cd/ok.txt"))
+                .when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        when(jdbcTemplate.queryForObject(eq(COUNT_FILES), eq(Integer.class), eq(name), eq(name))).thenReturn(0);
+        when(jdbcTemplate.queryForObject(eq(COUNT_FILES), eq(Integer.class),
+                eq("ab/cd/orphan.txt"), eq("orphan.txt"))).thenReturn(0);
+
+        OrphanReconciler.Report report = reconciler.reconcile().orElseThrow();
+
+        assertEquals(2, report.orphans());
+        assertEquals(2, report.repaired());
+        assertFalse(Files.exists(uploadDir.resolve(name)));
+        assertTrue(Files.exists(uploadDir.resolve("0b/7e/" + name)));
+    }
+
+    /**
+     * Lien réparti créé par la migration avant la mise à jour de la ligne (encore
+     * à plat) : conservé.
+     */
+    @Test
+    void reconcile_KeepsShardedLinkOfRowNotYetMigrated() throws IOException {
+        ReflectionTestUtils.setField(reconciler, "repair", true);
+        String name = "0b7e4c9a-1111-2222-3333-444455556666_report.txt";
+        oldFile(name);
+        oldFile("0b/7e/" + name);
+        when(leaseService.tryAcquire(eq("orphan-reconcile-node-1"), any())).thenReturn(true);
+        doAnswer(storagePaths(name, "ab/cd/ok.txt"))
+                .when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        when(jdbcTemplate.queryForObject(eq(COUNT_FILES), eq(Integer.class), eq("0b/7e/" + name), eq(name)))
+                .thenReturn(1);
+        when(jdbcTemplate.queryForObject(eq(COUNT_FILES), eq(Integer.class),
+                eq("ab/cd/orphan.txt"), eq("orphan.txt"))).thenReturn(0);
+
+        OrphanReconciler.Report report = reconciler.reconcile().orElseThrow();
+
+        assertEquals(1, report.repaired());
+        assertTrue(Files.exists(uploadDir.resolve(name)));
+        assertTrue(Files.exists(uploadDir.resolve("0b/7e/" + name)));
+    }
+
+    /**
+     * Bail détenu par une autre instance : aucun parcours.
+     */
+    @Test
+    void reconcile_LeaseHeldElsewhere() {
+        when(leaseService.tryAcquire(eq("orphan-reconcile-node-1"), any())).thenReturn(false);
+
+        assertTrue(reconciler.reconcile().isEmpty());
+
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    /**
+     * Ordre des clés : dossier par dossier ("/" avant tout autre caractère),
+     * comme le parcours en profondeur du disque.
+     */
+    @Test
+    void compareKeys_DirectoryOrder() {
+        assertTrue(OrphanReconciler.compareKeys("ab/zz.txt", "ab-c.txt") < 0);
+        assertTrue(OrphanReconciler.compareKeys("ab/cd/x", "ab/cd/y") < 0);
+        assertTrue(OrphanReconciler.compareKeys("blobs/ab/x", "ab/cd/x") > 0);
+        assertEquals(0, OrphanReconciler.compareKeys("ab/cd/x", "ab/cd/x"));
+    }
+
+    private void oldFile(String key) throws IOException {
+        Path path = uploadDir.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, key);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(0));
+    }
+
+    // Simule le flux trié des storage_path (les chemins "zz/" sont placés sur un autre nœud)
+    private Answer<Void> storagePaths(String... paths) {
+        return invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (String path : paths) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn(path);
+                when(rs.getBoolean(2)).thenReturn(!path.startsWith("zz/"));
+                handler.processRow(rs);
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package com.datashare.backend.services;
+
+import com.datashare.backend.services.QuotaService.QuotaExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests Unitaires pour QuotaService.
+ * Vérifie l'incrément conditionnel (UPSERT), le refus au-delà du quota, le
+ * contrôle préalable sur la taille annoncée et le décrément groupé.
+ */
+@ExtendWith(MockitoExtension.class)
+public class QuotaServiceTest {
+
+    private static final String SELECT_USAGE = "SELECT used_bytes FROM user_quota WHERE user_id = ?";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private QuotaService quotaService;
+
+    @BeforeEach
+    void setUp() {
+        quotaService = new QuotaService(jdbcTemplate);
+        ReflectionTestUtils.setField(quotaService, "limit", DataSize.ofBytes(1000));
+    }
+
+    /**
+     * Réservation acceptée : une seule requête, bornée par le quota.
+     */
+    @Test
+    void reserve_WithinQuota() {
+        when(jdbcTemplate.update(anyString(), eq(1L), eq(400L), eq(1000L))).thenReturn(1);
+
+        quotaService.reserve(1L, 400L);
+
+        verify(jdbcTemplate).update(contains("ON CONFLICT (user_id) DO UPDATE"), eq(1L), eq(400L), eq(1000L));
+        verify(jdbcTemplate, never()).queryForList(SELECT_USAGE, Long.class, 1L);
+    }
+
+    /**
+     * Réservation refusée par la condition de l'UPSERT (compteur inchangé).
+     */
+    @Test
+    void reserve_ExceedsQuota() {
+        when(jdbcTemplate.update(anyString(), eq(1L), eq(400L), eq(1000L))).thenReturn(0);
+        when(jdbcTemplate.queryForList(SELECT_USAGE, Long.class, 1L)).thenReturn(List.of(700L));
+
+        assertThrows(QuotaExceededException.class, () -> quotaService.reserve(1L, 400L));
+    }
+
+    /**
+     * Fichier plus gros que le quota : refusé sans mise à jour.
+     */
+    @Test
+    void reserve_LargerThanQuota() {
+        assertThrows(QuotaExceededException.class, () -> quotaService.reserve(1L, 2000L));
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    /**
+     * Sans limite : compteur tenu à jour, jamais de refus.
+     */
+    @Test
+    void reserve_Unlimited() {
+        ReflectionTestUtils.setField(quotaService, "limit", DataSize.ofBytes(0));
+        when(jdbcTemplate.update(anyString(), eq(1L), eq(2000L), eq(Long.MAX_VALUE))).thenReturn(1);
+
+        quotaService.reserve(1L, 2000L);
+        quotaService.requireRoomFor(1L, Long.MAX_VALUE - 1);
+
+        verify(jdbcTemplate).update(anyString(), eq(1L), eq(2000L), eq(Long.MAX_VALUE));
+    }
+
+    /**
+     * Contrôle préalable : taille annoncée comparée à l'espace restant
+     * (utilisateur sans compteur : rien d'occupé).
+     */
+    @Test
+    void requireRoomFor() {
+        when(jdbcTemplate.queryForList(SELECT_USAGE, Long.class, 1L)).thenReturn(List.of(700L));
+        when(jdbcTemplate.queryForList(SELECT_USAGE, Long.class, 2L)).thenReturn(List.of());
+
+        quotaService.requireRoomFor(1L, 300L);
+        QuotaExceededException e = assertThrows(QuotaExceededException.class,
+                () -> quotaService.requireRoomFor(1L, 301L));
+        quotaService.requireRoomFor(2L, 1000L);
+
+        assertEquals(300L, quotaService.usage(1L).remainingBytes());
+        assertTrue(e.getMessage().startsWith("Quota de stockage dépassé"));
+    }
+
+    /**
+     * Décrément groupé par propriétaire (nettoyage des fichiers expirés).
+     */
+    @Test
+    void release_Batch() {
+        quotaService.release(Map.of(1L, 300L));
+        quotaService.release(Map.of());
+
+        verify(jdbcTemplate, times(1)).batchUpdate(
+                eq("UPDATE user_quota SET used_bytes = GREATEST(used_bytes - ?, 0) WHERE user_id = ?"),
+                argThat((List<Object[]> args) -> args.size() == 1 && args.get(0)[0].equals(300L)
+                        && args.get(0)[1].equals(1L)));
+    }
+}
@@ -0,0 +1,92 @@
+package com.datashare.backend.services;
+
+import com.datashare.backend.model.File;
+import com.datashare.backend.model.Share;
+import com.datashare.backend.repository.ShareRepository;
+import com.datashare.backend.services.ShareLookupService.SharedFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests Unitaires pour ShareLookupService.
+ * Vérifie le cache positif, le cache négatif et l'invalidation.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ShareLookupServiceTest {
+
+    @Mock
+    private ShareRepository shareRepository;
+
+    private ShareLookupService shareLookupService;
+
+    @BeforeEach
+    void setUp() {
+        shareLookupService = new ShareLookupService(shareRepository, 100, 60, 10);
+    }
+
+    /**
+     * Un token valide n'est cherché en base qu'une seule fois.
+     */
+    @Test
+    void find_CachesKnownToken() {
+        when(shareRepository.findByUniqueToken("token")).thenReturn(Optional.of(share(10L)));
+
+        shareLookupService.find("token");
+        Optional<SharedFile> found = shareLookupService.find("token");
+
+        assertTrue(found.isPresent());
+        assertEquals("test.txt", found.get().getOriginalName());
+        verify(shareRepository, times(1)).findByUniqueToken("token");
+    }
+
+    /**
+     * Un token inconnu est mis en cache négatif (pas de requête répétée).
+     */
+    @Test
+    void find_CachesUnknownToken() {
+        when(shareRepository.findByUniqueToken("random")).thenReturn(Optional.empty());
+
+        assertTrue(shareLookupService.find("random").isEmpty());
+        assertTrue(shareLookupService.find("random").isEmpty());
+
+        verify(shareRepository, times(1)).findByUniqueToken("random");
+    }
+
+    /**
+     * La suppression du fichier retire son partage du cache.
+     */
+    @Test
+    void invalidateFiles_ReloadsToken() {
+        when(shareRepository.findByUniqueToken("token")).thenReturn(Optional.of(share(10L)));
+        shareLookupService.find("token");
+
+        shareLookupService.invalidateFiles(List.of(10L));
+        shareLookupService.find("token");
+
+        verify(shareRepository, times(2)).findByUniqueToken("token");
+    }
+
+    private Share share(Long fileId) {
+        File file = new File();
+        file.setId(fileId);
+        file.setOriginalName("test.txt");
+        file.setStoragePath("stored.txt");
+        file.setSize(11L);
+        Share share = new Share();
+        share.setId(1L);
+        share.setUniqueToken("token");
+        share.setFile(file);
+        return share;
+    }
+}
@@ -0,0 +1,136 @@
+package com.datashare.backend.services;
+
+import com.datashare.backend.services.ShareLookupService.SharedFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests Unitaires pour SignedLinkService.
+ * Vérifie la signature des liens, le rejet des liens falsifiés et la révocation.
+ */
+@ExtendWith(MockitoExtension.class)
+public class SignedLinkServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SignedLinkService signedLinkService;
+
+    private final LocalDateTime expiration = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MILLIS);
+
+    private final SharedFile file = new SharedFile(5L, 1L, "stored.txt", "résumé.pdf", 11L,
+            LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.MILLIS), expiration);
+
+    @BeforeEach
+    void setUp() {
+        signedLinkService = new SignedLinkService(jdbcTemplate);
+        ReflectionTestUtils.setField(signedLinkService, "enabled", true);
+        ReflectionTestUtils.setField(signedLinkService, "secret", "ThisIsASecretKeyForSignedLinksTests");
+        signedLinkService.init();
+    }
+
+    /**
+     * Un lien signé restitue les métadonnées du fichier sans accès à la base.
+     */
+    @Test
+    void signAndVerify_RoundTrip() {
+        String token = signedLinkService.sign(file);
+        clearInvocations(jdbcTemplate);
+
+        SharedFile verified = signedLinkService.verify(token).orElseThrow();
+
+        assertEquals(5L, verified.getShareId());
+        assertEquals(1L, verified.getFileId());
+        assertEquals("stored.txt", verified.getStoragePath());
+        assertEquals("résumé.pdf", verified.getOriginalName());
+        assertEquals(11L, verified.getSize());
+        assertEquals(file.getCreatedAt(), verified.getCreatedAt());
+        assertEquals(expiration, verified.getExpirationDate());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * Payload modifié ou signature d'une autre clé : lien rejeté.
+     */
+    @Test
+    void verify_RejectsForgedLinks() {
+        String token = signedLinkService.sign(file);
+        String otherFile = signedLinkService.sign(new SharedFile(6L, 2L, "other.txt", "other.txt", 1L, null,
+                expiration));
+        String forged = otherFile.substring(0, otherFile.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        SignedLinkService otherKey = new SignedLinkService(jdbcTemplate);
+        ReflectionTestUtils.setField(otherKey, "enabled", true);
+        ReflectionTestUtils.setField(otherKey, "secret", "AnotherSecretKeyForSignedLinksTests");
+        otherKey.init();
+
+        assertTrue(signedLinkService.verify(forged).isEmpty());
+        assertTrue(otherKey.verify(token).isEmpty());
+        assertTrue(signedLinkService.verify("not-a-signed-link").isEmpty());
+        assertTrue(signedLinkService.verify("%%%.%%%").isEmpty());
+    }
+
+    /**
+     * Un lien expiré reste authentique : le contrôleur répond 410.
+     */
+    @Test
+    void verify_ExpiredLink() {
+        String token = signedLinkService.sign(new SharedFile(5L, 1L, "stored.txt", "test.txt", 11L, null,
+                LocalDateTime.now().minusMinutes(1)));
+
+        Optional<SharedFile> verified = signedLinkService.verify(token);
+
+        assertTrue(verified.isPresent());
+        assertTrue(verified.get().isExpired());
+    }
+
+    /**
+     * Un partage révoqué n'est plus servi, immédiatement sur cette instance
+     * et après rechargement sur les autres.
+     */
+    @Test
+    void verify_RevokedLink() {
+        String token = signedLinkService.sign(file);
+
+        signedLinkService.revoke(List.of(5L), expiration);
+
+        assertTrue(signedLinkService.verify(token).isEmpty());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        // Autre instance : révocation chargée depuis la table revoked_share
+        SignedLinkService otherInstance = new SignedLinkService(jdbcTemplate);
+        ReflectionTestUtils.setField(otherInstance, "enabled", true);
+        ReflectionTestUtils.setField(otherInstance, "secret", "ThisIsASecretKeyForSignedLinksTests");
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of(9L, 5L));
+        otherInstance.init();
+
+        assertTrue(otherInstance.verify(token).isEmpty());
+    }
+
+    /**
+     * Mode désactivé : aucun lien signé n'est accepté.
+     */
+    @Test
+    void verify_Disabled() {
+        String token = signedLinkService.sign(file);
+        ReflectionTestUtils.setField(signedLinkService, "enabled", false);
+
+        assertTrue(signedLinkService.verify(token).isEmpty());
+    }
+}
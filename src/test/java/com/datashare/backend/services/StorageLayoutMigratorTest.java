@@ -0,0 +1,111 @@
+package com.datashare.backend.services;
+
+import com.datashare.backend.storage.FilesystemStorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests Unitaires pour StorageLayoutMigrator.
+ * Vérifie le déplacement des fichiers à plat et la mise à jour de storage_path.
+ */
+@ExtendWith(MockitoExtension.class)
+public class StorageLayoutMigratorTest {
+
+    private static final String TEST_UPLOAD_DIR = "target/test-uploads-migration";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private FileStorageService fileStorageService;
+
+    private StorageLayoutMigrator migrator;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", TEST_UPLOAD_DIR);
+        ReflectionTestUtils.setField(fileStorageService, "uploadInspector", new UploadInspector());
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend",
+                new FilesystemStorageBackend(TEST_UPLOAD_DIR));
+        fileStorageService.init();
+
+        migrator = new StorageLayoutMigrator(jdbcTemplate, fileStorageService);
+        ReflectionTestUtils.setField(migrator, "enabled", true);
+        ReflectionTestUtils.setField(migrator, "shardDepth", 2);
+        ReflectionTestUtils.setField(migrator, "batchSize", 500);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(Paths.get(TEST_UPLOAD_DIR));
+    }
+
+    /**
+     * Le fichier est déplacé, storage_path mis à jour, l'ancien chemin supprimé ;
+     * le lot suivant (vide) termine la migration.
+     */
+    @Test
+    void migrateBatch_RelocatesFlatFiles() {
+        String flat = fileStorageService.store(
+                new MockMultipartFile("file", "test.txt", "text/plain", "Hello World".getBytes()));
+        ReflectionTestUtils.setField(fileStorageService, "shardDepth", 2);
+        String sharded = fileStorageService.shardedPath(flat);
+
+        stubBatches(List.<Object[]>of(new Object[] { 7L, flat }), List.of());
+        when(jdbcTemplate.update(anyString(), eq(sharded), eq(7L), eq(flat))).thenReturn(1);
+
+        assertEquals(1, migrator.migrateBatch());
+        assertEquals(0, migrator.migrateBatch());
+
+        Path root = Paths.get(TEST_UPLOAD_DIR);
+        assertFalse(Files.exists(root.resolve(flat)));
+        assertTrue(Files.exists(root.resolve(sharded)));
+        assertTrue(migrator.isCompleted());
+    }
+
+    /**
+     * Fichier supprimé pendant la migration : le nouveau lien est retiré.
+     */
+    @Test
+    void migrateBatch_FileDeletedConcurrently() {
+        String flat = fileStorageService.store(
+                new MockMultipartFile("file", "test.txt", "text/plain", "Hello World".getBytes()));
+        ReflectionTestUtils.setField(fileStorageService, "shardDepth", 2);
+        String sharded = fileStorageService.shardedPath(flat);
+
+        stubBatches(List.<Object[]>of(new Object[] { 7L, flat }));
+        when(jdbcTemplate.update(anyString(), eq(sharded), eq(7L), eq(flat))).thenReturn(0);
+
+        assertEquals(0, migrator.migrateBatch());
+
+        assertFalse(Files.exists(Paths.get(TEST_UPLOAD_DIR).resolve(sharded)));
+    }
+
+    @SafeVarargs
+    private void stubBatches(List<Object[]> first, List<Object[]>... next) {
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<Object[]>>any(), any(), any()))
+                .thenReturn(first, next);
+    }
+}
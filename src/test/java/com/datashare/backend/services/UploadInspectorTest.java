@@ -0,0 +1,116 @@
+package com.datashare.backend.services;
+
+import com.datashare.backend.services.UploadInspector.RejectedContentException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour UploadInspector.
+ * Vérifie la détection des exécutables par leurs premiers octets (sans faux
+ * positif sur les documents proches) et le refus avant toute lecture du flux.
+ */
+public class UploadInspectorTest {
+
+    private final UploadInspector uploadInspector = new UploadInspector();
+
+    @Test
+    void forbiddenExtension() {
+        assertEquals(Optional.of("exe"), uploadInspector.forbiddenExtension("setup.EXE"));
+        assertEquals(Optional.of("js"), uploadInspector.forbiddenExtension("archive.tar.js"));
+        assertTrue(uploadInspector.forbiddenExtension("rapport.pdf").isEmpty());
+        assertTrue(uploadInspector.forbiddenExtension(".exe").isEmpty());
+        assertTrue(uploadInspector.forbiddenExtension(null).isEmpty());
+    }
+
+    /**
+     * Exécutables reconnus quel que soit leur nom.
+     */
+    @Test
+    void detectExecutable_KnownFormats() {
+        assertDetected("exécutable Windows (PE)", portableExecutable());
+        assertDetected("exécutable ELF", new byte[] { 0x7F, 'E', 'L', 'F', 2, 1, 1, 0 });
+        assertDetected("exécutable Mach-O ou classe Java", new byte[] { (byte) 0xCF, (byte) 0xFA, (byte) 0xED,
+                (byte) 0xFE, 7, 0, 0, 1 });
+        assertDetected("script (#!)", "#!/bin/sh\nrm -rf /tmp/x\n".getBytes(StandardCharsets.UTF_8));
+        assertDetected("script (#!)", "\uFEFF#!/usr/bin/env python3\n".getBytes(StandardCharsets.UTF_8));
+        assertDetected("installeur Windows (MSI)", compoundFile(0x84, 0x10, 0x0C, 0x00));
+    }
+
+    /**
+     * Contenus proches mais acceptés : texte commençant par "MZ", document
+     * Word 97 (même format composé OLE qu'un MSI), PDF.
+     */
+    @Test
+    void detectExecutable_NoFalsePositive() {
+        byte[] text = new byte[200];
+        Arrays.fill(text, (byte) 'a');
+        text[0] = 'M';
+        text[1] = 'Z';
+        assertTrue(uploadInspector.detectExecutable(text, text.length).isEmpty());
+        byte[] word = compoundFile(0x06, 0x09, 0x02, 0x00);
+        assertTrue(uploadInspector.detectExecutable(word, word.length).isEmpty());
+        byte[] pdf = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        assertTrue(uploadInspector.detectExecutable(pdf, pdf.length).isEmpty());
+    }
+
+    /**
+     * Flux refusé à la première lecture, sans rendre aucun octet ; flux
+     * accepté transmis intégralement.
+     */
+    @Test
+    void inspect_RejectsBeforeFirstByte() throws IOException {
+        byte[] executable = new byte[100_000];
+        System.arraycopy(portableExecutable(), 0, executable, 0, 256);
+        InputStream rejected = uploadInspector.inspect(new ByteArrayInputStream(executable));
+
+        byte[] buffer = new byte[8192];
+        assertThrows(RejectedContentException.class, () -> rejected.read(buffer));
+        assertThrows(RejectedContentException.class, rejected::read);
+
+        byte[] content = new byte[10_000];
+        Arrays.fill(content, (byte) 'x');
+        InputStream accepted = uploadInspector.inspect(new ByteArrayInputStream(content));
+        assertArrayEquals(content, accepted.readAllBytes());
+    }
+
+    private void assertDetected(String type, byte[] content) {
+        assertEquals(Optional.of(type), uploadInspector.detectExecutable(content, content.length));
+    }
+
+    // En-tête DOS "MZ" et signature PE à l'offset 0x80
+    private static byte[] portableExecutable() {
+        byte[] header = new byte[256];
+        header[0] = 'M';
+        header[1] = 'Z';
+        header[0x3C] = (byte) 0x80;
+        header[0x80] = 'P';
+        header[0x81] = 'E';
+        return header;
+    }
+
+    // Fichier composé OLE (secteurs de 512 octets, répertoire au secteur 0) dont
+    // l'entrée racine porte le CLSID {xxxxxxxx-0000-0000-C000-000000000046}
+    private static byte[] compoundFile(int... clsidHead) {
+        byte[] content = new byte[1024];
+        int[] signature = { 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1 };
+        for (int i = 0; i < signature.length; i++) {
+            content[i] = (byte) signature[i];
+        }
+        content[0x1E] = 9;
+        int clsid = 512 + 0x50;
+        for (int i = 0; i < clsidHead.length; i++) {
+            content[clsid + i] = (byte) clsidHead[i];
+        }
+        content[clsid + 8] = (byte) 0xC0;
+        content[clsid + 15] = 0x46;
+        return content;
+    }
+}
@@ -0,0 +1,118 @@
+package com.datashare.backend.services;
+
+import com.datashare.backend.services.ZipDownloadWriter.ZipItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour ZipDownloadWriter.
+ * Vérifie le contenu de l'archive, le niveau de compression des entrées et
+ * leurs noms.
+ */
+public class ZipDownloadWriterTest {
+
+    private final ZipDownloadWriter zipDownloadWriter = new ZipDownloadWriter();
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Texte compressé, format déjà compressé recopié sans compression ; chaque
+     * fichier n'est lu qu'une fois, contenu intact.
+     */
+    @Test
+    void write_CompressedAndCopiedEntries() throws IOException {
+        Path text = Files.writeString(tempDir.resolve("a"), "Hello World ".repeat(100));
+        Path image = Files.write(tempDir.resolve("b"), "Hello World ".repeat(100).getBytes(StandardCharsets.UTF_8));
+        AtomicInteger opens = new AtomicInteger();
+        List<ZipItem> items = List.of(
+                new ZipItem("notes.txt", counted(text, opens), false),
+                new ZipItem("photo.JPG", counted(image, opens), false));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        zipDownloadWriter.write(items, out);
+
+        assertEquals(2, opens.get());
+        try (ZipFile zip = new ZipFile(Files.write(tempDir.resolve("archive.zip"), out.toByteArray()).toFile())) {
+            ZipEntry first = zip.getEntry("notes.txt");
+            assertEquals(ZipEntry.DEFLATED, first.getMethod());
+            assertTrue(first.getCompressedSize() < 100);
+            assertEquals("Hello World ".repeat(100),
+                    new String(zip.getInputStream(first).readAllBytes(), StandardCharsets.UTF_8));
+
+            // Blocs non compressés : taille proche de l'original
+            ZipEntry second = zip.getEntry("photo.JPG");
+            assertTrue(second.getCompressedSize() >= Files.size(image));
+            assertArrayEquals(Files.readAllBytes(image), zip.getInputStream(second).readAllBytes());
+
+            assertEquals(2, zip.size());
+        }
+    }
+
+    /**
+     * Noms d'origine contenant des chemins : aucune entrée hors de la racine de
+     * l'archive.
+     */
+    @Test
+    void write_EntryNamesWithoutPath() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("a"), "content");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        zipDownloadWriter.write(List.of(new ZipItem("../../etc/passwd", file),
+                new ZipItem("..\\..\\evil.bat", file), new ZipItem("..", file)), out);
+
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(".._.._etc_passwd", zip.getNextEntry().getName());
+            assertEquals(".._.._evil.bat", zip.getNextEntry().getName());
+            assertEquals("fichier", zip.getNextEntry().getName());
+        }
+    }
+
+    /**
+     * Deux fichiers de même nom : le second est renommé.
+     */
+    @Test
+    void write_DuplicateNames() throws IOException {
+        Path first = Files.writeString(tempDir.resolve("a"), "first");
+        Path second = Files.writeString(tempDir.resolve("b"), "second");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        zipDownloadWriter.write(List.of(new ZipItem("report.txt", first), new ZipItem("report.txt", second)), out);
+
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("report.txt", zip.getNextEntry().getName());
+            assertEquals("report (1).txt", zip.getNextEntry().getName());
+            assertEquals("second", new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void isCompressed() {
+        assertTrue(ZipDownloadWriter.isCompressed("archive.tar.gz"));
+        assertTrue(ZipDownloadWriter.isCompressed("video.MP4"));
+        assertFalse(ZipDownloadWriter.isCompressed("notes.txt"));
+        assertFalse(ZipDownloadWriter.isCompressed("zip"));
+    }
+
+    // Ouverture du contenu comptée
+    private ContentCompressor.ContentSource counted(Path path, AtomicInteger opens) {
+        return () -> {
+            opens.incrementAndGet();
+            return Files.newInputStream(path);
+        };
+    }
+}
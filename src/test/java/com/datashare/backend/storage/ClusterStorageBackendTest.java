@@ -0,0 +1,241 @@
+package com.datashare.backend.storage;
+
+import com.datashare.backend.controllers.StorageNodeController;
+import com.datashare.backend.services.FileDownloadWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du stockage réparti sur deux nœuds.
+ * Le nœud 1 est vu par ClusterStorageBackend ; le nœud 2 expose son disque
+ * par StorageNodeController (MockMvc) derrière un serveur HTTP local, appelé
+ * par RemoteStorageBackend comme en production.
+ */
+public class ClusterStorageBackendTest {
+
+    private static final String SECRET = "cluster-secret";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer node2Server;
+
+    private FilesystemStorageBackend node1Disk;
+
+    private FilesystemStorageBackend node2Disk;
+
+    private StorageCluster cluster;
+
+    private ClusterStorageBackend backend;
+
+    private String node2Url;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        node1Disk = new FilesystemStorageBackend(tempDir.resolve("node-1").toString());
+        node2Disk = new FilesystemStorageBackend(tempDir.resolve("node-2").toString());
+
+        node2Server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        node2Url = "http://127.0.0.1:" + node2Server.getAddress().getPort();
+        String nodes = "node-1=http://127.0.0.1:1,node-2=" + node2Url;
+
+        // API interne du nœud 2, avec sa propre vue du cluster
+        StorageNodeController node2Controller = new StorageNodeController();
+        ReflectionTestUtils.setField(node2Controller, "storageCluster",
+                new StorageCluster(true, "node-2", nodes, 128, SECRET, true));
+        ReflectionTestUtils.setField(node2Controller, "localStorage", node2Disk);
+        ReflectionTestUtils.setField(node2Controller, "fileDownloadWriter", new FileDownloadWriter());
+        MockMvc node2 = MockMvcBuilders.standaloneSetup(node2Controller).build();
+        node2Server.createContext("/", exchange -> forward(node2, exchange));
+        node2Server.start();
+
+        cluster = new StorageCluster(true, "node-1", nodes, 128, SECRET, true);
+        backend = new ClusterStorageBackend(cluster, node1Disk);
+    }
+
+    @AfterEach
+    void tearDown() {
+        node2Server.stop(0);
+    }
+
+    /**
+     * Clé placée sur le nœud distant : écriture, métadonnées, lecture (complète
+     * et par plage) et suppression passent par l'API interne du nœud 2.
+     */
+    @Test
+    void remoteOwner_RoundTrip() throws IOException {
+        String key = keyOwnedBy("node-2");
+
+        backend.put(key, new ByteArrayInputStream(bytes("Hello World")), 11);
+
+        assertTrue(node2Disk.stat(key).isPresent());
+        assertTrue(node1Disk.stat(key).isEmpty());
+        assertEquals(11L, backend.stat(key).orElseThrow().size());
+        assertEquals("Hello World", read(backend.get(key, 0, -1)));
+        assertEquals("World", read(backend.get(key, 6, 5)));
+        try (InputStream in = backend.find(key).orElseThrow().open()) {
+            assertEquals("Hello World", read(in));
+        }
+
+        assertTrue(backend.delete(key));
+        assertTrue(node2Disk.stat(key).isEmpty());
+        assertTrue(backend.stat(key).isEmpty());
+        assertFalse(backend.delete(key));
+    }
+
+    /**
+     * Transfert d'un fichier de staging vers le nœud distant : le fichier source
+     * est consommé.
+     */
+    @Test
+    void remoteOwner_PutFile() throws IOException {
+        String key = keyOwnedBy("node-2");
+        Path staged = Files.writeString(tempDir.resolve("staged.part"), "Hello World");
+
+        backend.putFile(key, staged);
+
+        assertFalse(Files.exists(staged));
+        assertEquals("Hello World", read(node2Disk.get(key, 0, -1)));
+    }
+
+    /**
+     * Clé placée sur le nœud local : aucun appel au nœud distant.
+     */
+    @Test
+    void localOwner_RoundTrip() throws IOException {
+        String key = keyOwnedBy("node-1");
+
+        backend.put(key, new ByteArrayInputStream(bytes("Hello World")), 11);
+
+        assertTrue(node1Disk.stat(key).isPresent());
+        assertTrue(node2Disk.stat(key).isEmpty());
+        assertEquals("Hello World", read(backend.get(key, 0, -1)));
+        // Contenu local : envoyé en zéro-copie
+        assertTrue(backend.find(key).orElseThrow().getLocalPath().isPresent());
+        assertTrue(backend.delete(key));
+        assertTrue(backend.stat(key).isEmpty());
+    }
+
+    /**
+     * Contenu écrit localement avant un changement de topologie : lu et
+     * supprimé sur le disque local, bien que l'anneau désigne le nœud 2.
+     */
+    @Test
+    void localCopyPreferredOverOwner() throws IOException {
+        String key = keyOwnedBy("node-2");
+        node1Disk.put(key, new ByteArrayInputStream(bytes("local copy")), 10);
+        node2Disk.put(key, new ByteArrayInputStream(bytes("owner copy")), 10);
+
+        assertEquals("local copy", read(backend.get(key, 0, -1)));
+        assertTrue(backend.find(key).orElseThrow().getLocalPath().isPresent());
+
+        assertTrue(backend.delete(key));
+        assertTrue(node1Disk.stat(key).isEmpty());
+        // Le disque local ne détient plus la clé : le nœud propriétaire prend le relais
+        assertEquals("owner copy", read(backend.get(key, 0, -1)));
+    }
+
+    /**
+     * Clé absente du disque local et placée localement : introuvable, sans
+     * interroger le nœud distant qui la détiendrait.
+     */
+    @Test
+    void localOwner_MissingNotSearchedRemotely() throws IOException {
+        String key = keyOwnedBy("node-1");
+        node2Disk.put(key, new ByteArrayInputStream(bytes("stray")), 5);
+
+        assertTrue(backend.stat(key).isEmpty());
+        assertTrue(backend.find(key).isEmpty());
+        assertFalse(backend.delete(key));
+    }
+
+    /**
+     * Secret erroné : le nœud distant refuse l'accès (403), signalé en IOException.
+     */
+    @Test
+    void remoteWithWrongToken_Refused() throws IOException {
+        String key = keyOwnedBy("node-2");
+        node2Disk.put(key, new ByteArrayInputStream(bytes("secret")), 6);
+        RemoteStorageBackend remote = new RemoteStorageBackend(HttpClient.newHttpClient(), node2Url, "wrong");
+
+        IOException error = assertThrows(IOException.class, () -> remote.stat(key));
+        assertTrue(error.getMessage().contains("403"));
+        assertThrows(IOException.class, () -> remote.get(key, 0, -1));
+        assertThrows(IOException.class, () -> remote.delete(key));
+        assertThrows(IOException.class, () -> remote.put(key, new ByteArrayInputStream(bytes("x")), 1));
+        assertEquals("secret", read(node2Disk.get(key, 0, -1)));
+    }
+
+    // Première clé placée sur le nœud donné
+    private String keyOwnedBy(String node) {
+        for (int i = 0;; i++) {
+            String key = "ab/cd/file-" + i + ".txt";
+            if (cluster.ownerOf(key).equals(node)) {
+                return key;
+            }
+        }
+    }
+
+    // Transmet une requête reçue par le serveur HTTP à l'API interne du nœud
+    private static void forward(MockMvc node, HttpExchange exchange) throws IOException {
+        try (exchange) {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                    .request(HttpMethod.valueOf(exchange.getRequestMethod()), exchange.getRequestURI())
+                    .content(exchange.getRequestBody().readAllBytes());
+            String token = exchange.getRequestHeaders().getFirst(StorageCluster.TOKEN_HEADER);
+            if (token != null) {
+                request.header(StorageCluster.TOKEN_HEADER, token);
+            }
+            MockHttpServletResponse response = node.perform(request).andReturn().getResponse();
+
+            for (String name : response.getHeaderNames()) {
+                if (!name.equalsIgnoreCase("Content-Length")) {
+                    exchange.getResponseHeaders().put(name, response.getHeaders(name));
+                }
+            }
+            byte[] body = response.getContentAsByteArray();
+            boolean noBody = body.length == 0 || "HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(response.getStatus(), noBody ? -1 : body.length);
+            if (!noBody) {
+                exchange.getResponseBody().write(body);
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.datashare.backend.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour ConsistentHashRing et StorageCluster.
+ * Vérifie la stabilité du placement, l'équilibre de la répartition et le
+ * routage des téléchargements.
+ */
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 20000;
+
+    /**
+     * Le placement est déterministe et réparti sur tous les nœuds.
+     */
+    @Test
+    void nodeFor_BalancedAndStable() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 128);
+        ConsistentHashRing same = new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            String key = "ab/cd/" + UUID.randomUUID() + "_file.txt";
+            assertEquals(ring.nodeFor(key), same.nodeFor(key));
+            counts.merge(ring.nodeFor(key), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > KEYS / 3 * 0.75, "Unbalanced ring: " + counts));
+    }
+
+    /**
+     * L'ajout d'un nœud ne déplace que les clés qu'il reprend (environ 1/N).
+     */
+    @Test
+    void nodeFor_AddingNodeMovesFewKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-1", "node-2", "node-3", "node-4"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = UUID.randomUUID() + "_file.txt";
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                assertEquals("node-4", owner);
+                moved++;
+            }
+        }
+
+        assertTrue(moved < KEYS * 0.35, "Too many keys moved: " + moved);
+    }
+
+    /**
+     * Redirection vers le nœud enregistré uniquement (jamais vers le nœud local
+     * ni vers un nœud inconnu).
+     */
+    @Test
+    void redirectTarget() {
+        StorageCluster cluster = new StorageCluster(true, "node-1",
+                "node-1=http://localhost:8080, node-2=http://localhost:8081/", 128, "secret", true);
+
+        assertEquals(Optional.of("http://localhost:8081"), cluster.redirectTarget("node-2"));
+        assertEquals(Optional.empty(), cluster.redirectTarget("node-1"));
+        assertEquals(Optional.empty(), cluster.redirectTarget("removed-node"));
+        assertEquals(Optional.empty(), cluster.redirectTarget(null));
+        assertTrue(cluster.getNodes().contains(cluster.placementOf("ab/cd/stored.txt")));
+
+        assertTrue(cluster.isAuthorized("secret"));
+        assertFalse(cluster.isAuthorized("other"));
+        assertFalse(cluster.isAuthorized(null));
+    }
+
+    /**
+     * Cluster activé sans secret dédié : démarrage refusé (le secret des JWT
+     * n'est plus utilisé par défaut).
+     */
+    @Test
+    void enabledClusterRequiresSecret() {
+        assertThrows(IllegalStateException.class, () -> new StorageCluster(true, "node-1",
+                "node-1=http://localhost:8080,node-2=http://localhost:8081", 128, "", true));
+        assertThrows(IllegalStateException.class, () -> new StorageCluster(true, "node-1",
+                "node-1=http://localhost:8080,node-2=http://localhost:8081", 128, "  ", true));
+        assertFalse(new StorageCluster(false, "node-1", "", 128, "", true).isAuthorized(""));
+    }
+
+    /**
+     * Cluster désactivé : aucun nœud enregistré, aucune redirection, API interne
+     * fermée.
+     */
+    @Test
+    void disabledCluster() {
+        StorageCluster cluster = new StorageCluster(false, "node-1", "", 128, "secret", true);
+
+        assertNull(cluster.placementOf("ab/cd/stored.txt"));
+        assertEquals(Optional.empty(), cluster.redirectTarget("node-2"));
+        assertFalse(cluster.isAuthorized("secret"));
+    }
+
+    /**
+     * Le nœud local doit faire partie de la liste des nœuds.
+     */
+    @Test
+    void localNodeMissing() {
+        assertThrows(IllegalStateException.class,
+                () -> new StorageCluster(true, "node-3", "node-1=http://a:8080,node-2=http://b:8080", 128, "s", true));
+    }
+}
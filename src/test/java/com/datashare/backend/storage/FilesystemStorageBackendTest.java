@@ -0,0 +1,88 @@
+package com.datashare.backend.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Unitaires pour FilesystemStorageBackend.
+ * Vérifie l'écriture, la lecture par plage et la résolution des clés.
+ */
+public class FilesystemStorageBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FilesystemStorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new FilesystemStorageBackend(tempDir.toString());
+    }
+
+    /**
+     * Écriture sous une clé à plusieurs niveaux, puis lecture complète et par plage.
+     */
+    @Test
+    void putAndGetRange() throws IOException {
+        backend.put("ab/cd/file.txt", new ByteArrayInputStream(bytes("Hello World")), 11);
+
+        assertEquals(11L, backend.stat("ab/cd/file.txt").orElseThrow().size());
+        assertEquals("Hello World", read(backend.get("ab/cd/file.txt", 0, -1)));
+        assertEquals("World", read(backend.get("ab/cd/file.txt", 6, 5)));
+        assertEquals("lo", read(backend.get("ab/cd/file.txt", 3, 2)));
+        assertEquals(tempDir.resolve("ab/cd/file.txt"), backend.localPath("ab/cd/file.txt").orElseThrow());
+    }
+
+    /**
+     * Un fichier local est déplacé (pas de copie) sous la clé.
+     */
+    @Test
+    void putFile_MovesSource() throws IOException {
+        Path staged = Files.writeString(tempDir.resolve("staged.part"), "content");
+
+        backend.putFile("blobs/a5/a591", staged);
+
+        assertFalse(Files.exists(staged));
+        assertEquals("content", read(backend.get("blobs/a5/a591", 0, -1)));
+    }
+
+    @Test
+    void deleteAndStat_MissingKey() throws IOException {
+        backend.put("file.txt", new ByteArrayInputStream(bytes("x")), 1);
+
+        assertTrue(backend.delete("file.txt"));
+        assertFalse(backend.delete("file.txt"));
+        assertTrue(backend.stat("file.txt").isEmpty());
+        assertTrue(backend.find("file.txt").isEmpty());
+    }
+
+    /**
+     * Une clé sortant du dossier racine est refusée.
+     */
+    @Test
+    void resolve_RejectsTraversal() {
+        assertThrows(IllegalArgumentException.class, () -> backend.stat("../outside.txt"));
+        assertThrows(IllegalArgumentException.class,
+                () -> backend.put("a/../../outside.txt", new ByteArrayInputStream(bytes("x")), 1));
+    }
+
+    private byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.datashare.backend.storage;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.BucketAlreadyOwnedByYouException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests d'intégration de S3StorageBackend contre un stockage compatible S3 local
+ * (MinIO), par exemple :
+ *
+ * docker run -p 9000:9000 minio/minio server /data
+ * S3_TEST_ENDPOINT=http://localhost:9000 mvn test -Dtest=S3StorageBackendIT
+ *
+ * Ignorés si S3_TEST_ENDPOINT n'est pas défini.
+ */
+@EnabledIfEnvironmentVariable(named = "S3_TEST_ENDPOINT", matches = ".+")
+public class S3StorageBackendIT {
+
+    private static final String BUCKET = "datashare-test";
+
+    private static S3Client client;
+
+    private static S3StorageBackend backend;
+
+    @BeforeAll
+    static void setUp() {
+        client = S3Client.builder()
+                .endpointOverride(URI.create(System.getenv("S3_TEST_ENDPOINT")))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(
+                        env("S3_TEST_ACCESS_KEY", "minioadmin"), env("S3_TEST_SECRET_KEY", "minioadmin"))))
+                .forcePathStyle(true)
+                .build();
+        try {
+            client.createBucket(request -> request.bucket(BUCKET));
+        } catch (BucketAlreadyOwnedByYouException e) {
+            // Bucket conservé d'une exécution précédente
+        }
+        backend = new S3StorageBackend(client, BUCKET, S3StorageBackend.MIN_PART_SIZE);
+    }
+
+    /**
+     * Petit contenu : PUT simple, métadonnées et lectures par plage.
+     */
+    @Test
+    void putAndGetRange() throws IOException {
+        String key = "ab/cd/" + UUID.randomUUID() + "_test.txt";
+        backend.put(key, new ByteArrayInputStream("Hello World".getBytes()), 11);
+
+        assertEquals(11L, backend.stat(key).orElseThrow().size());
+        assertEquals("Hello World", new String(read(backend.get(key, 0, -1))));
+        assertEquals("World", new String(read(backend.get(key, 6, 5))));
+        assertEquals("World", new String(read(backend.get(key, 6, -1))));
+        assertTrue(backend.localPath(key).isEmpty());
+    }
+
+    /**
+     * Contenu de taille inconnue dépassant une partie : upload multipart.
+     */
+    @Test
+    void put_Multipart() throws IOException {
+        byte[] content = new byte[2 * S3StorageBackend.MIN_PART_SIZE + 1234];
+        new Random(42).nextBytes(content);
+        String key = UUID.randomUUID().toString();
+
+        backend.put(key, new ByteArrayInputStream(content), -1);
+
+        assertEquals(content.length, backend.stat(key).orElseThrow().size());
+        assertArrayEquals(content, read(backend.get(key, 0, -1)));
+        int start = S3StorageBackend.MIN_PART_SIZE - 10;
+        assertArrayEquals(Arrays.copyOfRange(content, start, start + 20), read(backend.get(key, start, 20)));
+    }
+
+    @Test
+    void delete() throws IOException {
+        String key = UUID.randomUUID().toString();
+        backend.put(key, new ByteArrayInputStream(new byte[] { 1 }), 1);
+
+        assertTrue(backend.delete(key));
+        assertFalse(backend.delete(key));
+        assertTrue(backend.stat(key).isEmpty());
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private byte[] read(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}